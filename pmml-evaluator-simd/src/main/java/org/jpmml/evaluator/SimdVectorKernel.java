@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2014 Villu Ruusmann
+ *
+ * This file is part of JPMML-Evaluator
+ *
+ * JPMML-Evaluator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Evaluator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Evaluator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.evaluator;
+
+import jdk.incubator.vector.*;
+
+/**
+ * <p>
+ * An implementation of {@link VectorKernel} that processes vectors in chunks of the preferred SIMD width of the platform,
+ * and traverses trees for as many rows at a time.
+ * </p>
+ *
+ * The elements are summed up in a different order than by {@link ScalarVectorKernel}, so the results may differ in the last bits.
+ */
+public class SimdVectorKernel implements VectorKernel {
+
+	public SimdVectorKernel(){
+
+		// Lanes that are emulated in software are slower than the scalar loop
+		if(SimdVectorKernel.species.length() < 2){
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	@Override
+	public double dotProduct(double[] left, double[] right){
+
+		if(left.length != right.length){
+			throw new EvaluationException();
+		}
+
+		int bound = SimdVectorKernel.species.loopBound(left.length);
+
+		DoubleVector sums = DoubleVector.zero(SimdVectorKernel.species);
+
+		int i = 0;
+
+		for(; i < bound; i += SimdVectorKernel.species.length()){
+			DoubleVector leftVector = DoubleVector.fromArray(SimdVectorKernel.species, left, i);
+			DoubleVector rightVector = DoubleVector.fromArray(SimdVectorKernel.species, right, i);
+
+			sums = leftVector.fma(rightVector, sums);
+		}
+
+		double sum = sums.reduceLanes(VectorOperators.ADD);
+
+		for(; i < left.length; i++){
+			sum += (left[i] * right[i]);
+		}
+
+		return sum;
+	}
+
+	@Override
+	public double squaredDistance(double[] left, double[] right){
+
+		if(left.length != right.length){
+			throw new EvaluationException();
+		}
+
+		int bound = SimdVectorKernel.species.loopBound(left.length);
+
+		DoubleVector sums = DoubleVector.zero(SimdVectorKernel.species);
+
+		int i = 0;
+
+		for(; i < bound; i += SimdVectorKernel.species.length()){
+			DoubleVector diffs = DoubleVector.fromArray(SimdVectorKernel.species, left, i).sub(DoubleVector.fromArray(SimdVectorKernel.species, right, i));
+
+			sums = diffs.fma(diffs, sums);
+		}
+
+		double sum = sums.reduceLanes(VectorOperators.ADD);
+
+		for(; i < left.length; i++){
+			double diff = (left[i] - right[i]);
+
+			sum += (diff * diff);
+		}
+
+		return sum;
+	}
+
+	@Override
+	public double weightedSquaredDistance(double[] left, double[] right, double[] weights){
+
+		if(left.length != right.length || left.length != weights.length){
+			throw new EvaluationException();
+		}
+
+		int bound = SimdVectorKernel.species.loopBound(left.length);
+
+		DoubleVector sums = DoubleVector.zero(SimdVectorKernel.species);
+
+		int i = 0;
+
+		for(; i < bound; i += SimdVectorKernel.species.length()){
+			DoubleVector diffs = DoubleVector.fromArray(SimdVectorKernel.species, left, i).sub(DoubleVector.fromArray(SimdVectorKernel.species, right, i));
+
+			sums = diffs.mul(diffs).fma(DoubleVector.fromArray(SimdVectorKernel.species, weights, i), sums);
+		}
+
+		double sum = sums.reduceLanes(VectorOperators.ADD);
+
+		for(; i < left.length; i++){
+			double diff = (left[i] - right[i]);
+
+			sum += (weights[i] * (diff * diff));
+		}
+
+		return sum;
+	}
+
+	/**
+	 * Every lane follows one row, and takes one step per iteration.
+	 * Fields, bounds and children are gathered by the current nodes of all lanes.
+	 */
+	@Override
+	public void traverse(long[] keys, int fieldCount, int rows, int[] fields, long[] bounds, int[] children, int[] roots, int[] depths, int[] result){
+		int lanes = SimdVectorKernel.longSpecies.length();
+
+		int bound = SimdVectorKernel.longSpecies.loopBound(rows);
+
+		int[] nodes = new int[lanes];
+		int[] indices = new int[lanes];
+
+		// Per lane, the offset of the row in keys
+		IntVector laneOffsets = IntVector.zero(SimdVectorKernel.intSpecies).addIndex(fieldCount);
+
+		IntVector ones = IntVector.broadcast(SimdVectorKernel.intSpecies, 1);
+
+		for(int i = 0; i < roots.length; i++){
+			int row = 0;
+
+			for(; row < bound; row += lanes){
+				IntVector rowOffsets = laneOffsets.add(row * fieldCount);
+
+				IntVector nodeVector = IntVector.broadcast(SimdVectorKernel.intSpecies, roots[i]);
+
+				for(int step = 0; step < depths[i]; step++){
+					nodeVector.intoArray(nodes, 0);
+
+					IntVector fieldVector = IntVector.fromArray(SimdVectorKernel.intSpecies, fields, 0, nodes, 0);
+
+					(rowOffsets.add(fieldVector)).intoArray(indices, 0);
+
+					LongVector keyVector = LongVector.fromArray(SimdVectorKernel.longSpecies, keys, 0, indices, 0);
+					LongVector boundVector = LongVector.fromArray(SimdVectorKernel.longSpecies, bounds, 0, nodes, 0);
+
+					VectorMask<Integer> high = (keyVector.compare(VectorOperators.GE, boundVector)).cast(SimdVectorKernel.intSpecies);
+
+					(nodeVector.lanewise(VectorOperators.LSHL, 1).add(ones, high)).intoArray(indices, 0);
+
+					nodeVector = IntVector.fromArray(SimdVectorKernel.intSpecies, children, 0, indices, 0);
+				}
+
+				nodeVector.intoArray(nodes, 0);
+
+				for(int lane = 0; lane < lanes; lane++){
+					result[(row + lane) * roots.length + i] = nodes[lane];
+				}
+			}
+
+			for(; row < rows; row++){
+				int node = roots[i];
+
+				for(int step = 0; step < depths[i]; step++){
+					long key = keys[row * fieldCount + fields[node]];
+
+					node = children[2 * node + (key < bounds[node] ? 0 : 1)];
+				}
+
+				result[row * roots.length + i] = node;
+			}
+		}
+	}
+
+	private static final VectorSpecies<Double> species = DoubleVector.SPECIES_PREFERRED;
+
+	private static final VectorSpecies<Long> longSpecies = LongVector.SPECIES_PREFERRED;
+
+	/**
+	 * The species of ints that has as many lanes as {@link #longSpecies}.
+	 */
+	private static final VectorSpecies<Integer> intSpecies = VectorSpecies.of(int.class, VectorShape.forBitSize(SimdVectorKernel.longSpecies.vectorBitSize() / 2));
+}
\ No newline at end of file
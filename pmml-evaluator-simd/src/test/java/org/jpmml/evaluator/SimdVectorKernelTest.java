@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2014 Villu Ruusmann
+ *
+ * This file is part of JPMML-Evaluator
+ *
+ * JPMML-Evaluator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Evaluator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Evaluator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+public class SimdVectorKernelTest {
+
+	@Test
+	public void compute(){
+		VectorKernel scalarKernel = new ScalarVectorKernel();
+		VectorKernel simdKernel = new SimdVectorKernel();
+
+		Random random = new Random(42L);
+
+		for(int length = 0; length < 67; length++){
+			double[] left = new double[length];
+			double[] right = new double[length];
+
+			for(int i = 0; i < length; i++){
+				left[i] = random.nextGaussian();
+				right[i] = random.nextGaussian();
+			}
+
+			assertEquals(scalarKernel.dotProduct(left, right), simdKernel.dotProduct(left, right), 1e-12);
+			assertEquals(scalarKernel.squaredDistance(left, right), simdKernel.squaredDistance(left, right), 1e-12);
+
+			double[] weights = new double[length];
+
+			for(int i = 0; i < length; i++){
+				weights[i] = random.nextDouble();
+			}
+
+			assertEquals(scalarKernel.weightedSquaredDistance(left, right, weights), simdKernel.weightedSquaredDistance(left, right, weights), 1e-12);
+		}
+	}
+
+	@Test
+	public void traverse(){
+		VectorKernel scalarKernel = new ScalarVectorKernel();
+		VectorKernel simdKernel = new SimdVectorKernel();
+
+		Random random = new Random(42L);
+
+		int fieldCount = 3;
+
+		// Three complete trees of depths 0, 2 and 5, which are laid out in breadth-first order
+		int[] depths = {0, 2, 5};
+		int[] roots = new int[depths.length];
+
+		int nodes = 0;
+
+		for(int i = 0; i < depths.length; i++){
+			roots[i] = nodes;
+
+			nodes += (1 << (depths[i] + 1)) - 1;
+		}
+
+		int[] fields = new int[nodes];
+		long[] bounds = new long[nodes];
+		int[] children = new int[2 * nodes];
+
+		for(int i = 0; i < depths.length; i++){
+			int size = (1 << (depths[i] + 1)) - 1;
+
+			for(int j = 0; j < size; j++){
+				int node = roots[i] + j;
+
+				if(2 * j + 1 >= size){
+					bounds[node] = Long.MIN_VALUE;
+					children[2 * node] = node;
+					children[2 * node + 1] = node;
+
+					continue;
+				}
+
+				fields[node] = random.nextInt(fieldCount);
+				bounds[node] = BatchTreeEnsemble.toKey(random.nextGaussian());
+				children[2 * node] = roots[i] + (2 * j + 1);
+				children[2 * node + 1] = roots[i] + (2 * j + 2);
+			}
+		}
+
+		for(int rows = 0; rows < 37; rows++){
+			long[] keys = new long[rows * fieldCount];
+
+			for(int i = 0; i < keys.length; i++){
+				keys[i] = BatchTreeEnsemble.toKey(random.nextGaussian());
+			}
+
+			int[] expected = new int[rows * depths.length];
+			int[] result = new int[rows * depths.length];
+
+			scalarKernel.traverse(keys, fieldCount, rows, fields, bounds, children, roots, depths, expected);
+			simdKernel.traverse(keys, fieldCount, rows, fields, bounds, children, roots, depths, result);
+
+			assertArrayEquals(expected, result);
+		}
+	}
+
+	@Test
+	public void getInstance(){
+		assertTrue(VectorKernelUtil.getInstance() instanceof SimdVectorKernel);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,312 @@
+/*
+ * Copyright (c) 2014 Villu Ruusmann
+ *
+ * This file is part of JPMML-Evaluator
+ *
+ * JPMML-Evaluator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Evaluator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Evaluator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.jpmml.manager.*;
+
+import org.dmg.pmml.*;
+import org.dmg.pmml.Interval;
+
+import com.google.common.collect.*;
+
+/**
+ * <p>
+ * Prepares the values of an input field.
+ * </p>
+ *
+ * The definitions of the {@link DataField data field} and the {@link MiningField mining field} are interpreted once:
+ * outlier bounds and valid values are parsed to the runtime data type, and valid, invalid and missing values are kept in hash tables.
+ * The results are identical to {@link ArgumentUtil#prepare(DataField, MiningField, Object)}.
+ *
+ * @see FrameLayout#getPreparer(int)
+ */
+public class ArgumentPreparer {
+
+	private DataField dataField = null;
+
+	private MiningField miningField = null;
+
+	private DataType dataType = null;
+
+	private OpType opType = null;
+
+	/**
+	 * The smallest and the largest value that is not an outlier, or <code>null</code> if the field has no bounds.
+	 */
+	private double[] bounds = null;
+
+	private List<Interval> intervals = null;
+
+	/**
+	 * Maps valid and invalid values to their validity. If a value is listed more than once, then the first listing wins.
+	 */
+	private Map<Object, Boolean> validity = null;
+
+	private boolean hasValidValues = false;
+
+	private Set<String> missingValues = null;
+
+	private List<?> ordering = null;
+
+
+	public ArgumentPreparer(DataField dataField, MiningField miningField){
+
+		if(dataField == null){
+			throw new InvalidFeatureException(dataField);
+		} // End if
+
+		if(miningField == null){
+			throw new InvalidFeatureException(miningField);
+		}
+
+		this.dataField = dataField;
+		this.miningField = miningField;
+
+		this.dataType = dataField.getDataType();
+		this.opType = dataField.getOptype();
+
+		this.intervals = ImmutableList.copyOf(dataField.getIntervals());
+
+		List<Double> range = Lists.newArrayList();
+
+		for(Interval interval : this.intervals){
+			Double leftMargin = interval.getLeftMargin();
+			Double rightMargin = interval.getRightMargin();
+
+			range.add(leftMargin != null ? leftMargin : Double.NEGATIVE_INFINITY);
+			range.add(rightMargin != null ? rightMargin : Double.POSITIVE_INFINITY);
+		}
+
+		Map<Object, Boolean> validity = Maps.newHashMap();
+
+		Set<String> missingValues = Sets.newHashSet();
+
+		List<Value> fieldValues = dataField.getValues();
+		for(Value fieldValue : fieldValues){
+			Value.Property property = fieldValue.getProperty();
+
+			switch(property){
+				case VALID:
+					{
+						if((OpType.CONTINUOUS).equals(this.opType)){
+							range.add((Double)TypeUtil.parseOrCast(DataType.DOUBLE, fieldValue.getValue()));
+						}
+
+						Object value = TypeUtil.parseOrCast(this.dataType, fieldValue.getValue());
+						if(!validity.containsKey(value)){
+							validity.put(value, Boolean.TRUE);
+						}
+
+						this.hasValidValues = true;
+					}
+					break;
+				case INVALID:
+					{
+						Object value = TypeUtil.parseOrCast(this.dataType, fieldValue.getValue());
+						if(!validity.containsKey(value)){
+							validity.put(value, Boolean.FALSE);
+						}
+					}
+					break;
+				case MISSING:
+					missingValues.add(fieldValue.getValue());
+					break;
+				default:
+					throw new UnsupportedFeatureException(fieldValue, property);
+			}
+		}
+
+		switch(this.opType){
+			case CONTINUOUS:
+				{
+					if(range.size() > 0){
+						this.bounds = new double[]{Collections.min(range), Collections.max(range)};
+					}
+				}
+				break;
+			case CATEGORICAL:
+			case ORDINAL:
+				break;
+			default:
+				throw new UnsupportedFeatureException(dataField, this.opType);
+		}
+
+		this.validity = validity;
+		this.missingValues = missingValues;
+
+		if((OpType.ORDINAL).equals(this.opType) && this.hasValidValues){
+			List<Object> ordering = Lists.newArrayList();
+
+			for(String validValue : ArgumentUtil.getValidValues(dataField)){
+				ordering.add(TypeUtil.parse(this.dataType, validValue));
+			}
+
+			this.ordering = Collections.unmodifiableList(ordering);
+		}
+	}
+
+	@SuppressWarnings (
+		value = {"unused"}
+	)
+	public FieldValue prepare(Object value){
+		MiningField miningField = getMiningField();
+
+		outlierTreatment:
+		if(isOutlier(value)){
+			OutlierTreatmentMethodType outlierTreatmentMethod = miningField.getOutlierTreatment();
+
+			switch(outlierTreatmentMethod){
+				case AS_IS:
+					break;
+				case AS_MISSING_VALUES:
+					value = null;
+					break;
+				case AS_EXTREME_VALUES:
+					{
+						Double lowValue = miningField.getLowValue();
+						Double highValue = miningField.getHighValue();
+
+						if(lowValue == null || highValue == null){
+							throw new InvalidFeatureException(miningField);
+						}
+
+						Double doubleValue = (Double)TypeUtil.parseOrCast(DataType.DOUBLE, value);
+
+						if(Double.compare(doubleValue, lowValue) < 0){
+							value = lowValue;
+						} else
+
+						if(Double.compare(doubleValue, highValue) > 0){
+							value = highValue;
+						}
+					}
+					break;
+				default:
+					throw new UnsupportedFeatureException(miningField, outlierTreatmentMethod);
+			}
+		}
+
+		missingValueTreatment:
+		if(isMissing(value)){
+			value = miningField.getMissingValueReplacement();
+			if(value != null){
+				break missingValueTreatment;
+			}
+
+			return null;
+		}
+
+		// Compare as runtime data type
+		value = TypeUtil.parseOrCast(this.dataType, value);
+
+		invalidValueTreatment:
+		if(!isValid(value)){
+			InvalidValueTreatmentMethodType invalidValueTreatmentMethod = miningField.getInvalidValueTreatment();
+
+			switch(invalidValueTreatmentMethod){
+				case RETURN_INVALID:
+					throw new InvalidResultException(miningField);
+				case AS_IS:
+					break invalidValueTreatment;
+				case AS_MISSING:
+					{
+						value = miningField.getMissingValueReplacement();
+						if(value != null){
+							break invalidValueTreatment;
+						}
+
+						return null;
+					}
+				default:
+					throw new UnsupportedFeatureException(miningField, invalidValueTreatmentMethod);
+			}
+		}
+
+		FieldValue result = FieldValueUtil.create(this.dataType, this.opType, value);
+
+		if(result instanceof OrdinalValue){
+			OrdinalValue ordinalValue = (OrdinalValue)result;
+
+			ordinalValue.setOrdering(this.ordering);
+		}
+
+		return result;
+	}
+
+	private boolean isOutlier(Object value){
+
+		if(value == null || this.bounds == null){
+			return false;
+		}
+
+		Double doubleValue = (Double)TypeUtil.parseOrCast(DataType.DOUBLE, value);
+
+		return (Double.compare(doubleValue, this.bounds[0]) < 0) || (Double.compare(doubleValue, this.bounds[1]) > 0);
+	}
+
+	private boolean isMissing(Object value){
+
+		if(value == null){
+			return true;
+		} // End if
+
+		if(this.missingValues.isEmpty()){
+			return false;
+		}
+
+		// Compare as String. Missing values are often represented as String constants that cannot be parsed to runtime data type (eg. N/A).
+		return this.missingValues.contains(TypeUtil.format(value));
+	}
+
+	/**
+	 * @param value The value in the runtime data type.
+	 */
+	private boolean isValid(Object value){
+
+		if((OpType.CONTINUOUS).equals(this.opType) && this.intervals.size() > 0){
+			Double doubleValue = (Double)TypeUtil.cast(DataType.DOUBLE, value);
+
+			for(Interval interval : this.intervals){
+
+				if(DiscretizationUtil.contains(interval, doubleValue)){
+					return true;
+				}
+			}
+
+			return false;
+		}
+
+		Boolean valid = this.validity.get(value);
+		if(valid != null){
+			return valid.booleanValue();
+		}
+
+		return !this.hasValidValues;
+	}
+
+	public DataField getDataField(){
+		return this.dataField;
+	}
+
+	public MiningField getMiningField(){
+		return this.miningField;
+	}
+}
\ No newline at end of file
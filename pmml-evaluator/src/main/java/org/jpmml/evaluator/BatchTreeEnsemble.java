@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2014 Villu Ruusmann
+ *
+ * This file is part of JPMML-Evaluator
+ *
+ * JPMML-Evaluator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Evaluator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Evaluator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+/**
+ * <p>
+ * Evaluates a {@link TreeEnsemble tree ensemble} over batches of records with a {@link VectorKernel vector kernel}.
+ * </p>
+ *
+ * The nodes of all trees are laid out in flat arrays.
+ * Every value is mapped to a {@link #toKey(double) key}, so that every split is a single comparison of integers.
+ * Leaf nodes point to themselves, so every record takes the same number of steps in a tree, and the traversal of a batch of records does not branch on values.
+ *
+ * @see MiningModelEvaluator.Engine#BATCH
+ */
+public class BatchTreeEnsemble extends TreeEnsemble {
+
+	/**
+	 * Per tree, the offset of its nodes in the flat arrays.
+	 */
+	private int[] nodeOffsets = null;
+
+	private int[] depths = null;
+
+	/**
+	 * Per node, the index of the field.
+	 */
+	private int[] fields = null;
+
+	/**
+	 * Per node, the least key that goes to the high child.
+	 */
+	private long[] bounds = null;
+
+	/**
+	 * Per node, the low child and the high child.
+	 */
+	private int[] children = null;
+
+
+	public BatchTreeEnsemble(List<FlatTree> flatTrees){
+		super(flatTrees);
+
+		int size = size();
+
+		this.nodeOffsets = new int[size];
+		this.depths = new int[size];
+
+		int nodes = 0;
+
+		for(int i = 0; i < size; i++){
+			this.nodeOffsets[i] = nodes;
+
+			nodes += (getFlatTree(i)).size();
+		}
+
+		this.fields = new int[nodes];
+		this.bounds = new long[nodes];
+		this.children = new int[2 * nodes];
+
+		for(int i = 0; i < size; i++){
+			FlatTree flatTree = getFlatTree(i);
+
+			int offset = this.nodeOffsets[i];
+
+			for(int j = 0; j < flatTree.size(); j++){
+				int node = offset + j;
+
+				int field = getSplitField(i, j);
+
+				if(field < 0){
+					this.fields[node] = 0;
+					this.bounds[node] = Long.MIN_VALUE;
+					this.children[2 * node] = node;
+					this.children[2 * node + 1] = node;
+
+					continue;
+				}
+
+				long key = toKey(getThreshold(i, j));
+
+				this.fields[node] = field;
+				this.bounds[node] = (isStrict(i, j) ? key : key + 1);
+				this.children[2 * node] = offset + getLowChild(i, j);
+				this.children[2 * node + 1] = offset + getHighChild(i, j);
+			}
+
+			this.depths[i] = getDepth(i, 0);
+		}
+	}
+
+	@Override
+	public int[] evaluate(EvaluationContext context){
+		int[][] result = evaluateAll(Collections.singletonList(context));
+
+		return result[0];
+	}
+
+	@Override
+	public int[][] evaluateAll(List<? extends EvaluationContext> contexts){
+		int[][] result = new int[contexts.size()][];
+
+		int fieldCount = getFieldCount();
+
+		long[] keys = new long[contexts.size() * fieldCount];
+
+		// Positions of the records that can be evaluated in a batch
+		int[] positions = new int[contexts.size()];
+
+		int rows = 0;
+
+		for(int i = 0; i < contexts.size(); i++){
+			double[] values = getValues(contexts.get(i));
+			if(values == null){
+				continue;
+			}
+
+			for(int j = 0; j < fieldCount; j++){
+				keys[rows * fieldCount + j] = toKey(values[j]);
+			}
+
+			positions[rows] = i;
+
+			rows++;
+		}
+
+		int size = size();
+
+		int[] leaves = new int[rows * size];
+
+		VectorKernel kernel = VectorKernelUtil.getInstance();
+
+		kernel.traverse(keys, fieldCount, rows, this.fields, this.bounds, this.children, this.nodeOffsets, this.depths, leaves);
+
+		for(int row = 0; row < rows; row++){
+			int[] recordLeaves = new int[size];
+
+			for(int i = 0; i < size; i++){
+				recordLeaves[i] = leaves[row * size + i] - this.nodeOffsets[i];
+			}
+
+			result[positions[row]] = recordLeaves;
+		}
+
+		return result;
+	}
+
+	private int getDepth(int tree, int index){
+
+		if(getSplitField(tree, index) < 0){
+			return 0;
+		}
+
+		return 1 + Math.max(getDepth(tree, getLowChild(tree, index)), getDepth(tree, getHighChild(tree, index)));
+	}
+
+	/**
+	 * Maps a value to a key, so that keys are in the same order as values by {@link Double#compare(double, double)}.
+	 * Negative zero is less than positive zero, and NaN is greater than positive infinity.
+	 */
+	static
+	public long toKey(double value){
+		long bits = Double.doubleToLongBits(value);
+
+		return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2014 Villu Ruusmann
+ *
+ * This file is part of JPMML-Evaluator
+ *
+ * JPMML-Evaluator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Evaluator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Evaluator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import com.google.common.collect.*;
+import com.google.common.primitives.*;
+
+/**
+ * <p>
+ * Evaluates a {@link TreeEnsemble tree ensemble} over binned field values.
+ * </p>
+ *
+ * The distinct thresholds of every field are collected across all trees, and are sorted.
+ * The value of a field is mapped to a bin once per record by binary search:
+ * a value that is equal to the threshold at position <code>k</code> gets the bin <code>2 * k + 1</code>,
+ * and a value that falls between thresholds gets the bin <code>2 * p</code>, where <code>p</code> is the position of the next greater threshold.
+ * Every split is then a comparison of the bin with a precomputed integer bound.
+ *
+ * @see MiningModelEvaluator.Engine#BINNED
+ */
+public class BinnedTreeEnsemble extends TreeEnsemble {
+
+	/**
+	 * Per field, the distinct thresholds in ascending order.
+	 */
+	private double[][] fieldThresholds = null;
+
+	/**
+	 * Per tree and node, the index of the field or <code>-1</code> for leaf nodes.
+	 */
+	private int[][] fields = null;
+
+	/**
+	 * Per tree and node, the greatest bin that goes to the low child.
+	 */
+	private int[][] bounds = null;
+
+	private int[][] lowChildren = null;
+
+	private int[][] highChildren = null;
+
+
+	public BinnedTreeEnsemble(List<FlatTree> flatTrees){
+		super(flatTrees);
+
+		int size = size();
+
+		List<List<Double>> thresholds = Lists.newArrayList();
+
+		for(int i = 0; i < getFieldCount(); i++){
+			thresholds.add(Lists.<Double>newArrayList());
+		}
+
+		for(int i = 0; i < size; i++){
+			FlatTree flatTree = getFlatTree(i);
+
+			for(int j = 0; j < flatTree.size(); j++){
+				int field = getSplitField(i, j);
+
+				if(field > -1){
+					(thresholds.get(field)).add(getThreshold(i, j));
+				}
+			}
+		}
+
+		this.fieldThresholds = new double[getFieldCount()][];
+
+		for(int i = 0; i < getFieldCount(); i++){
+			this.fieldThresholds[i] = toDistinctArray(thresholds.get(i));
+		}
+
+		this.fields = new int[size][];
+		this.bounds = new int[size][];
+		this.lowChildren = new int[size][];
+		this.highChildren = new int[size][];
+
+		for(int i = 0; i < size; i++){
+			FlatTree flatTree = getFlatTree(i);
+
+			int nodes = flatTree.size();
+
+			this.fields[i] = new int[nodes];
+			this.bounds[i] = new int[nodes];
+			this.lowChildren[i] = new int[nodes];
+			this.highChildren[i] = new int[nodes];
+
+			for(int j = 0; j < nodes; j++){
+				int field = getSplitField(i, j);
+
+				this.fields[i][j] = field;
+
+				if(field < 0){
+					continue;
+				}
+
+				int bin = getBin(field, getThreshold(i, j));
+
+				// A value that is equal to the threshold goes to the low child unless the comparison is strict
+				this.bounds[i][j] = (isStrict(i, j) ? bin - 1 : bin);
+				this.lowChildren[i][j] = getLowChild(i, j);
+				this.highChildren[i][j] = getHighChild(i, j);
+			}
+		}
+	}
+
+	@Override
+	public int[] evaluate(EvaluationContext context){
+		double[] values = getValues(context);
+		if(values == null){
+			return null;
+		}
+
+		int[] bins = new int[values.length];
+
+		for(int i = 0; i < values.length; i++){
+			bins[i] = getBin(i, values[i]);
+		}
+
+		int[] result = new int[size()];
+
+		for(int i = 0; i < result.length; i++){
+			int[] fields = this.fields[i];
+			int[] bounds = this.bounds[i];
+
+			int index = 0;
+
+			while(fields[index] > -1){
+
+				if(bins[fields[index]] <= bounds[index]){
+					index = this.lowChildren[i][index];
+				} else
+
+				{
+					index = this.highChildren[i][index];
+				}
+			}
+
+			result[i] = index;
+		}
+
+		return result;
+	}
+
+	/**
+	 * @return The bin of the value.
+	 */
+	public int getBin(int field, double value){
+		// Binary search orders values the same way as Double#compare(double, double)
+		int position = Arrays.binarySearch(this.fieldThresholds[field], value);
+
+		if(position > -1){
+			return (2 * position) + 1;
+		}
+
+		return 2 * (-position - 1);
+	}
+
+	static
+	private double[] toDistinctArray(List<Double> values){
+		double[] result = Doubles.toArray(values);
+
+		Arrays.sort(result);
+
+		int distinct = 0;
+
+		for(int i = 0; i < result.length; i++){
+
+			if(distinct == 0 || Double.compare(result[distinct - 1], result[i]) != 0){
+				result[distinct] = result[i];
+
+				distinct++;
+			}
+		}
+
+		return Arrays.copyOf(result, distinct);
+	}
+}
\ No newline at end of file
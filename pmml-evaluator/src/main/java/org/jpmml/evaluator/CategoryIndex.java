@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2014 Villu Ruusmann
+ *
+ * This file is part of JPMML-Evaluator
+ *
+ * JPMML-Evaluator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Evaluator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Evaluator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.dmg.pmml.*;
+
+import com.google.common.collect.*;
+import com.google.common.primitives.*;
+
+/**
+ * <p>
+ * A hash index over a list of {@link Predicate predicates} that test the same field for equality with one or more categories.
+ * </p>
+ *
+ * Every predicate must be either a {@link SimplePredicate} with the <code>equal</code> operator or a {@link SimpleSetPredicate} with the <code>isIn</code> operator.
+ * Categories are parsed once for every data type that can be looked up directly,
+ * so that finding the predicates that evaluate to <code>true</code> takes a single hash probe instead of a linear scan.
+ *
+ * @see #isIndexable(Predicate)
+ */
+public class CategoryIndex {
+
+	private FieldName field = null;
+
+	private int size = 0;
+
+	private Map<DataType, Map<Object, int[]>> positions = null;
+
+
+	public CategoryIndex(List<? extends Predicate> predicates){
+		this(getField(predicates.get(0)), getCategories(predicates));
+	}
+
+	/**
+	 * @param categories The categories of every position.
+	 */
+	public CategoryIndex(FieldName field, List<? extends List<String>> categories){
+		Map<DataType, Map<Object, int[]>> positions = Maps.newEnumMap(DataType.class);
+
+		types:
+		for(DataType dataType : INDEXABLE_TYPES){
+			Map<Object, List<Integer>> categoryPositions = Maps.newHashMap();
+
+			for(int i = 0; i < categories.size(); i++){
+
+				for(String category : categories.get(i)){
+					Object value;
+
+					try {
+						value = TypeUtil.parse(dataType, category);
+					} catch(NumberFormatException nfe){
+						// Left to the generic code path, which fails the same way as before
+						continue types;
+					}
+
+					List<Integer> categoryPosition = categoryPositions.get(value);
+					if(categoryPosition == null){
+						categoryPosition = Lists.newArrayList();
+
+						categoryPositions.put(value, categoryPosition);
+					}
+
+					// A predicate may list the same category more than once
+					if(categoryPosition.isEmpty() || categoryPosition.get(categoryPosition.size() - 1) != i){
+						categoryPosition.add(i);
+					}
+				}
+			}
+
+			ImmutableMap.Builder<Object, int[]> builder = ImmutableMap.builder();
+
+			Collection<Map.Entry<Object, List<Integer>>> entries = categoryPositions.entrySet();
+			for(Map.Entry<Object, List<Integer>> entry : entries){
+				builder.put(entry.getKey(), Ints.toArray(entry.getValue()));
+			}
+
+			positions.put(dataType, builder.build());
+		}
+
+		this.field = field;
+		this.size = categories.size();
+		this.positions = positions;
+	}
+
+	public FieldName getField(){
+		return this.field;
+	}
+
+	/**
+	 * @return The number of predicates.
+	 */
+	public int size(){
+		return this.size;
+	}
+
+	/**
+	 * @param value The value of the field, or <code>null</code> if the field is missing.
+	 *
+	 * @return The positions of predicates that evaluate to <code>true</code> in ascending order,
+	 * or <code>null</code> if the value cannot be looked up and the predicates must be evaluated one by one.
+	 * The array is shared, and must not be modified.
+	 */
+	public int[] lookup(FieldValue value){
+
+		if(value == null){
+			return null;
+		}
+
+		DataType dataType = value.getDataType();
+
+		Map<Object, int[]> positions = this.positions.get(dataType);
+		if(positions == null){
+			return null;
+		}
+
+		Object object = value.getValue();
+
+		// Values of other classes are cast before comparison, which is left to the generic code path
+		if(!isInstance(dataType, object)){
+			return null;
+		}
+
+		int[] result = positions.get(object);
+		if(result == null){
+			return CategoryIndex.EMPTY;
+		}
+
+		return result;
+	}
+
+	static
+	public boolean isIndexable(Predicate predicate){
+
+		if(predicate instanceof SimplePredicate){
+			SimplePredicate simplePredicate = (SimplePredicate)predicate;
+
+			return (simplePredicate.getOperator() == SimplePredicate.Operator.EQUAL) && (simplePredicate.getValue() != null);
+		} else
+
+		if(predicate instanceof SimpleSetPredicate){
+			SimpleSetPredicate simpleSetPredicate = (SimpleSetPredicate)predicate;
+
+			return (simpleSetPredicate.getBooleanOperator() == SimpleSetPredicate.BooleanOperator.IS_IN) && (simpleSetPredicate.getArray() != null);
+		}
+
+		return false;
+	}
+
+	/**
+	 * @return The field of an {@link #isIndexable(Predicate) indexable} predicate.
+	 */
+	static
+	public FieldName getField(Predicate predicate){
+
+		if(predicate instanceof SimplePredicate){
+			return ((SimplePredicate)predicate).getField();
+		} else
+
+		if(predicate instanceof SimpleSetPredicate){
+			return ((SimpleSetPredicate)predicate).getField();
+		}
+
+		throw new IllegalArgumentException();
+	}
+
+	static
+	private List<List<String>> getCategories(List<? extends Predicate> predicates){
+		FieldName field = getField(predicates.get(0));
+
+		List<List<String>> result = Lists.newArrayList();
+
+		for(Predicate predicate : predicates){
+
+			if(!isIndexable(predicate) || !(field).equals(getField(predicate))){
+				throw new IllegalArgumentException();
+			}
+
+			result.add(getCategories(predicate));
+		}
+
+		return result;
+	}
+
+	static
+	private List<String> getCategories(Predicate predicate){
+
+		if(predicate instanceof SimplePredicate){
+			return Collections.singletonList(((SimplePredicate)predicate).getValue());
+		} else
+
+		if(predicate instanceof SimpleSetPredicate){
+			return ArrayUtil.getContent(((SimpleSetPredicate)predicate).getArray());
+		}
+
+		throw new IllegalArgumentException();
+	}
+
+	static
+	private boolean isInstance(DataType dataType, Object object){
+
+		switch(dataType){
+			case STRING:
+				return (object instanceof String);
+			case INTEGER:
+				return (object instanceof Integer);
+			case FLOAT:
+				return (object instanceof Float);
+			case DOUBLE:
+				return (object instanceof Double);
+			default:
+				return false;
+		}
+	}
+
+	private static final int[] EMPTY = new int[0];
+
+	private static final DataType[] INDEXABLE_TYPES = {DataType.STRING, DataType.INTEGER, DataType.FLOAT, DataType.DOUBLE};
+}
\ No newline at end of file
@@ -26,6 +26,7 @@ import org.dmg.pmml.*;
 
 import com.google.common.cache.*;
 import com.google.common.collect.*;
+import com.google.common.primitives.*;
 
 public class ClusteringModelEvaluator extends ModelEvaluator<ClusteringModel> implements HasEntityRegistry<Cluster> {
 
@@ -174,6 +175,10 @@ public class ClusteringModelEvaluator extends ModelEvaluator<ClusteringModel> im
 
 		BiMap<Cluster, String> inverseEntities = (getEntityRegistry()).inverse();
 
+		double[] weights = MeasureUtil.getDenseWeights(comparisonMeasure, clusteringFields);
+
+		double[] vector = (weights != null ? MeasureUtil.toDenseVector(values) : null);
+
 		List<Cluster> clusters = clusteringModel.getClusters();
 		for(Cluster cluster : clusters){
 			List<FieldValue> clusterValues = CacheUtil.getValue(cluster, ClusteringModelEvaluator.clusterValueCache);
@@ -184,7 +189,17 @@ public class ClusteringModelEvaluator extends ModelEvaluator<ClusteringModel> im
 
 			String id = inverseEntities.get(cluster);
 
-			Double distance = MeasureUtil.evaluateDistance(comparisonMeasure, clusteringFields, values, clusterValues, adjustment);
+			Double distance;
+
+			if(vector != null){
+				double[] clusterVector = CacheUtil.getValue(cluster, ClusteringModelEvaluator.clusterVectorCache);
+
+				distance = MeasureUtil.evaluateDistance(comparisonMeasure, weights, vector, clusterVector, adjustment);
+			} else
+
+			{
+				distance = MeasureUtil.evaluateDistance(comparisonMeasure, clusteringFields, values, clusterValues, adjustment);
+			}
 
 			result.put(cluster, id, distance);
 		}
@@ -234,6 +249,20 @@ public class ClusteringModelEvaluator extends ModelEvaluator<ClusteringModel> im
 			}
 		});
 
+	private static final LoadingCache<Cluster, double[]> clusterVectorCache = CacheBuilder.newBuilder()
+		.weakKeys()
+		.build(new CacheLoader<Cluster, double[]>(){
+
+			@Override
+			public double[] load(Cluster cluster){
+				Array array = cluster.getArray();
+
+				List<? extends Number> values = ArrayUtil.getNumberContent(array);
+
+				return Doubles.toArray(values);
+			}
+		});
+
 	private static final LoadingCache<Cluster, BitSet> clusterFlagCache = CacheBuilder.newBuilder()
 		.weakKeys()
 		.build(new CacheLoader<Cluster, BitSet>(){
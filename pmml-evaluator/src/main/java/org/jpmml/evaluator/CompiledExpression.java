@@ -0,0 +1,351 @@
+/*
+ * Copyright (c) 2014 Villu Ruusmann
+ *
+ * This file is part of JPMML-Evaluator
+ *
+ * JPMML-Evaluator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Evaluator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Evaluator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.dmg.pmml.*;
+
+/**
+ * <p>
+ * An {@link Expression expression} that has been compiled to a tree of evaluator nodes.
+ * </p>
+ *
+ * Compilation resolves everything that does not depend on the record once.
+ * Constants are parsed, the arguments of {@link Apply} elements are compiled recursively,
+ * and built-in functions are bound to their {@link Function} implementations from the {@link FunctionRegistry function registry}.
+ * User-defined functions are resolved per evaluation, because they are defined by the {@link EvaluationContext evaluation context},
+ * but their bodies are compiled as well.
+ * All other expression types are evaluated as before.
+ *
+ * Field references that have been compiled against a {@link FrameLayout frame layout} look up the field by slot in contexts that use the same layout.
+ *
+ * Compiled expressions are immutable and thread-safe. Results are identical to {@link ExpressionUtil#evaluate(Expression, EvaluationContext)}.
+ *
+ * @see ExpressionUtil#compile(DerivedField)
+ * @see ExpressionOptimizer
+ */
+abstract
+public class CompiledExpression {
+
+	private Expression expression = null;
+
+	/**
+	 * <code>true</code> if this node is referenced by more than one parent, and its value should be computed once per evaluation context.
+	 */
+	private boolean shared = false;
+
+
+	public CompiledExpression(Expression expression){
+		setExpression(expression);
+	}
+
+	abstract
+	protected FieldValue evaluateExpression(EvaluationContext context);
+
+	public FieldValue evaluate(EvaluationContext context){
+
+		if(!this.shared){
+			return evaluateExpression(context);
+		}
+
+		Map<CompiledExpression, FieldValue> expressionValues = context.getExpressionValues();
+
+		FieldValue value = expressionValues.get(this);
+		if(value == null && !expressionValues.containsKey(this)){
+			value = evaluateExpression(context);
+
+			expressionValues.put(this, value);
+		}
+
+		return value;
+	}
+
+	/**
+	 * @return <code>true</code> if the value of this node does not depend on the evaluation context.
+	 */
+	public boolean isConstant(){
+		return false;
+	}
+
+	public Expression getExpression(){
+		return this.expression;
+	}
+
+	private void setExpression(Expression expression){
+		this.expression = expression;
+	}
+
+	List<CompiledExpression> getArguments(){
+		return Collections.emptyList();
+	}
+
+	boolean isShared(){
+		return this.shared;
+	}
+
+	void setShared(boolean shared){
+		this.shared = shared;
+	}
+
+	static
+	public CompiledExpression compile(Expression expression){
+		return compile(expression, null, null);
+	}
+
+	/**
+	 * @param frameLayout The slot layout that field references are bound to, or <code>null</code>.
+	 * @param optimizer The optimizer that folds and deduplicates nodes bottom-up, or <code>null</code>.
+	 */
+	static
+	CompiledExpression compile(Expression expression, FrameLayout frameLayout, ExpressionOptimizer optimizer){
+		CompiledExpression result;
+
+		if(expression instanceof Constant){
+			result = compileConstant((Constant)expression);
+		} else
+
+		if(expression instanceof FieldRef){
+			result = new FieldRefExpression((FieldRef)expression, frameLayout);
+		} else
+
+		if(expression instanceof Apply){
+			result = compileApply((Apply)expression, frameLayout, optimizer);
+		} else
+
+		{
+			result = new InterpretedExpression(expression);
+		} // End if
+
+		if(optimizer != null){
+			result = optimizer.optimize(result);
+		}
+
+		return result;
+	}
+
+	static
+	private CompiledExpression compileConstant(Constant constant){
+		FieldValue value;
+
+		try {
+			value = ExpressionUtil.evaluateConstant(constant, null);
+		} catch(RuntimeException re){
+			// Invalid constants must fail when they are evaluated, not when they are compiled
+			return new InterpretedExpression(constant);
+		}
+
+		return new ConstantExpression(constant, value);
+	}
+
+	static
+	private CompiledExpression compileApply(Apply apply, FrameLayout frameLayout, ExpressionOptimizer optimizer){
+		List<Expression> expressions = apply.getExpressions();
+
+		CompiledExpression[] arguments = new CompiledExpression[expressions.size()];
+
+		for(int i = 0; i < arguments.length; i++){
+			arguments[i] = compile(expressions.get(i), frameLayout, optimizer);
+		}
+
+		Function function = FunctionRegistry.getFunction(apply.getFunction());
+
+		return new ApplyExpression(apply, function, arguments);
+	}
+
+	/**
+	 * @return A constant node with the value of the built-in function, or <code>null</code> if the node cannot be folded.
+	 */
+	static
+	CompiledExpression fold(CompiledExpression expression){
+
+		if(!(expression instanceof ApplyExpression)){
+			return null;
+		}
+
+		ApplyExpression applyExpression = (ApplyExpression)expression;
+
+		// User-defined functions are resolved by the evaluation context
+		if(applyExpression.getFunction() == null){
+			return null;
+		}
+
+		List<CompiledExpression> arguments = applyExpression.getArguments();
+		for(CompiledExpression argument : arguments){
+
+			if(!argument.isConstant()){
+				return null;
+			}
+		}
+
+		FieldValue value;
+
+		try {
+			value = applyExpression.evaluate(null);
+		} catch(RuntimeException re){
+			// Failing functions must fail when they are evaluated
+			return null;
+		}
+
+		return new ConstantExpression(applyExpression.getExpression(), value);
+	}
+
+	static
+	private class ConstantExpression extends CompiledExpression {
+
+		private FieldValue value = null;
+
+
+		public ConstantExpression(Expression expression, FieldValue value){
+			super(expression);
+
+			this.value = value;
+		}
+
+		@Override
+		protected FieldValue evaluateExpression(EvaluationContext context){
+			return this.value;
+		}
+
+		@Override
+		public boolean isConstant(){
+			return true;
+		}
+	}
+
+	static
+	private class FieldRefExpression extends CompiledExpression {
+
+		private FieldName field = null;
+
+		/**
+		 * The layout that the slot belongs to, or <code>null</code> if the field is looked up by name.
+		 */
+		private FrameLayout frameLayout = null;
+
+		private int slot = -1;
+
+
+		public FieldRefExpression(FieldRef fieldRef, FrameLayout frameLayout){
+			super(fieldRef);
+
+			this.field = fieldRef.getField();
+
+			int slot = (frameLayout != null ? frameLayout.getSlot(this.field) : -1);
+			if(slot > -1){
+				this.frameLayout = frameLayout;
+				this.slot = slot;
+			}
+		}
+
+		@Override
+		protected FieldValue evaluateExpression(EvaluationContext context){
+			FieldValue value = null;
+
+			Map.Entry<FieldName, FieldValue> entry = null;
+
+			if(this.frameLayout != null && context instanceof ModelEvaluationContext){
+				ModelEvaluationContext modelContext = (ModelEvaluationContext)context;
+
+				if(modelContext.getFrameLayout() == this.frameLayout){
+					entry = modelContext.getFieldEntry(this.slot);
+				}
+			} // End if
+
+			// Derived fields that have not been computed yet are resolved by name
+			if(entry != null){
+				value = entry.getValue();
+			} else
+
+			{
+				value = ExpressionUtil.evaluate(this.field, context);
+			} // End if
+
+			if(value == null){
+				FieldRef fieldRef = (FieldRef)getExpression();
+
+				return FieldValueUtil.create(fieldRef.getMapMissingTo());
+			}
+
+			return value;
+		}
+	}
+
+	static
+	private class ApplyExpression extends CompiledExpression {
+
+		/**
+		 * The built-in function, or <code>null</code> if the function is user-defined.
+		 */
+		private Function function = null;
+
+		private CompiledExpression[] arguments = null;
+
+
+		public ApplyExpression(Apply apply, Function function, CompiledExpression[] arguments){
+			super(apply);
+
+			this.function = function;
+			this.arguments = arguments;
+		}
+
+		@Override
+		protected FieldValue evaluateExpression(EvaluationContext context){
+			Apply apply = (Apply)getExpression();
+
+			String mapMissingTo = apply.getMapMissingTo();
+
+			FieldValue[] values = new FieldValue[this.arguments.length];
+
+			for(int i = 0; i < values.length; i++){
+				FieldValue value = this.arguments[i].evaluate(context);
+
+				if(value == null && mapMissingTo != null){
+					return FieldValueUtil.create(mapMissingTo);
+				}
+
+				values[i] = value;
+			}
+
+			return ExpressionUtil.evaluateApply(apply, this.function, Arrays.asList(values), context);
+		}
+
+		public Function getFunction(){
+			return this.function;
+		}
+
+		@Override
+		List<CompiledExpression> getArguments(){
+			return Arrays.asList(this.arguments);
+		}
+	}
+
+	static
+	private class InterpretedExpression extends CompiledExpression {
+
+		public InterpretedExpression(Expression expression){
+			super(expression);
+		}
+
+		@Override
+		protected FieldValue evaluateExpression(EvaluationContext context){
+			return ExpressionUtil.evaluate(getExpression(), context);
+		}
+	}
+}
\ No newline at end of file
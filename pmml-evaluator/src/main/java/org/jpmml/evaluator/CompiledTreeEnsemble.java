@@ -0,0 +1,356 @@
+/*
+ * Copyright (c) 2014 Villu Ruusmann
+ *
+ * This file is part of JPMML-Evaluator
+ *
+ * JPMML-Evaluator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Evaluator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Evaluator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.objectweb.asm.*;
+
+import com.google.common.collect.*;
+
+/**
+ * <p>
+ * Evaluates a {@link TreeEnsemble tree ensemble} with a class that is generated at load time.
+ * </p>
+ *
+ * Every tree becomes a static method, where thresholds are inlined as constants and splits as conditional jumps.
+ * Large subtrees are moved to methods of their own, so that no method exceeds the size limits of the class file format.
+ * Trees are split between classes, so that no class exceeds the size limit of the constant pool.
+ * The JIT compiler can then optimize the traversal of all trees like hand-written code.
+ *
+ * The bytecode is written directly, so that no Java compiler is needed at runtime.
+ *
+ * @see MiningModelEvaluator.Engine#COMPILED
+ * @see CompiledTreeModelEvaluator
+ */
+public class CompiledTreeEnsemble extends TreeEnsemble {
+
+	private Kernel kernel = null;
+
+
+	/**
+	 * @throws EvaluationException If the generated classes cannot be loaded.
+	 */
+	public CompiledTreeEnsemble(List<FlatTree> flatTrees){
+		super(flatTrees);
+
+		try {
+			this.kernel = load(generateClasses(CompiledTreeEnsemble.CLASS_NAME));
+		} catch(Exception e){
+			throw createException(e);
+		} catch(LinkageError le){
+			throw createException(le);
+		}
+	}
+
+	@Override
+	public int[] evaluate(EvaluationContext context){
+		double[] values = getValues(context);
+
+		if(values == null){
+			return null;
+		}
+
+		int[] result = new int[size()];
+
+		this.kernel.evaluate(values, result);
+
+		return result;
+	}
+
+	/**
+	 * Generates a kernel class, and one or more chunk classes that hold the methods of trees.
+	 * A chunk holds up to {@link #CHUNK_SIZE} trees, and up to {@link #CLASS_SIZE} nodes unless a single tree is bigger than that.
+	 *
+	 * @return The class files by class name, starting with the kernel class.
+	 */
+	Map<String, byte[]> generateClasses(String className){
+		Map<String, byte[]> result = Maps.newLinkedHashMap();
+
+		int size = size();
+
+		List<Integer> chunkOffsets = Lists.newArrayList();
+
+		int nodes = 0;
+
+		for(int i = 0; i < size; i++){
+			int treeNodes = (getFlatTree(i)).size();
+
+			if(chunkOffsets.isEmpty() || (i - chunkOffsets.get(chunkOffsets.size() - 1)) >= CompiledTreeEnsemble.CHUNK_SIZE || (nodes + treeNodes) > CompiledTreeEnsemble.CLASS_SIZE){
+				chunkOffsets.add(i);
+
+				nodes = 0;
+			}
+
+			nodes += treeNodes;
+		}
+
+		chunkOffsets.add(size);
+
+		ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+		cw.visit(Opcodes.V1_6, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, className, null, "java/lang/Object", new String[]{Type.getInternalName(Kernel.class)});
+
+		MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(Opcodes.ALOAD, 0);
+		mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "evaluate", "([D[I)V", null, null);
+		mv.visitCode();
+
+		for(int i = 0; i < chunkOffsets.size() - 1; i++){
+			mv.visitVarInsn(Opcodes.ALOAD, 1);
+			mv.visitVarInsn(Opcodes.ALOAD, 2);
+			mv.visitMethodInsn(Opcodes.INVOKESTATIC, chunkName(className, i), "evaluate", "([D[I)V", false);
+		}
+
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		cw.visitEnd();
+
+		result.put(className, cw.toByteArray());
+
+		for(int i = 0; i < chunkOffsets.size() - 1; i++){
+			String chunkName = chunkName(className, i);
+
+			result.put(chunkName, generateChunk(chunkName, chunkOffsets.get(i), chunkOffsets.get(i + 1)));
+		}
+
+		return result;
+	}
+
+	private byte[] generateChunk(String className, int begin, int end){
+		ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+		cw.visit(Opcodes.V1_6, Opcodes.ACC_SUPER, className, null, "java/lang/Object", null);
+
+		MethodVisitor mv = cw.visitMethod(Opcodes.ACC_STATIC, "evaluate", "([D[I)V", null, null);
+		mv.visitCode();
+
+		for(int i = begin; i < end; i++){
+			mv.visitVarInsn(Opcodes.ALOAD, 1);
+			push(mv, i);
+			mv.visitVarInsn(Opcodes.ALOAD, 0);
+			mv.visitMethodInsn(Opcodes.INVOKESTATIC, className, methodName(i, 0), "([D)I", false);
+			mv.visitInsn(Opcodes.IASTORE);
+		}
+
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		for(int i = begin; i < end; i++){
+			Deque<Integer> methods = new ArrayDeque<Integer>();
+			methods.add(0);
+
+			int[] subtreeSizes = computeSubtreeSizes(i);
+
+			while(!methods.isEmpty()){
+				int index = methods.remove();
+
+				mv = cw.visitMethod(Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC, methodName(i, index), "([D)I", null, null);
+				mv.visitCode();
+
+				generateNode(className, i, index, true, subtreeSizes, methods, mv);
+
+				mv.visitMaxs(0, 0);
+				mv.visitEnd();
+			}
+		}
+
+		cw.visitEnd();
+
+		return cw.toByteArray();
+	}
+
+	private void generateNode(String className, int tree, int index, boolean root, int[] subtreeSizes, Deque<Integer> methods, MethodVisitor mv){
+		int field = getSplitField(tree, index);
+
+		if(field < 0){
+			push(mv, index);
+			mv.visitInsn(Opcodes.IRETURN);
+
+			return;
+		} // End if
+
+		if(!root && subtreeSizes[index] > CompiledTreeEnsemble.METHOD_SIZE){
+			methods.add(index);
+
+			mv.visitVarInsn(Opcodes.ALOAD, 0);
+			mv.visitMethodInsn(Opcodes.INVOKESTATIC, className, methodName(tree, index), "([D)I", false);
+			mv.visitInsn(Opcodes.IRETURN);
+
+			return;
+		}
+
+		double threshold = getThreshold(tree, index);
+
+		mv.visitVarInsn(Opcodes.ALOAD, 0);
+		push(mv, field);
+		mv.visitInsn(Opcodes.DALOAD);
+		mv.visitLdcInsn(Double.valueOf(threshold));
+
+		// Primitive comparison instructions disagree with Double#compare(double, double) about signed zeros and NaN thresholds
+		if(threshold == 0d || Double.isNaN(threshold)){
+			mv.visitMethodInsn(Opcodes.INVOKESTATIC, "java/lang/Double", "compare", "(DD)I", false);
+		} else
+
+		{
+			// A NaN value is greater than any threshold, as it is for Double#compare(double, double)
+			mv.visitInsn(Opcodes.DCMPG);
+		}
+
+		Label high = new Label();
+
+		mv.visitJumpInsn(isStrict(tree, index) ? Opcodes.IFGE : Opcodes.IFGT, high);
+
+		generateNode(className, tree, getLowChild(tree, index), false, subtreeSizes, methods, mv);
+
+		mv.visitLabel(high);
+
+		generateNode(className, tree, getHighChild(tree, index), false, subtreeSizes, methods, mv);
+	}
+
+	private int[] computeSubtreeSizes(int tree){
+		FlatTree flatTree = getFlatTree(tree);
+
+		int[] result = new int[flatTree.size()];
+
+		// Children are laid out after their parents, so a reverse scan visits them first
+		for(int i = result.length - 1; i > -1; i--){
+			result[i] = 1;
+
+			if(getSplitField(tree, i) > -1){
+				result[i] += (result[getLowChild(tree, i)] + result[getHighChild(tree, i)]);
+			}
+		}
+
+		return result;
+	}
+
+	static
+	private String chunkName(String className, int chunk){
+		return className + "_" + chunk;
+	}
+
+	static
+	private String methodName(int tree, int index){
+		return "tree" + tree + "_" + index;
+	}
+
+	static
+	private void push(MethodVisitor mv, int value){
+
+		if(value >= -1 && value <= 5){
+			mv.visitInsn(Opcodes.ICONST_0 + value);
+		} else
+
+		if(value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE){
+			mv.visitIntInsn(Opcodes.BIPUSH, value);
+		} else
+
+		if(value >= Short.MIN_VALUE && value <= Short.MAX_VALUE){
+			mv.visitIntInsn(Opcodes.SIPUSH, value);
+		} else
+
+		{
+			mv.visitLdcInsn(Integer.valueOf(value));
+		}
+	}
+
+	static
+	private Kernel load(Map<String, byte[]> classFiles) throws Exception {
+		ClassLoader classLoader = new ClassFileLoader(Kernel.class.getClassLoader(), classFiles);
+
+		Class<?> clazz = classLoader.loadClass(CompiledTreeEnsemble.CLASS_NAME);
+
+		return (Kernel)clazz.newInstance();
+	}
+
+	static
+	private EvaluationException createException(Throwable cause){
+		EvaluationException exception = new EvaluationException("Failed to load the generated classes");
+		exception.initCause(cause);
+
+		return exception;
+	}
+
+	/**
+	 * <p>
+	 * The evaluation logic of generated classes.
+	 * </p>
+	 *
+	 * This interface is public, because generated classes are defined by a class loader of their own.
+	 */
+	static
+	public interface Kernel {
+
+		/**
+		 * @param values The values of fields, as indexed by {@link TreeEnsemble#getField(int)}.
+		 * @param leaves The array that receives the index of the leaf node of every tree.
+		 */
+		void evaluate(double[] values, int[] leaves);
+	}
+
+	static
+	private class ClassFileLoader extends ClassLoader {
+
+		private Map<String, byte[]> classFiles = null;
+
+
+		public ClassFileLoader(ClassLoader parent, Map<String, byte[]> classFiles){
+			super(parent);
+
+			this.classFiles = classFiles;
+		}
+
+		@Override
+		protected Class<?> findClass(String name) throws ClassNotFoundException {
+			byte[] bytes = this.classFiles.get(name);
+
+			if(bytes == null){
+				throw new ClassNotFoundException(name);
+			}
+
+			return defineClass(name, bytes, 0, bytes.length);
+		}
+	}
+
+	private static final String CLASS_NAME = "GeneratedTreeEnsemble";
+
+	/**
+	 * The maximum number of nodes in a subtree that is inlined into the method of its parent.
+	 */
+	private static final int METHOD_SIZE = 128;
+
+	/**
+	 * The maximum number of trees per chunk class.
+	 */
+	private static final int CHUNK_SIZE = 1024;
+
+	/**
+	 * The maximum number of nodes per chunk class.
+	 * Every branch node may add a double constant, which takes two entries in the constant pool of at most 65535 entries.
+	 */
+	private static final int CLASS_SIZE = 16384;
+}
\ No newline at end of file
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2014 Villu Ruusmann
+ *
+ * This file is part of JPMML-Evaluator
+ *
+ * JPMML-Evaluator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Evaluator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Evaluator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.jpmml.manager.*;
+
+import org.dmg.pmml.*;
+
+import com.google.common.cache.*;
+
+/**
+ * <p>
+ * Evaluates a tree model with a {@link CompiledTreeEnsemble generated class}, which selects the node by field values alone.
+ * </p>
+ *
+ * The tree must be a binary tree that splits continuous fields by thresholds.
+ * Records where the value of some field is missing, or is not a continuous double value, are evaluated node by node.
+ *
+ * @see TreeEnsemble#isSupported(FlatTree)
+ */
+public class CompiledTreeModelEvaluator extends TreeModelEvaluator {
+
+	private CompiledTreeEnsemble treeEnsemble = null;
+
+
+	public CompiledTreeModelEvaluator(PMML pmml){
+		this(pmml, find(pmml.getModels(), TreeModel.class));
+	}
+
+	/**
+	 * @throws UnsupportedFeatureException If the tree is not a binary tree that splits continuous fields by thresholds.
+	 * @throws EvaluationException If the generated classes cannot be loaded.
+	 */
+	public CompiledTreeModelEvaluator(PMML pmml, TreeModel treeModel){
+		super(pmml, treeModel);
+
+		this.treeEnsemble = getValue(CompiledTreeModelEvaluator.treeEnsembleCache);
+	}
+
+	@Override
+	public Map<FieldName, ?> evaluate(ModelEvaluationContext context){
+		TreeModel treeModel = getModel();
+		if(!treeModel.isScorable()){
+			throw new InvalidResultException(treeModel);
+		}
+
+		MiningFunctionType miningFunction = treeModel.getFunctionName();
+		switch(miningFunction){
+			case REGRESSION:
+			case CLASSIFICATION:
+				break;
+			default:
+				throw new UnsupportedFeatureException(treeModel, miningFunction);
+		}
+
+		int[] leaves = this.treeEnsemble.evaluate(context);
+		if(leaves == null){
+			return super.evaluate(context);
+		}
+
+		return evaluateNode(leaves[0], context);
+	}
+
+	private static final LoadingCache<TreeModel, CompiledTreeEnsemble> treeEnsembleCache = CacheBuilder.newBuilder()
+		.weakKeys()
+		.build(new CacheLoader<TreeModel, CompiledTreeEnsemble>(){
+
+			@Override
+			public CompiledTreeEnsemble load(TreeModel treeModel){
+				FlatTree flatTree = getFlatTree(treeModel);
+
+				if(!TreeEnsemble.isSupported(flatTree)){
+					throw new UnsupportedFeatureException(treeModel);
+				}
+
+				return new CompiledTreeEnsemble(Collections.singletonList(flatTree));
+			}
+		});
+}
\ No newline at end of file
@@ -31,6 +31,8 @@ public class EvaluationContext {
 
 	private List<String> warnings = Lists.newArrayList();
 
+	private Map<CompiledExpression, FieldValue> expressionValues = null;
+
 
 	abstract
 	public DerivedField resolveDerivedField(FieldName name);
@@ -75,15 +77,40 @@ public class EvaluationContext {
 	 * @return <code>true</code> If the field was already declared, <code>false</code> otherwise.
 	 */
 	public boolean declare(FieldName name, FieldValue value){
+		return declare(name, value, false);
+	}
+
+	/**
+	 * @param keepExpressionValues <code>true</code> if the values of {@link ExpressionOptimizer shared subexpressions} remain valid after the declaration, <code>false</code> otherwise.
+	 *
+	 * @return <code>true</code> If the field was already declared, <code>false</code> otherwise.
+	 */
+	boolean declare(FieldName name, FieldValue value, boolean keepExpressionValues){
 		Map<FieldName, FieldValue> fields = getFields();
 
 		boolean duplicate = fields.containsKey(name);
 
 		fields.put(name, value);
 
+		if(!keepExpressionValues){
+			clearExpressionValues();
+		}
+
 		return duplicate;
 	}
 
+	/**
+	 * <p>
+	 * Declares the value of a derived field.
+	 * </p>
+	 *
+	 * Unlike other declarations, the value is computed from the fields that have been declared already,
+	 * so the values of shared subexpressions remain valid.
+	 */
+	void declareDerived(FieldName name, FieldValue value){
+		declare(name, value, true);
+	}
+
 	public boolean declareAll(Map<FieldName, ?> fields){
 		boolean result = false;
 
@@ -95,6 +122,31 @@ public class EvaluationContext {
 		return result;
 	}
 
+	/**
+	 * <p>
+	 * Clears all field values and warnings, so that this context can be used for evaluating another record.
+	 * </p>
+	 *
+	 * The allocated capacity is retained between uses.
+	 * Evaluation results do not hold references to the state of a context, and remain valid after the reset.
+	 */
+	public void reset(){
+		Map<FieldName, FieldValue> fields = getFields();
+		fields.clear();
+
+		List<String> warnings = getWarnings();
+		warnings.clear();
+
+		clearExpressionValues();
+	}
+
+	/**
+	 * @return The names and values of all fields that have been declared in this context, not including the parent context.
+	 */
+	Map<FieldName, FieldValue> getDeclaredFields(){
+		return Maps.newLinkedHashMap(getFields());
+	}
+
 	public FieldValue createFieldValue(FieldName name, Object value){
 		return FieldValueUtil.create(value);
 	}
@@ -112,4 +164,39 @@ public class EvaluationContext {
 	public List<String> getWarnings(){
 		return this.warnings;
 	}
+
+	/**
+	 * @return The values of shared subexpressions.
+	 */
+	Map<CompiledExpression, FieldValue> getExpressionValues(){
+
+		if(this.expressionValues == null){
+			this.expressionValues = Maps.newIdentityHashMap();
+		}
+
+		return this.expressionValues;
+	}
+
+	/**
+	 * @param owner The element whose child the expression is.
+	 *
+	 * @return The compiled form of the expression.
+	 */
+	CompiledExpression compile(PMMLObject owner, Expression expression){
+		return ExpressionUtil.compile(owner, expression);
+	}
+
+	/**
+	 * @return The values of predicates that have been evaluated for the current record, or <code>null</code>.
+	 */
+	PredicateMemo getPredicateMemo(){
+		return null;
+	}
+
+	void clearExpressionValues(){
+
+		if(this.expressionValues != null){
+			this.expressionValues.clear();
+		}
+	}
 }
\ No newline at end of file
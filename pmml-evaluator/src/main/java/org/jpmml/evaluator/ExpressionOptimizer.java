@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2014 Villu Ruusmann
+ *
+ * This file is part of JPMML-Evaluator
+ *
+ * JPMML-Evaluator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Evaluator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Evaluator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.dmg.pmml.*;
+
+import com.google.common.collect.*;
+
+/**
+ * <p>
+ * Compiles a set of expressions together, so that they can share work.
+ * </p>
+ *
+ * <p>
+ * Applications of built-in functions whose arguments are all constants are folded to constants.
+ * Structurally identical subexpressions are compiled to a single node,
+ * whose value is computed at most once per {@link EvaluationContext evaluation context}.
+ * Only subexpressions that do more work than a field lookup are shared.
+ * </p>
+ *
+ * Sharing assumes that the value of a subexpression does not change during the evaluation of a record.
+ * The cached values are discarded whenever a field is declared, except for derived fields whose values are computed from the record.
+ *
+ * @see ModelEvaluator#optimize()
+ */
+public class ExpressionOptimizer {
+
+	private FrameLayout frameLayout = null;
+
+	private Map<List<?>, CompiledExpression> expressions = Maps.newHashMap();
+
+	private List<Expression> foldedExpressions = Lists.newArrayList();
+
+	private List<Expression> sharedExpressions = Lists.newArrayList();
+
+
+	public ExpressionOptimizer(){
+		this(null);
+	}
+
+	/**
+	 * @param frameLayout The slot layout that field references are bound to, or <code>null</code>.
+	 */
+	public ExpressionOptimizer(FrameLayout frameLayout){
+		this.frameLayout = frameLayout;
+	}
+
+	public CompiledExpression compile(Expression expression){
+		return CompiledExpression.compile(expression, this.frameLayout, this);
+	}
+
+	/**
+	 * @param expression A node whose arguments have been optimized already.
+	 */
+	CompiledExpression optimize(CompiledExpression expression){
+		CompiledExpression folded = CompiledExpression.fold(expression);
+
+		if(folded != null){
+			this.foldedExpressions.add(expression.getExpression());
+
+			return folded;
+		}
+
+		List<?> key = createKey(expression);
+		if(key == null){
+			return expression;
+		}
+
+		CompiledExpression canonical = this.expressions.get(key);
+		if(canonical == null){
+			this.expressions.put(key, expression);
+
+			return expression;
+		} // End if
+
+		// Field lookups are cheaper than sharing, but they are deduplicated nonetheless, so that the keys of their parents match
+		if(!(canonical.getExpression() instanceof FieldRef)){
+			canonical.setShared(true);
+
+			this.sharedExpressions.add(expression.getExpression());
+		}
+
+		return canonical;
+	}
+
+	/**
+	 * @return Expressions that were replaced by constants.
+	 */
+	public List<Expression> getFoldedExpressions(){
+		return Collections.unmodifiableList(this.foldedExpressions);
+	}
+
+	/**
+	 * @return Expressions that were replaced by a structurally identical expression that was compiled earlier.
+	 */
+	public List<Expression> getSharedExpressions(){
+		return Collections.unmodifiableList(this.sharedExpressions);
+	}
+
+	/**
+	 * @return The structural key of the node, or <code>null</code> if the node cannot be shared.
+	 */
+	static
+	private List<?> createKey(CompiledExpression compiledExpression){
+
+		if(compiledExpression.isConstant()){
+			return null;
+		}
+
+		Expression expression = compiledExpression.getExpression();
+
+		List<Object> result = Lists.newArrayList();
+		result.add(expression.getClass());
+
+		if(expression instanceof FieldRef){
+			FieldRef fieldRef = (FieldRef)expression;
+
+			result.add(fieldRef.getField());
+			result.add(fieldRef.getMapMissingTo());
+		} else
+
+		if(expression instanceof Apply){
+			Apply apply = (Apply)expression;
+
+			result.add(apply.getFunction());
+			result.add(apply.getMapMissingTo());
+			result.add(apply.getDefaultValue());
+			result.add(apply.getInvalidValueTreatment());
+
+			// The arguments have been deduplicated already, so they can be compared by identity
+			result.addAll(compiledExpression.getArguments());
+		} else
+
+		if(expression instanceof NormContinuous){
+			NormContinuous normContinuous = (NormContinuous)expression;
+
+			result.add(normContinuous.getField());
+			result.add(normContinuous.getMapMissingTo());
+			result.add(normContinuous.getOutliers());
+
+			List<LinearNorm> linearNorms = normContinuous.getLinearNorms();
+			for(LinearNorm linearNorm : linearNorms){
+				result.add(linearNorm.getOrig());
+				result.add(linearNorm.getNorm());
+			}
+		} else
+
+		if(expression instanceof NormDiscrete){
+			NormDiscrete normDiscrete = (NormDiscrete)expression;
+
+			result.add(normDiscrete.getField());
+			result.add(normDiscrete.getValue());
+			result.add(normDiscrete.getMethod());
+			result.add(normDiscrete.getMapMissingTo());
+		} else
+
+		{
+			return null;
+		}
+
+		return result;
+	}
+}
\ No newline at end of file
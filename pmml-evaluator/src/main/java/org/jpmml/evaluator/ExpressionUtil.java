@@ -19,6 +19,7 @@
 package org.jpmml.evaluator;
 
 import java.util.*;
+import java.util.concurrent.*;
 
 import org.jpmml.manager.*;
 
@@ -26,6 +27,7 @@ import org.dmg.pmml.*;
 
 import com.google.common.base.*;
 import com.google.common.base.Function;
+import com.google.common.cache.*;
 import com.google.common.collect.*;
 
 public class ExpressionUtil {
@@ -45,7 +47,7 @@ public class ExpressionUtil {
 			FieldValue value = evaluate(derivedField, context);
 
 			// Make the calculated value available for re-use
-			context.declare(name, value);
+			context.declareDerived(name, value);
 
 			return value;
 		}
@@ -55,7 +57,14 @@ public class ExpressionUtil {
 
 	static
 	public FieldValue evaluate(DerivedField derivedField, EvaluationContext context){
-		FieldValue value = evaluate(derivedField.getExpression(), context);
+		Expression expression = derivedField.getExpression();
+		if(expression == null){
+			throw new InvalidFeatureException(derivedField);
+		}
+
+		CompiledExpression compiledExpression = context.compile(derivedField, expression);
+
+		FieldValue value = compiledExpression.evaluate(context);
 
 		return FieldValueUtil.refine(derivedField, value);
 	}
@@ -195,12 +204,20 @@ public class ExpressionUtil {
 			values.add(value);
 		}
 
+		return evaluateApply(apply, null, values, context);
+	}
+
+	/**
+	 * @param function The built-in function, or <code>null</code> if the function should be resolved by name.
+	 */
+	static
+	FieldValue evaluateApply(Apply apply, org.jpmml.evaluator.Function function, List<FieldValue> values, EvaluationContext context){
 		String defaultValue = apply.getDefaultValue();
 
 		FieldValue result;
 
 		try {
-			result = FunctionUtil.evaluate(apply, values, context);
+			result = (function != null ? function.evaluate(values) : FunctionUtil.evaluate(apply, values, context));
 		} catch(InvalidResultException ire){
 			InvalidValueTreatmentMethodType invalidValueTreatmentMethod = apply.getInvalidValueTreatment();
 
@@ -225,6 +242,64 @@ public class ExpressionUtil {
 		return result;
 	}
 
+	/**
+	 * @return The compiled form of the expression of the derived field, which is shared between all evaluations.
+	 */
+	static
+	public CompiledExpression compile(DerivedField derivedField){
+		Expression expression = derivedField.getExpression();
+		if(expression == null){
+			throw new InvalidFeatureException(derivedField);
+		}
+
+		return compile(derivedField, expression);
+	}
+
+	/**
+	 * @return The compiled form of the body of the function, which is shared between all evaluations.
+	 */
+	static
+	public CompiledExpression compile(DefineFunction defineFunction){
+		Expression expression = defineFunction.getExpression();
+		if(expression == null){
+			throw new InvalidFeatureException(defineFunction);
+		}
+
+		return compile(defineFunction, expression);
+	}
+
+	/**
+	 * @return The compiled form of the expression of the partial score, which is shared between all evaluations.
+	 */
+	static
+	public CompiledExpression compile(ComplexPartialScore complexPartialScore){
+		Expression expression = complexPartialScore.getExpression();
+		if(expression == null){
+			throw new InvalidFeatureException(complexPartialScore);
+		}
+
+		return compile(complexPartialScore, expression);
+	}
+
+	/**
+	 * Compiled forms are cached by the element that owns the expression, rather than by the expression itself.
+	 * A compiled form references the expression and its descendants, but never their owner, so the cache entry is released together with the owner.
+	 *
+	 * @param owner The element whose child the expression is.
+	 */
+	static
+	CompiledExpression compile(PMMLObject owner, final Expression expression){
+		Callable<CompiledExpression> loader = new Callable<CompiledExpression>(){
+
+			@Override
+			public CompiledExpression call(){
+				return CompiledExpression.compile(expression);
+			}
+		};
+
+		return CacheUtil.getValue(owner, ExpressionUtil.compiledExpressionCache, loader);
+	}
+
 	@SuppressWarnings (
 		value = {"rawtypes", "unchecked"}
 	)
@@ -282,4 +357,8 @@ public class ExpressionUtil {
 
 		return Lists.newArrayList(Iterables.transform(values, function));
 	}
+
+	private static final Cache<PMMLObject, CompiledExpression> compiledExpressionCache = CacheBuilder.newBuilder()
+		.weakKeys()
+		.build();
 }
\ No newline at end of file
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2014 Villu Ruusmann
+ *
+ * This file is part of JPMML-Evaluator
+ *
+ * JPMML-Evaluator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Evaluator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Evaluator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.evaluator;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+import org.dmg.pmml.*;
+
+import com.google.common.cache.*;
+import com.google.common.collect.*;
+
+public class FieldReferenceUtil {
+
+	private FieldReferenceUtil(){
+	}
+
+	/**
+	 * <p>
+	 * Collects the names of all fields that the element and its descendants refer to.
+	 * </p>
+	 *
+	 * The collection is conservative. Every attribute of type {@link FieldName} is treated as a reference,
+	 * including the names of fields that the element defines.
+	 */
+	static
+	public Set<FieldName> getFieldReferences(PMMLObject object){
+		final
+		Set<FieldName> result = Sets.newLinkedHashSet();
+
+		Visitor visitor = new AbstractSimpleVisitor(){
+
+			@Override
+			public VisitorAction visit(PMMLObject object){
+				List<Field> fields = FieldReferenceUtil.fieldCache.getUnchecked(object.getClass());
+
+				for(Field field : fields){
+					FieldName name;
+
+					try {
+						name = (FieldName)field.get(object);
+					} catch(IllegalAccessException iae){
+						throw new EvaluationException();
+					}
+
+					if(name != null){
+						result.add(name);
+					}
+				}
+
+				return VisitorAction.CONTINUE;
+			}
+		};
+		object.accept(visitor);
+
+		return result;
+	}
+
+	private static final LoadingCache<Class<?>, List<Field>> fieldCache = CacheBuilder.newBuilder()
+		.weakKeys()
+		.build(new CacheLoader<Class<?>, List<Field>>(){
+
+			@Override
+			public List<Field> load(Class<?> clazz){
+				List<Field> result = Lists.newArrayList();
+
+				while(clazz != null){
+					Field[] fields = clazz.getDeclaredFields();
+
+					for(Field field : fields){
+
+						if(!(FieldName.class).equals(field.getType()) || Modifier.isStatic(field.getModifiers())){
+							continue;
+						} // End if
+
+						if(!field.isAccessible()){
+							field.setAccessible(true);
+						}
+
+						result.add(field);
+					}
+
+					clazz = clazz.getSuperclass();
+				}
+
+				return ImmutableList.copyOf(result);
+			}
+		});
+}
\ No newline at end of file
@@ -0,0 +1,436 @@
+/*
+ * Copyright (c) 2014 Villu Ruusmann
+ *
+ * This file is part of JPMML-Evaluator
+ *
+ * JPMML-Evaluator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Evaluator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Evaluator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.jpmml.manager.*;
+
+import org.dmg.pmml.*;
+
+import com.google.common.collect.*;
+
+/**
+ * <p>
+ * A tree of {@link Node nodes} in struct-of-arrays form.
+ * </p>
+ *
+ * Nodes are numbered in breadth-first order, so that the children of a node occupy a contiguous range of indices.
+ * The root node has index <code>0</code>.
+ * The reference values of {@link SimplePredicate simple predicates} are held as {@link PredicateConstant shared constants},
+ * so that numeric field values can be compared without parsing or boxing.
+ * The {@link NodeDistribution probability distributions} of nodes are computed once as well.
+ * Runs of sibling nodes that test the same field for equality with categories are covered by a {@link CategoryIndex category index}.
+ *
+ * @see TreeModelEvaluator
+ */
+public class FlatTree {
+
+	private Node[] nodes = null;
+
+	private NodeDistribution[] distributions = null;
+
+	private int[] firstChildren = null;
+
+	private int[] childCounts = null;
+
+	private byte[] kinds = null;
+
+	private Predicate[] predicates = null;
+
+	private FieldName[] fields = null;
+
+	private SimplePredicate.Operator[] operators = null;
+
+	private PredicateConstant[] constants = null;
+
+	private CategoryIndex[] categoryIndexes = null;
+
+	private volatile SlotMapping slotMapping = null;
+
+
+	public FlatTree(Node root){
+		List<Node> nodes = Lists.newArrayList();
+		nodes.add(root);
+
+		int size = 1;
+
+		// The list grows while it is being traversed
+		for(int i = 0; i < nodes.size(); i++){
+			Node node = nodes.get(i);
+
+			size += (node.getNodes()).size();
+
+			nodes.addAll(node.getNodes());
+		}
+
+		this.nodes = nodes.toArray(new Node[size]);
+
+		this.distributions = new NodeDistribution[size];
+
+		this.firstChildren = new int[size];
+		this.childCounts = new int[size];
+
+		this.kinds = new byte[size];
+		this.predicates = new Predicate[size];
+
+		this.fields = new FieldName[size];
+		this.operators = new SimplePredicate.Operator[size];
+		this.constants = new PredicateConstant[size];
+
+		this.categoryIndexes = new CategoryIndex[size];
+
+		int firstChild = 1;
+
+		for(int i = 0; i < size; i++){
+			Node node = this.nodes[i];
+
+			this.distributions[i] = new NodeDistribution(node);
+
+			this.firstChildren[i] = firstChild;
+			this.childCounts[i] = (node.getNodes()).size();
+
+			firstChild += this.childCounts[i];
+
+			Predicate predicate = node.getPredicate();
+
+			this.predicates[i] = predicate;
+
+			// The order of checks follows TreeModelEvaluator, which reports a missing predicate before an embedded model
+			if(predicate == null){
+				this.kinds[i] = KIND_INVALID;
+			} else
+
+			if(node.getEmbeddedModel() != null){
+				this.kinds[i] = KIND_UNSUPPORTED;
+			} else
+
+			if(predicate instanceof True){
+				this.kinds[i] = KIND_TRUE;
+			} else
+
+			if(predicate instanceof False){
+				this.kinds[i] = KIND_FALSE;
+			} else
+
+			if(predicate instanceof SimplePredicate){
+				SimplePredicate simplePredicate = (SimplePredicate)predicate;
+
+				this.kinds[i] = KIND_SIMPLE;
+
+				this.fields[i] = simplePredicate.getField();
+				this.operators[i] = simplePredicate.getOperator();
+
+				this.constants[i] = PredicateUtil.getConstant(simplePredicate);
+			} else
+
+			{
+				this.kinds[i] = KIND_PREDICATE;
+
+				if(predicate instanceof SimpleSetPredicate){
+					SimpleSetPredicate simpleSetPredicate = (SimpleSetPredicate)predicate;
+
+					this.fields[i] = simpleSetPredicate.getField();
+				}
+			}
+		}
+
+		for(int i = 0; i < size; i++){
+			indexChildren(i);
+		}
+	}
+
+	private void indexChildren(int index){
+		int firstChild = this.firstChildren[index];
+		int childCount = this.childCounts[index];
+
+		for(int start = firstChild; start < firstChild + childCount; ){
+			int end = start;
+
+			if(isIndexable(start)){
+				FieldName field = CategoryIndex.getField(this.predicates[start]);
+
+				end++;
+
+				while(end < firstChild + childCount && isIndexable(end) && (field).equals(CategoryIndex.getField(this.predicates[end]))){
+					end++;
+				}
+			} // End if
+
+			if(end - start >= MIN_CATEGORY_INDEX_SIZE){
+				List<Predicate> predicates = Arrays.asList(this.predicates).subList(start, end);
+
+				this.categoryIndexes[start] = new CategoryIndex(predicates);
+			}
+
+			start = Math.max(end, start + 1);
+		}
+	}
+
+	private boolean isIndexable(int index){
+		return (this.nodes[index].getEmbeddedModel() == null) && CategoryIndex.isIndexable(this.predicates[index]);
+	}
+
+	public int size(){
+		return this.nodes.length;
+	}
+
+	public Node getNode(int index){
+		return this.nodes[index];
+	}
+
+	public NodeDistribution getDistribution(int index){
+		return this.distributions[index];
+	}
+
+	public int getFirstChild(int index){
+		return this.firstChildren[index];
+	}
+
+	public int getChildCount(int index){
+		return this.childCounts[index];
+	}
+
+	/**
+	 * @return The category index over a run of sibling nodes that starts with this node, or <code>null</code>.
+	 */
+	public CategoryIndex getCategoryIndex(int index){
+		return this.categoryIndexes[index];
+	}
+
+	/**
+	 * Selects the first node in the run of sibling nodes that is covered by the {@link #getCategoryIndex(int) category index} of this node.
+	 *
+	 * @return The index of the first node that evaluates to "true",
+	 * the index that follows the run if no node evaluates to "true",
+	 * or <code>-1</code> if the nodes must be evaluated one by one.
+	 */
+	int select(int index, int[] slots, EvaluationContext context){
+		CategoryIndex categoryIndex = this.categoryIndexes[index];
+
+		FieldValue value = getValue(index, slots, context);
+
+		int[] positions = categoryIndex.lookup(value);
+		if(positions == null){
+			return -1;
+		} // End if
+
+		if(positions.length > 0){
+			return index + positions[0];
+		}
+
+		return index + categoryIndex.size();
+	}
+
+	/**
+	 * Evaluates the predicate of a node.
+	 *
+	 * @param slots Field slots in the frame of the {@link ModelEvaluationContext model evaluation context}, or <code>null</code>.
+	 *
+	 * @return {@link #TRUE}, {@link #FALSE} or {@link #MISSING}.
+	 *
+	 * @see #getSlots(FrameLayout)
+	 */
+	int evaluate(int index, int[] slots, EvaluationContext context){
+
+		switch(this.kinds[index]){
+			case KIND_TRUE:
+				return TRUE;
+			case KIND_FALSE:
+				return FALSE;
+			case KIND_SIMPLE:
+				return evaluateMemoized(index, slots, context);
+			case KIND_PREDICATE:
+				return toStatus(PredicateUtil.evaluate(this.predicates[index], context));
+			case KIND_INVALID:
+				throw new InvalidFeatureException(this.nodes[index]);
+			case KIND_UNSUPPORTED:
+				throw new UnsupportedFeatureException((this.nodes[index]).getEmbeddedModel());
+			default:
+				throw new IllegalStateException();
+		}
+	}
+
+	/**
+	 * Simple predicates that are shared with other trees are looked up in, and stored into, the {@link PredicateMemo memo} of the context.
+	 *
+	 * @see PredicateUtil#evaluate(Predicate, EvaluationContext)
+	 */
+	private int evaluateMemoized(int index, int[] slots, EvaluationContext context){
+		PredicateMemo predicateMemo = context.getPredicateMemo();
+
+		if(predicateMemo != null){
+			int id = predicateMemo.getId(this.predicates[index]);
+
+			if(id > -1){
+
+				if(predicateMemo.contains(id)){
+					return toStatus(predicateMemo.get(id));
+				}
+
+				int status = evaluateSimplePredicate(index, slots, context);
+
+				predicateMemo.put(id, toBoolean(status));
+
+				return status;
+			}
+		}
+
+		return evaluateSimplePredicate(index, slots, context);
+	}
+
+	private int evaluateSimplePredicate(int index, int[] slots, EvaluationContext context){
+		FieldValue value = getValue(index, slots, context);
+
+		SimplePredicate.Operator operator = this.operators[index];
+		switch(operator){
+			case IS_MISSING:
+				return (value == null ? TRUE : FALSE);
+			case IS_NOT_MISSING:
+				return (value != null ? TRUE : FALSE);
+			default:
+				break;
+		}
+
+		// "A SimplePredicate evaluates to unknwon if the input value is missing"
+		if(value == null){
+			return MISSING;
+		}
+
+		PredicateConstant constant = this.constants[index];
+
+		switch(operator){
+			case EQUAL:
+				return (constant.equalsValue(value) ? TRUE : FALSE);
+			case NOT_EQUAL:
+				return (constant.equalsValue(value) ? FALSE : TRUE);
+			default:
+				break;
+		}
+
+		int order = constant.compareToValue(value);
+
+		switch(operator){
+			case LESS_THAN:
+				return (order < 0 ? TRUE : FALSE);
+			case LESS_OR_EQUAL:
+				return (order <= 0 ? TRUE : FALSE);
+			case GREATER_THAN:
+				return (order > 0 ? TRUE : FALSE);
+			case GREATER_OR_EQUAL:
+				return (order >= 0 ? TRUE : FALSE);
+			default:
+				throw new UnsupportedFeatureException(this.predicates[index], operator);
+		}
+	}
+
+	private FieldValue getValue(int index, int[] slots, EvaluationContext context){
+		FieldName name = this.fields[index];
+
+		int slot = (slots != null ? slots[index] : -1);
+		if(slot > -1){
+			Map.Entry<FieldName, FieldValue> entry = ((ModelEvaluationContext)context).getFieldEntry(slot);
+
+			return (entry != null ? entry.getValue() : ExpressionUtil.evaluate(name, context));
+		}
+
+		return ExpressionUtil.evaluate(name, context);
+	}
+
+	/**
+	 * @return An array that maps every node to the slot of its predicate field in the layout, or to <code>-1</code>.
+	 */
+	int[] getSlots(FrameLayout frameLayout){
+		SlotMapping slotMapping = this.slotMapping;
+
+		if(slotMapping == null || slotMapping.getFrameLayout() != frameLayout){
+			int[] slots = new int[size()];
+
+			for(int i = 0; i < slots.length; i++){
+				FieldName name = this.fields[i];
+
+				slots[i] = (name != null ? frameLayout.getSlot(name) : -1);
+			}
+
+			slotMapping = new SlotMapping(frameLayout, slots);
+
+			this.slotMapping = slotMapping;
+		}
+
+		return slotMapping.getSlots();
+	}
+
+	static
+	private int toStatus(Boolean status){
+
+		if(status == null){
+			return MISSING;
+		}
+
+		return (status.booleanValue() ? TRUE : FALSE);
+	}
+
+	static
+	private Boolean toBoolean(int status){
+
+		switch(status){
+			case TRUE:
+				return Boolean.TRUE;
+			case FALSE:
+				return Boolean.FALSE;
+			default:
+				return null;
+		}
+	}
+
+	static
+	private class SlotMapping {
+
+		private FrameLayout frameLayout = null;
+
+		private int[] slots = null;
+
+
+		public SlotMapping(FrameLayout frameLayout, int[] slots){
+			this.frameLayout = frameLayout;
+			this.slots = slots;
+		}
+
+		public FrameLayout getFrameLayout(){
+			return this.frameLayout;
+		}
+
+		public int[] getSlots(){
+			return this.slots;
+		}
+	}
+
+	public static final int FALSE = 0;
+	public static final int TRUE = 1;
+	public static final int MISSING = -1;
+
+	private static final byte KIND_TRUE = 1;
+	private static final byte KIND_FALSE = 2;
+	private static final byte KIND_SIMPLE = 3;
+	private static final byte KIND_PREDICATE = 4;
+	private static final byte KIND_INVALID = 5;
+	private static final byte KIND_UNSUPPORTED = 6;
+
+	private static final int MIN_CATEGORY_INDEX_SIZE = 4;
+}
\ No newline at end of file
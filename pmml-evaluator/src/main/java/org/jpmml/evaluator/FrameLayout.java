@@ -0,0 +1,367 @@
+/*
+ * Copyright (c) 2014 Villu Ruusmann
+ *
+ * This file is part of JPMML-Evaluator
+ *
+ * JPMML-Evaluator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Evaluator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Evaluator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.evaluator;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import org.jpmml.manager.*;
+
+import org.dmg.pmml.*;
+
+import com.google.common.collect.*;
+
+/**
+ * <p>
+ * Maps every field that a {@link Model} can refer to by name to an integer slot.
+ * </p>
+ *
+ * The slots cover {@link MiningField mining fields}, {@link DerivedField derived fields} (both local and global) and {@link OutputField output fields}.
+ * The definitions of fields are resolved once, so that an {@link ModelEvaluationContext evaluation context} can keep field values in a flat array.
+ * Layouts are shared between all evaluators of the same model.
+ *
+ * @see ModelEvaluator#compile()
+ */
+public class FrameLayout implements Serializable {
+
+	private Map<FieldName, Integer> slots = null;
+
+	private FieldName[] names = null;
+
+	private DataField[] dataFields = null;
+
+	private MiningField[] miningFields = null;
+
+	private DerivedField[] localDerivedFields = null;
+
+	private DerivedField[] derivedFields = null;
+
+	private OutputField[] outputFields = null;
+
+	private transient volatile SlotMapping parentMapping = null;
+
+	private transient volatile ConcurrentMap<PMMLObject, CompiledExpression> compiledExpressions = null;
+
+	private transient volatile ExpressionOptimizer optimizer = null;
+
+	private transient volatile AtomicReferenceArray<ArgumentPreparer> preparers = null;
+
+
+	public FrameLayout(ModelManager<?> modelManager){
+		Set<FieldName> names = Sets.newLinkedHashSet();
+
+		MiningSchema miningSchema = modelManager.getMiningSchema();
+		for(MiningField miningField : miningSchema.getMiningFields()){
+			names.add(miningField.getName());
+		}
+
+		LocalTransformations localTransformations = modelManager.getLocalTransformations();
+		if(localTransformations != null){
+
+			for(DerivedField derivedField : localTransformations.getDerivedFields()){
+				names.add(derivedField.getName());
+			}
+		}
+
+		TransformationDictionary transformationDictionary = modelManager.getTransformationDictionary();
+		if(transformationDictionary != null){
+
+			for(DerivedField derivedField : transformationDictionary.getDerivedFields()){
+				names.add(derivedField.getName());
+			}
+		}
+
+		Output output = modelManager.getOutput();
+		if(output != null){
+
+			for(OutputField outputField : output.getOutputFields()){
+				names.add(outputField.getName());
+			}
+		}
+
+		int size = names.size();
+
+		ImmutableMap.Builder<FieldName, Integer> slots = ImmutableMap.builder();
+
+		this.names = new FieldName[size];
+
+		this.dataFields = new DataField[size];
+		this.miningFields = new MiningField[size];
+		this.localDerivedFields = new DerivedField[size];
+		this.derivedFields = new DerivedField[size];
+		this.outputFields = new OutputField[size];
+
+		int slot = 0;
+
+		for(FieldName name : names){
+			slots.put(name, slot);
+
+			this.names[slot] = name;
+
+			this.dataFields[slot] = modelManager.getDataField(name);
+			this.miningFields[slot] = modelManager.getMiningField(name);
+			this.localDerivedFields[slot] = modelManager.getLocalDerivedField(name);
+			this.derivedFields[slot] = modelManager.getDerivedField(name);
+			this.outputFields[slot] = modelManager.getOutputField(name);
+
+			slot++;
+		}
+
+		this.slots = slots.build();
+	}
+
+	/**
+	 * @return The slot of the field, or <code>-1</code> if the field is not known.
+	 */
+	public int getSlot(FieldName name){
+		Integer slot = this.slots.get(name);
+		if(slot == null){
+			return -1;
+		}
+
+		return slot.intValue();
+	}
+
+	public int size(){
+		return this.names.length;
+	}
+
+	public FieldName getName(int slot){
+		return this.names[slot];
+	}
+
+	public DataField getDataField(int slot){
+		return this.dataFields[slot];
+	}
+
+	public MiningField getMiningField(int slot){
+		return this.miningFields[slot];
+	}
+
+	/**
+	 * @return The definition from the {@link LocalTransformations} element of the model.
+	 */
+	public DerivedField getLocalDerivedField(int slot){
+		return this.localDerivedFields[slot];
+	}
+
+	/**
+	 * @return The definition from the {@link TransformationDictionary} element of the PMML document.
+	 */
+	public DerivedField getDerivedField(int slot){
+		return this.derivedFields[slot];
+	}
+
+	public OutputField getOutputField(int slot){
+		return this.outputFields[slot];
+	}
+
+	/**
+	 * Preparers are created on first use, and are shared between all evaluators of the model.
+	 *
+	 * @return The preparer of the input field, or <code>null</code> if the slot is not an input field.
+	 */
+	public ArgumentPreparer getPreparer(int slot){
+		DataField dataField = getDataField(slot);
+		MiningField miningField = getMiningField(slot);
+
+		if(dataField == null || miningField == null){
+			return null;
+		}
+
+		AtomicReferenceArray<ArgumentPreparer> preparers = this.preparers;
+
+		if(preparers == null){
+			preparers = new AtomicReferenceArray<ArgumentPreparer>(size());
+
+			this.preparers = preparers;
+		}
+
+		ArgumentPreparer preparer = preparers.get(slot);
+		if(preparer == null){
+			preparer = new ArgumentPreparer(dataField, miningField);
+
+			preparers.set(slot, preparer);
+		}
+
+		return preparer;
+	}
+
+	/**
+	 * <p>
+	 * Compiles all {@link DerivedField}, {@link DefineFunction} and {@link ComplexPartialScore} expressions that the model can evaluate together.
+	 * The compiled forms are kept by this layout, so that they are used only by evaluation contexts that use this layout.
+	 * </p>
+	 *
+	 * Must be called before this layout is published to other threads.
+	 *
+	 * @see ExpressionOptimizer
+	 */
+	void optimize(ModelManager<?> modelManager){
+		final
+		Map<PMMLObject, Expression> expressions = Maps.newLinkedHashMap();
+
+		Visitor visitor = new AbstractVisitor(){
+
+			@Override
+			public VisitorAction visit(DerivedField derivedField){
+				add(derivedField, derivedField.getExpression());
+
+				return super.visit(derivedField);
+			}
+
+			@Override
+			public VisitorAction visit(DefineFunction defineFunction){
+				add(defineFunction, defineFunction.getExpression());
+
+				return super.visit(defineFunction);
+			}
+
+			@Override
+			public VisitorAction visit(ComplexPartialScore complexPartialScore){
+				add(complexPartialScore, complexPartialScore.getExpression());
+
+				return super.visit(complexPartialScore);
+			}
+
+			/**
+			 * Segment models are evaluated in contexts of their own.
+			 */
+			@Override
+			public VisitorAction visit(Segmentation segmentation){
+				return VisitorAction.SKIP;
+			}
+
+			private void add(PMMLObject owner, Expression expression){
+
+				if(expression != null){
+					expressions.put(owner, expression);
+				}
+			}
+		};
+
+		TransformationDictionary transformationDictionary = modelManager.getTransformationDictionary();
+		if(transformationDictionary != null){
+			transformationDictionary.accept(visitor);
+		}
+
+		Model model = modelManager.getModel();
+		model.accept(visitor);
+
+		ExpressionOptimizer optimizer = new ExpressionOptimizer(this);
+
+		ConcurrentMap<PMMLObject, CompiledExpression> compiledExpressions = new MapMaker()
+			.weakKeys()
+			.makeMap();
+
+		Collection<Map.Entry<PMMLObject, Expression>> entries = expressions.entrySet();
+		for(Map.Entry<PMMLObject, Expression> entry : entries){
+			compiledExpressions.put(entry.getKey(), optimizer.compile(entry.getValue()));
+		}
+
+		this.compiledExpressions = compiledExpressions;
+		this.optimizer = optimizer;
+	}
+
+	/**
+	 * @return The optimizer that compiled the expressions of the model, or <code>null</code> if this layout has not been optimized.
+	 */
+	public ExpressionOptimizer getOptimizer(){
+		return this.optimizer;
+	}
+
+	/**
+	 * Compiled forms are cached by the element that owns the expression.
+	 *
+	 * @param owner The element whose child the expression is.
+	 *
+	 * @return The compiled form of the expression, whose field references are bound to the slots of this layout.
+	 *
+	 * @see ExpressionUtil#compile(PMMLObject, Expression)
+	 */
+	CompiledExpression compile(PMMLObject owner, Expression expression){
+		ConcurrentMap<PMMLObject, CompiledExpression> compiledExpressions = this.compiledExpressions;
+
+		if(compiledExpressions == null){
+			compiledExpressions = new MapMaker()
+				.weakKeys()
+				.makeMap();
+
+			this.compiledExpressions = compiledExpressions;
+		}
+
+		CompiledExpression compiledExpression = compiledExpressions.get(owner);
+		if(compiledExpression == null){
+			compiledExpression = CompiledExpression.compile(expression, this, null);
+
+			CompiledExpression previousCompiledExpression = compiledExpressions.putIfAbsent(owner, compiledExpression);
+			if(previousCompiledExpression != null){
+				compiledExpression = previousCompiledExpression;
+			}
+		}
+
+		return compiledExpression;
+	}
+
+	/**
+	 * @return An array that maps every slot of this layout to the slot of the same field in the parent layout, or to <code>-1</code> if the parent layout does not know the field.
+	 */
+	int[] getParentSlots(FrameLayout parent){
+		SlotMapping parentMapping = this.parentMapping;
+
+		// A segment model has one parent model, so the last mapping is almost always the right one
+		if(parentMapping == null || parentMapping.getFrameLayout() != parent){
+			int[] slots = new int[size()];
+
+			for(int i = 0; i < slots.length; i++){
+				slots[i] = parent.getSlot(this.names[i]);
+			}
+
+			parentMapping = new SlotMapping(parent, slots);
+
+			this.parentMapping = parentMapping;
+		}
+
+		return parentMapping.getSlots();
+	}
+
+	static
+	private class SlotMapping {
+
+		private FrameLayout frameLayout = null;
+
+		private int[] slots = null;
+
+
+		public SlotMapping(FrameLayout frameLayout, int[] slots){
+			this.frameLayout = frameLayout;
+			this.slots = slots;
+		}
+
+		public FrameLayout getFrameLayout(){
+			return this.frameLayout;
+		}
+
+		public int[] getSlots(){
+			return this.slots;
+		}
+	}
+}
\ No newline at end of file
@@ -73,7 +73,9 @@ public class FunctionUtil {
 			throw new InvalidFeatureException(defineFunction);
 		}
 
-		FieldValue result = ExpressionUtil.evaluate(expression, functionContext);
+		CompiledExpression compiledExpression = context.compile(defineFunction, expression);
+
+		FieldValue result = compiledExpression.evaluate(functionContext);
 
 		return FieldValueUtil.refine(defineFunction.getDataType(), defineFunction.getOptype(), result);
 	}
@@ -80,33 +80,15 @@ public class KernelTypeUtil {
 
 	static
 	private double dotProduct(double[] left, double[] right){
-		double sum = 0d;
+		VectorKernel vectorKernel = VectorKernelUtil.getInstance();
 
-		if(left.length != right.length){
-			throw new EvaluationException();
-		}
-
-		for(int i = 0; i < left.length; i++){
-			sum += (left[i] * right[i]);
-		}
-
-		return sum;
+		return vectorKernel.dotProduct(left, right);
 	}
 
 	static
 	private double squaredDistance(double[] left, double[] right){
-		double sum = 0d;
-
-		if(left.length != right.length){
-			throw new EvaluationException();
-		}
-
-		for(int i = 0; i < left.length; i++){
-			double diff = (left[i] - right[i]);
-
-			sum += (diff * diff);
-		}
+		VectorKernel vectorKernel = VectorKernelUtil.getInstance();
 
-		return sum;
+		return vectorKernel.squaredDistance(left, right);
 	}
 }
\ No newline at end of file
@@ -207,6 +207,90 @@ public class MeasureUtil {
 		}
 	}
 
+	/**
+	 * Calculates the distance over dense vectors with a {@link VectorKernel vector kernel}.
+	 *
+	 * @param weights The field weights, as returned by {@link #getDenseWeights(ComparisonMeasure, List)}.
+	 *
+	 * @see #toDenseVector(List)
+	 */
+	static
+	public Double evaluateDistance(ComparisonMeasure comparisonMeasure, double[] weights, double[] values, double[] referenceValues, Double adjustment){
+		Measure measure = comparisonMeasure.getMeasure();
+
+		double outerPower;
+
+		if(measure instanceof Euclidean){
+			outerPower = 2;
+		} else
+
+		if(measure instanceof SquaredEuclidean){
+			outerPower = 1;
+		} else
+
+		{
+			throw new UnsupportedFeatureException(measure);
+		}
+
+		VectorKernel kernel = VectorKernelUtil.getInstance();
+
+		double sum = kernel.weightedSquaredDistance(values, referenceValues, weights);
+
+		return Math.pow(sum * adjustment.doubleValue(), 1d / outerPower);
+	}
+
+	/**
+	 * @return The field weights, or <code>null</code> if the distance must be calculated field by field.
+	 * The distance can be calculated over dense vectors when the measure is {@link Euclidean} or {@link SquaredEuclidean}, and the comparison function of every field is {@link CompareFunctionType#ABS_DIFF}.
+	 */
+	static
+	public double[] getDenseWeights(ComparisonMeasure comparisonMeasure, List<? extends ComparisonField> comparisonFields){
+		Measure measure = comparisonMeasure.getMeasure();
+
+		if(!(measure instanceof Euclidean) && !(measure instanceof SquaredEuclidean)){
+			return null;
+		}
+
+		double[] result = new double[comparisonFields.size()];
+
+		for(int i = 0; i < comparisonFields.size(); i++){
+			ComparisonField comparisonField = comparisonFields.get(i);
+
+			CompareFunctionType compareFunction = comparisonField.getCompareFunction();
+			if(compareFunction == null){
+				compareFunction = comparisonMeasure.getCompareFunction();
+			} // End if
+
+			if(compareFunction != CompareFunctionType.ABS_DIFF){
+				return null;
+			}
+
+			result[i] = comparisonField.getFieldWeight();
+		}
+
+		return result;
+	}
+
+	/**
+	 * @return The values as a dense vector, or <code>null</code> if some value is missing or is not a number.
+	 */
+	static
+	public double[] toDenseVector(List<FieldValue> values){
+		double[] result = new double[values.size()];
+
+		for(int i = 0; i < values.size(); i++){
+			FieldValue value = values.get(i);
+
+			if(value == null || !(value.getValue() instanceof Number)){
+				return null;
+			}
+
+			result[i] = (value.asNumber()).doubleValue();
+		}
+
+		return result;
+	}
+
 	static
 	private double evaluateInnerFunction(ComparisonMeasure comparisonMeasure, ComparisonField comparisonField, FieldValue value, FieldValue referenceValue, Double power){
 		CompareFunctionType compareFunction = comparisonField.getCompareFunction();
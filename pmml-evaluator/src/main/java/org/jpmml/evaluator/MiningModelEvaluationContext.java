@@ -30,11 +30,23 @@ public class MiningModelEvaluationContext extends ModelEvaluationContext {
 
 	private Map<String, SegmentResultMap> results = Maps.newLinkedHashMap();
 
+	private Map<String, ModelEvaluationContext> segmentContexts = null;
+
+	private int skippedSegments = 0;
+
+	private MiningModelEvaluationContext baseContext = null;
+
+	private Set<FieldName> changedFields = null;
+
 
 	public MiningModelEvaluationContext(ModelManager<MiningModel> modelManager, ModelEvaluationContext parent){
 		super(modelManager, parent);
 	}
 
+	public MiningModelEvaluationContext(ModelManager<MiningModel> modelManager, ModelEvaluationContext parent, FrameLayout frameLayout){
+		super(modelManager, parent, frameLayout);
+	}
+
 	@Override
 	@SuppressWarnings (
 		value = {"unchecked"}
@@ -43,6 +55,58 @@ public class MiningModelEvaluationContext extends ModelEvaluationContext {
 		return (ModelManager<MiningModel>)super.getModelManager();
 	}
 
+	/**
+	 * Segment contexts are retained, and are reset when they are taken into use again.
+	 * A context starts retaining segment contexts when it is reset for the first time,
+	 * so that a context that is used for a single record does not pay for it.
+	 */
+	@Override
+	public void reset(){
+		super.reset();
+
+		if(this.segmentContexts == null){
+			this.segmentContexts = Maps.newHashMap();
+		}
+
+		this.results.clear();
+
+		this.skippedSegments = 0;
+
+		this.baseContext = null;
+		this.changedFields = null;
+	}
+
+	/**
+	 * @return The number of segments that were skipped by early termination.
+	 *
+	 * @see MiningModelEvaluator#setEarlyTermination(boolean)
+	 */
+	public int getSkippedSegments(){
+		return this.skippedSegments;
+	}
+
+	void setSkippedSegments(int skippedSegments){
+		this.skippedSegments = skippedSegments;
+	}
+
+	/**
+	 * @return The context of the base record, or <code>null</code> if this context is not used for incremental evaluation.
+	 *
+	 * @see ModelEvaluator#reevaluate(ModelEvaluationContext, Map)
+	 */
+	MiningModelEvaluationContext getBaseContext(){
+		return this.baseContext;
+	}
+
+	Set<FieldName> getChangedFields(){
+		return this.changedFields;
+	}
+
+	void setBaseContext(MiningModelEvaluationContext baseContext, Set<FieldName> changedFields){
+		this.baseContext = baseContext;
+		this.changedFields = changedFields;
+	}
+
 	SegmentResultMap getResult(String id){
 		return this.results.get(id);
 	}
@@ -50,4 +114,31 @@ public class MiningModelEvaluationContext extends ModelEvaluationContext {
 	void putResult(String id, SegmentResultMap result){
 		this.results.put(id, result);
 	}
+
+	/**
+	 * @return A reset context for the segment, or <code>null</code> if the segment has not been evaluated in this context before.
+	 */
+	ModelEvaluationContext getSegmentContext(String id){
+
+		if(this.segmentContexts == null){
+			return null;
+		}
+
+		ModelEvaluationContext segmentContext = this.segmentContexts.get(id);
+
+		if(segmentContext != null){
+			segmentContext.reset();
+		}
+
+		return segmentContext;
+	}
+
+	void putSegmentContext(String id, ModelEvaluationContext segmentContext){
+
+		if(this.segmentContexts == null){
+			return;
+		}
+
+		this.segmentContexts.put(id, segmentContext);
+	}
 }
\ No newline at end of file
@@ -19,6 +19,7 @@
 package org.jpmml.evaluator;
 
 import java.util.*;
+import java.util.concurrent.*;
 
 import org.jpmml.manager.*;
 
@@ -29,6 +30,28 @@ import com.google.common.collect.*;
 
 public class MiningModelEvaluator extends ModelEvaluator<MiningModel> implements HasEntityRegistry<Segment> {
 
+	private volatile List<SegmentHandler> segmentHandlers = null;
+
+	private volatile Boolean segmentOutput = null;
+
+	private ExecutorService executorService = null;
+
+	private int parallelThreshold = 16;
+
+	private boolean earlyTermination = false;
+
+	/**
+	 * The demanded output fields that the vote distribution flag was computed for, together with the flag.
+	 */
+	private volatile Map.Entry<List<OutputField>, Boolean> voteDistribution = null;
+
+	private Engine engine = Engine.DEFAULT;
+
+	private volatile Boolean treeEnsembleSupport = null;
+
+	private volatile TreeEnsemble treeEnsemble = null;
+
+
 	public MiningModelEvaluator(PMML pmml){
 		this(pmml, find(pmml.getModels(), MiningModel.class));
 	}
@@ -53,9 +76,28 @@ public class MiningModelEvaluator extends ModelEvaluator<MiningModel> implements
 		return getValue(MiningModelEvaluator.entityCache);
 	}
 
+	/**
+	 * Compiles this evaluator together with the evaluators of all segments that have been created so far.
+	 * The evaluators of the remaining segments are compiled when they are created.
+	 */
+	@Override
+	public FrameLayout compile(){
+		FrameLayout frameLayout = super.compile();
+
+		List<SegmentHandler> segmentHandlers = this.segmentHandlers;
+		if(segmentHandlers != null){
+
+			for(SegmentHandler segmentHandler : segmentHandlers){
+				segmentHandler.compileEvaluator();
+			}
+		}
+
+		return frameLayout;
+	}
+
 	@Override
 	public MiningModelEvaluationContext createContext(ModelEvaluationContext parent){
-		return new MiningModelEvaluationContext(this, parent);
+		return new MiningModelEvaluationContext(this, parent, getFrameLayout());
 	}
 
 	@Override
@@ -64,6 +106,118 @@ public class MiningModelEvaluator extends ModelEvaluator<MiningModel> implements
 	}
 
 	public Map<FieldName, ?> evaluate(MiningModelEvaluationContext context){
+		return evaluate(context, null);
+	}
+
+	/**
+	 * <p>
+	 * Evaluates a batch of records.
+	 * </p>
+	 *
+	 * <p>
+	 * When segments are independent of one another, the evaluation proceeds segment by segment:
+	 * the model of a segment is evaluated for all records of the batch before moving on to the next segment.
+	 * This keeps the data structures of every segment model in cache.
+	 * Segments are independent for the {@link MultipleModelMethodType#MAJORITY_VOTE majority vote}, {@link MultipleModelMethodType#WEIGHTED_MAJORITY_VOTE weighted majority vote},
+	 * {@link MultipleModelMethodType#AVERAGE average}, {@link MultipleModelMethodType#WEIGHTED_AVERAGE weighted average} and {@link MultipleModelMethodType#SUM sum} methods,
+	 * provided that segment models do not declare output fields.
+	 * Otherwise, records are evaluated one by one.
+	 * </p>
+	 *
+	 * Results are identical to evaluating every record with {@link #evaluate(Map)}.
+	 * The evaluation context of every record is kept until the batch completes, so the memory usage grows with the size of the batch.
+	 *
+	 * @return Results in the order of records.
+	 */
+	public List<Map<FieldName, ?>> evaluateAll(List<? extends Map<FieldName, ?>> arguments){
+		List<Map<FieldName, ?>> result = Lists.newArrayList();
+
+		List<MiningModelEvaluationContext> contexts = Lists.newArrayList();
+
+		for(Map<FieldName, ?> record : arguments){
+			MiningModelEvaluationContext context = createContext(null);
+			context.declareAll(record);
+
+			contexts.add(context);
+		}
+
+		if(!isBatch()){
+
+			for(MiningModelEvaluationContext context : contexts){
+				result.add(evaluate(context));
+			}
+
+			return result;
+		}
+
+		TreeEnsemble treeEnsemble = getTreeEnsemble();
+
+		List<SegmentHandler> segmentHandlers = getSegmentHandlers();
+
+		SegmentIndex segmentIndex = getSegmentIndex();
+
+		List<SegmentBatch> batches = Lists.newArrayList();
+
+		// The leaf nodes of all trees per record, or null if trees are evaluated one by one
+		int[][] leaves = (treeEnsemble != null ? treeEnsemble.evaluateAll(contexts) : null);
+
+		for(int j = 0; j < contexts.size(); j++){
+			MiningModelEvaluationContext context = contexts.get(j);
+
+			SegmentBatch batch = new SegmentBatch(segmentHandlers.size(), (leaves != null ? leaves[j] : null));
+
+			int firstRouted = (segmentIndex != null ? segmentIndex.getFirstRouted() : -1);
+
+			int[] candidates = null;
+
+			int count = segmentHandlers.size();
+
+			// Segment predicates are evaluated record by record, because they may declare derived fields in the context of the record
+			for(int k = 0; k < count; k++){
+
+				// The routing field is evaluated when the first routed segment is reached.
+				// Candidates before the first routed segment are the same as segments
+				if(k == firstRouted){
+					candidates = selectSegments(segmentIndex, context);
+
+					if(candidates != null){
+						count = candidates.length;
+					}
+				}
+
+				int i = (candidates != null ? candidates[k] : k);
+
+				batch.setSegmentContext(i, prepareSegment(segmentHandlers.get(i), context, candidates != null && segmentIndex.isRouted(i)));
+			}
+
+			batches.add(batch);
+		}
+
+		for(int i = 0; i < segmentHandlers.size(); i++){
+			SegmentHandler segmentHandler = segmentHandlers.get(i);
+
+			for(SegmentBatch batch : batches){
+				ModelEvaluationContext segmentContext = batch.getSegmentContext(i);
+
+				if(segmentContext == null){
+					continue;
+				}
+
+				batch.setResult(i, evaluateSegment(segmentHandler, segmentContext, batch.getLeaves(), i));
+			}
+		}
+
+		for(int i = 0; i < contexts.size(); i++){
+			result.add(evaluate(contexts.get(i), batches.get(i)));
+		}
+
+		return result;
+	}
+
+	/**
+	 * @param batch Segments that have been evaluated in advance, or <code>null</code>.
+	 */
+	private Map<FieldName, ?> evaluate(MiningModelEvaluationContext context, SegmentBatch batch){
 		MiningModel miningModel = getModel();
 		if(!miningModel.isScorable()){
 			throw new InvalidResultException(miningModel);
@@ -79,26 +233,26 @@ public class MiningModelEvaluator extends ModelEvaluator<MiningModel> implements
 		MiningFunctionType miningFunction = miningModel.getFunctionName();
 		switch(miningFunction){
 			case REGRESSION:
-				predictions = evaluateRegression(context);
+				predictions = evaluateRegression(context, batch);
 				break;
 			case CLASSIFICATION:
-				predictions = evaluateClassification(context);
+				predictions = evaluateClassification(context, batch);
 				break;
 			case CLUSTERING:
-				predictions = evaluateClustering(context);
+				predictions = evaluateClustering(context, batch);
 				break;
 			default:
-				predictions = evaluateAny(context);
+				predictions = evaluateAny(context, batch);
 				break;
 		}
 
 		return OutputUtil.evaluate(predictions, context);
 	}
 
-	private Map<FieldName, ?> evaluateRegression(MiningModelEvaluationContext context){
+	private Map<FieldName, ?> evaluateRegression(MiningModelEvaluationContext context, SegmentBatch batch){
 		MiningModel miningModel = getModel();
 
-		List<SegmentResultMap> segmentResults = evaluateSegmentation(context);
+		List<SegmentResultMap> segmentResults = evaluateSegmentation(context, batch);
 
 		Map<FieldName, ?> predictions = getRegressionResult(segmentResults);
 		if(predictions != null){
@@ -182,10 +336,10 @@ public class MiningModelEvaluator extends ModelEvaluator<MiningModel> implements
 		return null;
 	}
 
-	private Map<FieldName, ?> evaluateClassification(MiningModelEvaluationContext context){
+	private Map<FieldName, ?> evaluateClassification(MiningModelEvaluationContext context, SegmentBatch batch){
 		MiningModel miningModel = getModel();
 
-		List<SegmentResultMap> segmentResults = evaluateSegmentation(context);
+		List<SegmentResultMap> segmentResults = evaluateSegmentation(context, batch);
 
 		Map<FieldName, ?> predictions = getClassificationResult(segmentResults);
 		if(predictions != null){
@@ -238,10 +392,10 @@ public class MiningModelEvaluator extends ModelEvaluator<MiningModel> implements
 		return null;
 	}
 
-	private Map<FieldName, ?> evaluateClustering(MiningModelEvaluationContext context){
+	private Map<FieldName, ?> evaluateClustering(MiningModelEvaluationContext context, SegmentBatch batch){
 		MiningModel miningModel = getModel();
 
-		List<SegmentResultMap> segmentResults = evaluateSegmentation(context);
+		List<SegmentResultMap> segmentResults = evaluateSegmentation(context, batch);
 
 		Map<FieldName, ?> predictions = getClusteringResult(segmentResults);
 		if(predictions != null){
@@ -294,10 +448,10 @@ public class MiningModelEvaluator extends ModelEvaluator<MiningModel> implements
 	@SuppressWarnings (
 		value = {"fallthrough"}
 	)
-	private Map<FieldName, ?> evaluateAny(MiningModelEvaluationContext context){
+	private Map<FieldName, ?> evaluateAny(MiningModelEvaluationContext context, SegmentBatch batch){
 		MiningModel miningModel = getModel();
 
-		List<SegmentResultMap> segmentResults = evaluateSegmentation(context);
+		List<SegmentResultMap> segmentResults = evaluateSegmentation(context, batch);
 
 		Segmentation segmentation = miningModel.getSegmentation();
 
@@ -322,7 +476,7 @@ public class MiningModelEvaluator extends ModelEvaluator<MiningModel> implements
 		throw new UnsupportedFeatureException(segmentation, multipleModelMethod);
 	}
 
-	private List<SegmentResultMap> evaluateSegmentation(MiningModelEvaluationContext context){
+	private List<SegmentResultMap> evaluateSegmentation(MiningModelEvaluationContext context, SegmentBatch batch){
 		MiningModel miningModel = getModel();
 
 		List<SegmentResultMap> results = Lists.newArrayList();
@@ -334,73 +488,124 @@ public class MiningModelEvaluator extends ModelEvaluator<MiningModel> implements
 			throw new UnsupportedFeatureException(localTransformations);
 		}
 
-		BiMap<Segment, String> inverseEntities = (getEntityRegistry()).inverse();
-
 		MultipleModelMethodType multipleModelMethod = segmentation.getMultipleModelMethod();
 
+		List<SegmentHandler> segmentHandlers = getSegmentHandlers();
+
+		if(batch != null){
+
+			for(int i = 0; i < segmentHandlers.size(); i++){
+				ModelEvaluationContext segmentContext = batch.getSegmentContext(i);
+
+				if(segmentContext == null){
+					continue;
+				}
+
+				SegmentResultMap segmentResult = createSegmentResult(segmentHandlers.get(i), segmentContext, batch.getResult(i), context);
+
+				results.add(segmentResult);
+			}
+
+			return results;
+		}
+
 		Model lastModel = null;
 
 		MiningFunctionType miningFunction = miningModel.getFunctionName();
 
-		List<Segment> segments = segmentation.getSegments();
-		for(Segment segment : segments){
-			Predicate predicate = segment.getPredicate();
-			if(predicate == null){
-				throw new InvalidFeatureException(segment);
-			}
+		TreeEnsemble treeEnsemble = getTreeEnsemble();
 
-			Boolean status = PredicateUtil.evaluate(predicate, context);
-			if(status == null || !status.booleanValue()){
-				continue;
+		// The leaf nodes of all trees, or null if trees are evaluated one by one
+		int[] leaves = (treeEnsemble != null ? treeEnsemble.evaluate(context) : null);
+
+		boolean parallel = (leaves == null) && (context.getBaseContext() == null) && isParallel(multipleModelMethod);
+
+		VoteCounter<Object> counter = null;
+
+		if(!parallel && isEarlyTermination(multipleModelMethod)){
+			counter = new VoteCounter<Object>();
+		}
+
+		List<SegmentHandler> parallelSegmentHandlers = null;
+		List<ModelEvaluationContext> parallelSegmentContexts = null;
+
+		if(parallel){
+			parallelSegmentHandlers = Lists.newArrayList();
+			parallelSegmentContexts = Lists.newArrayList();
+		}
+
+		SegmentIndex segmentIndex = getSegmentIndex();
+
+		int firstRouted = (segmentIndex != null ? segmentIndex.getFirstRouted() : -1);
+
+		int[] candidates = null;
+
+		int count = segmentHandlers.size();
+
+		// The upper bound of votes that can be cast after each candidate segment
+		double[] remainingVotes = null;
+
+		for(int k = 0; k < count; k++){
+
+			// The routing field is evaluated when the first routed segment is reached.
+			// Candidates before the first routed segment are the same as segments
+			if(k == firstRouted){
+				candidates = selectSegments(segmentIndex, context);
+
+				if(candidates != null){
+					count = candidates.length;
+
+					if(counter != null){
+						remainingVotes = getRemainingVotes(segmentation, candidates);
+					}
+				}
 			}
 
-			String id = inverseEntities.get(segment);
+			int i = (candidates != null ? candidates[k] : k);
 
-			Model model = segment.getModel();
-			if(model == null){
-				throw new InvalidFeatureException(segment);
+			SegmentHandler segmentHandler = segmentHandlers.get(i);
+
+			SegmentResultMap segmentResult = getBaseResult(segmentHandler, context);
+
+			ModelEvaluationContext segmentContext = null;
+
+			if(segmentResult == null){
+				segmentContext = prepareSegment(segmentHandler, context, candidates != null && segmentIndex.isRouted(i));
+				if(segmentContext == null){
+					continue;
+				}
 			}
 
-			// "With the exception of modelChain models, all model elements used inside Segment elements in one MiningModel must have the same MINING-FUNCTION"
 			switch(multipleModelMethod){
 				case MODEL_CHAIN:
-					lastModel = model;
+					lastModel = (segmentHandler.getSegment()).getModel();
 					break;
 				default:
-					if(!(miningFunction).equals(model.getFunctionName())){
-						throw new InvalidFeatureException(model);
-					}
 					break;
 			}
 
-			ModelEvaluator<?> evaluator = MiningModelEvaluator.evaluatorFactory.getModelManager(getPMML(), model);
+			// The predicate memo of the record is not thread-safe
+			if(segmentContext != null){
+				segmentContext.setPredicateMemoShared(!parallel);
+			} // End if
 
-			ModelEvaluationContext segmentContext = evaluator.createContext(context);
-
-			Map<FieldName, ?> result = evaluator.evaluate(segmentContext);
-
-			FieldName targetField = evaluator.getTargetField();
-
-			List<FieldName> outputFields = evaluator.getOutputFields();
-			for(FieldName outputField : outputFields){
-				FieldValue outputValue = segmentContext.getField(outputField);
-				if(outputValue == null){
-					throw new MissingFieldException(outputField, segment);
-				}
+			// Segment predicates are evaluated in this thread, because they may declare derived fields in this context
+			if(parallel){
+				parallelSegmentHandlers.add(segmentHandler);
+				parallelSegmentContexts.add(segmentContext);
 
-				// "The OutputFields from one model element can be passed as input to the MiningSchema of subsequent models"
-				context.declare(outputField, outputValue);
+				continue;
 			}
 
-			List<String> warnings = segmentContext.getWarnings();
-			for(String warning : warnings){
-				context.addWarning(warning);
-			}
+			if(segmentResult != null){
+				context.putResult(segmentHandler.getId(), segmentResult);
+			} else
 
-			SegmentResultMap segmentResult = new SegmentResultMap(segment, targetField);
-			segmentResult.putAll(result);
+			{
+				Map<FieldName, ?> result = evaluateSegment(segmentHandler, segmentContext, leaves, i);
 
-			context.putResult(id, segmentResult);
+				segmentResult = createSegmentResult(segmentHandler, segmentContext, result, context);
+			}
 
 			switch(multipleModelMethod){
 				case SELECT_FIRST:
@@ -408,6 +613,27 @@ public class MiningModelEvaluator extends ModelEvaluator<MiningModel> implements
 				default:
 					results.add(segmentResult);
 					break;
+			} // End switch
+
+			if(counter != null){
+				vote(segmentation, segmentResult, counter);
+
+				if(isDecided(counter, (remainingVotes != null ? remainingVotes[k] : segmentHandler.getRemainingVotes()))){
+					context.setSkippedSegments(count - (k + 1));
+
+					break;
+				}
+			}
+		}
+
+		if(parallel){
+			List<Map<FieldName, ?>> parallelResults = evaluateParallel(parallelSegmentHandlers, parallelSegmentContexts);
+
+			// Merge in document order, so that the reduction of votes and sums does not depend on scheduling
+			for(int i = 0; i < parallelResults.size(); i++){
+				SegmentResultMap segmentResult = createSegmentResult(parallelSegmentHandlers.get(i), parallelSegmentContexts.get(i), parallelResults.get(i), context);
+
+				results.add(segmentResult);
 			}
 		}
 
@@ -425,77 +651,1058 @@ public class MiningModelEvaluator extends ModelEvaluator<MiningModel> implements
 		return results;
 	}
 
+	/**
+	 * Looks up the segments that are routed by the value of the routing field.
+	 *
+	 * @return The positions of candidate segments in ascending order, or <code>null</code> if all segments are candidates.
+	 *
+	 * @see SegmentIndex#select(FieldValue)
+	 */
 	static
-	private <E> E getFirst(List<E> list){
-		return list.get(0);
-	}
+	private int[] selectSegments(SegmentIndex segmentIndex, MiningModelEvaluationContext context){
+		FieldName field = segmentIndex.getField();
 
-	static
-	private <E> E getLast(List<E> list){
-		return list.get(list.size() - 1);
+		FieldValue value = ExpressionUtil.evaluate(field, context);
+
+		return segmentIndex.select(value);
 	}
 
-	static
-	private Map<Object, Double> countVotes(Segmentation segmentation, List<SegmentResultMap> segmentResults){
-		VoteCounter<Object> counter = new VoteCounter<Object>();
+	/**
+	 * Evaluates the predicate of a segment, and prepares the segment model for evaluation.
+	 *
+	 * @param selected <code>true</code> if the predicate of the segment is known to evaluate to <code>true</code>, <code>false</code> otherwise.
+	 *
+	 * @return The context for evaluating the segment model, or <code>null</code> if the segment is not selected.
+	 */
+	private ModelEvaluationContext prepareSegment(SegmentHandler segmentHandler, MiningModelEvaluationContext context, boolean selected){
+		MiningModel miningModel = getModel();
+
+		Segmentation segmentation = miningModel.getSegmentation();
 
 		MultipleModelMethodType multipleModelMethod = segmentation.getMultipleModelMethod();
 
-		for(SegmentResultMap segmentResult : segmentResults){
-			Object targetValue = segmentResult.getResult();
+		MiningFunctionType miningFunction = miningModel.getFunctionName();
 
-			switch(multipleModelMethod){
-				case MAJORITY_VOTE:
-					counter.increment(targetValue);
-					break;
-				case WEIGHTED_MAJORITY_VOTE:
-					counter.increment(targetValue, segmentResult.getWeight());
-					break;
-				default:
-					throw new UnsupportedFeatureException(segmentation, multipleModelMethod);
+		Segment segment = segmentHandler.getSegment();
+
+		Predicate predicate = segment.getPredicate();
+		if(predicate == null){
+			throw new InvalidFeatureException(segment);
+		}
+
+		if(!selected){
+			Boolean status = PredicateUtil.evaluate(predicate, context);
+
+			if(status == null || !status.booleanValue()){
+				return null;
 			}
 		}
 
-		return counter;
+		String id = segmentHandler.getId();
+
+		Model model = segment.getModel();
+		if(model == null){
+			throw new InvalidFeatureException(segment);
+		}
+
+		// "With the exception of modelChain models, all model elements used inside Segment elements in one MiningModel must have the same MINING-FUNCTION"
+		switch(multipleModelMethod){
+			case MODEL_CHAIN:
+				break;
+			default:
+				if(!(miningFunction).equals(model.getFunctionName())){
+					throw new InvalidFeatureException(model);
+				}
+				break;
+		}
+
+		ModelEvaluator<?> evaluator = segmentHandler.getEvaluator();
+
+		ModelEvaluationContext segmentContext = context.getSegmentContext(id);
+		if(segmentContext == null){
+			segmentContext = evaluator.createContext(context);
+
+			context.putSegmentContext(id, segmentContext);
+		}
+
+		return segmentContext;
 	}
 
+	/**
+	 * @param leaves The leaf nodes of all trees, or <code>null</code>.
+	 */
 	static
-	private boolean isRandomForest(MiningModel miningModel){
-		Segmentation segmentation = miningModel.getSegmentation();
+	private Map<FieldName, ?> evaluateSegment(SegmentHandler segmentHandler, ModelEvaluationContext segmentContext, int[] leaves, int index){
+		ModelEvaluator<?> evaluator = segmentHandler.getEvaluator();
 
-		if(segmentation == null){
-			return false;
+		if(leaves != null){
+			return ((TreeModelEvaluator)evaluator).evaluateNode(leaves[index], segmentContext);
 		}
 
-		List<Segment> segments = segmentation.getSegments();
+		return evaluator.evaluate(segmentContext);
+	}
 
-		// How many trees does it take to make a forest?
-		boolean result = (segments.size() > 3);
+	private SegmentResultMap createSegmentResult(SegmentHandler segmentHandler, ModelEvaluationContext segmentContext, Map<FieldName, ?> result, MiningModelEvaluationContext context){
+		Segment segment = segmentHandler.getSegment();
 
-		for(Segment segment : segments){
-			Model model = segment.getModel();
+		ModelEvaluator<?> evaluator = segmentHandler.getEvaluator();
 
-			result &= (model instanceof TreeModel);
+		FieldName targetField = evaluator.getTargetField();
+
+		List<FieldName> outputFields = evaluator.getOutputFields();
+		for(FieldName outputField : outputFields){
+			FieldValue outputValue = segmentContext.getField(outputField);
+			if(outputValue == null){
+				throw new MissingFieldException(outputField, segment);
+			}
+
+			// "The OutputFields from one model element can be passed as input to the MiningSchema of subsequent models"
+			context.declare(outputField, outputValue);
 		}
 
-		return result;
+		List<String> warnings = segmentContext.getWarnings();
+		for(String warning : warnings){
+			context.addWarning(warning);
+		}
+
+		SegmentResultMap segmentResult = new SegmentResultMap(segment, targetField);
+		segmentResult.putAll(result);
+
+		context.putResult(segmentHandler.getId(), segmentResult);
+
+		return segmentResult;
 	}
 
-	private static final LoadingCache<MiningModel, BiMap<String, Segment>> entityCache = CacheBuilder.newBuilder()
-		.weakKeys()
-		.build(new CacheLoader<MiningModel, BiMap<String, Segment>>(){
+	/**
+	 * <p>
+	 * Evaluates segments in chunks of {@link #getParallelThreshold() threshold} segments.
+	 * The first chunk is evaluated in this thread, and all other chunks are submitted to the executor service.
+	 * </p>
+	 *
+	 * Segment contexts only read from the parent context, which is not modified until all chunks have completed.
+	 *
+	 * @return Results in the order of segments.
+	 */
+	private List<Map<FieldName, ?>> evaluateParallel(final List<SegmentHandler> segmentHandlers, final List<ModelEvaluationContext> segmentContexts){
+		ExecutorService executorService = getExecutorService();
 
-			@Override
-			public BiMap<String, Segment> load(MiningModel miningModel){
-				BiMap<String, Segment> result = HashBiMap.create();
+		final
+		Map<?, ?>[] results = new Map<?, ?>[segmentHandlers.size()];
 
-				Segmentation segmentation = miningModel.getSegmentation();
+		int threshold = Math.max(getParallelThreshold(), 1);
 
-				EntityUtil.putAll(segmentation.getSegments(), result);
+		List<Future<?>> futures = Lists.newArrayList();
 
-				return result;
+		try {
+			for(int begin = threshold; begin < results.length; begin += threshold){
+				final
+				int chunkBegin = begin;
+
+				final
+				int chunkEnd = Math.min(begin + threshold, results.length);
+
+				Callable<Void> task = new Callable<Void>(){
+
+					@Override
+					public Void call(){
+						evaluateChunk(segmentHandlers, segmentContexts, results, chunkBegin, chunkEnd);
+
+						return null;
+					}
+				};
+
+				futures.add(executorService.submit(task));
 			}
-		});
 
-	private static final ModelEvaluatorFactory evaluatorFactory = ModelEvaluatorFactory.getInstance();
+			evaluateChunk(segmentHandlers, segmentContexts, results, 0, Math.min(threshold, results.length));
+
+			for(Future<?> future : futures){
+
+				try {
+					future.get();
+				} catch(ExecutionException ee){
+					Throwable cause = ee.getCause();
+
+					if(cause instanceof RuntimeException){
+						throw (RuntimeException)cause;
+					} else
+
+					if(cause instanceof Error){
+						throw (Error)cause;
+					}
+
+					throw (EvaluationException)new EvaluationException().initCause(cause);
+				} catch(InterruptedException ie){
+					Thread.currentThread().interrupt();
+
+					throw (EvaluationException)new EvaluationException().initCause(ie);
+				}
+			}
+		} finally {
+
+			for(Future<?> future : futures){
+				future.cancel(true);
+			}
+		}
+
+		List<Map<FieldName, ?>> result = Lists.newArrayList();
+
+		for(Map<?, ?> value : results){
+			result.add(asResult(value));
+		}
+
+		return result;
+	}
+
+	/**
+	 * @return <code>true</code> If segments should be evaluated in parallel, <code>false</code> otherwise.
+	 */
+	private boolean isParallel(MultipleModelMethodType multipleModelMethod){
+		ExecutorService executorService = getExecutorService();
+
+		if(executorService == null){
+			return false;
+		}
+
+		return isIndependent(multipleModelMethod);
+	}
+
+	/**
+	 * @return <code>true</code> If all segments are combined by a commutative method and no segment model declares output fields, <code>false</code> otherwise.
+	 */
+	private boolean isIndependent(MultipleModelMethodType multipleModelMethod){
+
+		switch(multipleModelMethod){
+			case MAJORITY_VOTE:
+			case WEIGHTED_MAJORITY_VOTE:
+			case AVERAGE:
+			case WEIGHTED_AVERAGE:
+			case SUM:
+				break;
+			default:
+				return false;
+		}
+
+		// Output fields of earlier segments are visible to the predicates of later segments
+		return !hasSegmentOutput();
+	}
+
+	/**
+	 * @return <code>true</code> If records can be evaluated segment by segment, <code>false</code> otherwise.
+	 *
+	 * @see #evaluateAll(List)
+	 */
+	private boolean isBatch(){
+		MiningModel miningModel = getModel();
+
+		// Left to the record by record evaluation, which fails the same way as before
+		if(!miningModel.isScorable() || !(miningModel.getEmbeddedModels()).isEmpty()){
+			return false;
+		}
+
+		Segmentation segmentation = miningModel.getSegmentation();
+		if(segmentation.getLocalTransformations() != null){
+			return false;
+		}
+
+		switch(miningModel.getFunctionName()){
+			case REGRESSION:
+			case CLASSIFICATION:
+			case CLUSTERING:
+				break;
+			default:
+				return false;
+		}
+
+		return isIndependent(segmentation.getMultipleModelMethod());
+	}
+
+	private boolean hasSegmentOutput(){
+		Boolean segmentOutput = this.segmentOutput;
+
+		if(segmentOutput == null){
+			segmentOutput = Boolean.FALSE;
+
+			List<SegmentHandler> segmentHandlers = getSegmentHandlers();
+			for(SegmentHandler segmentHandler : segmentHandlers){
+				Segment segment = segmentHandler.getSegment();
+
+				Model model = segment.getModel();
+
+				Output output = (model != null ? model.getOutput() : null);
+				if(output != null && !(output.getOutputFields()).isEmpty()){
+					segmentOutput = Boolean.TRUE;
+
+					break;
+				}
+			}
+
+			this.segmentOutput = segmentOutput;
+		}
+
+		return segmentOutput.booleanValue();
+	}
+
+	/**
+	 * @return <code>true</code> If segments can be skipped once the winner of the vote is known, <code>false</code> otherwise.
+	 */
+	private boolean isEarlyTermination(MultipleModelMethodType multipleModelMethod){
+
+		if(!isEarlyTermination()){
+			return false;
+		}
+
+		switch(multipleModelMethod){
+			case MAJORITY_VOTE:
+			case WEIGHTED_MAJORITY_VOTE:
+				break;
+			default:
+				return false;
+		}
+
+		return !hasVoteDistribution();
+	}
+
+	/**
+	 * @return <code>true</code> If some demanded output field depends on more than the winner of the vote, <code>false</code> otherwise.
+	 *
+	 * @see #getDemandedOutputFields()
+	 */
+	private boolean hasVoteDistribution(){
+		List<OutputField> outputFields = getDemandedOutputFields();
+
+		Map.Entry<List<OutputField>, Boolean> entry = this.voteDistribution;
+
+		// The demanded output fields are replaced, not modified, when the demanded fields change
+		if(entry == null || entry.getKey() != outputFields){
+			Boolean voteDistribution = Boolean.FALSE;
+
+			for(OutputField outputField : outputFields){
+
+				if(outputField.getSegmentId() != null){
+					voteDistribution = Boolean.TRUE;
+
+					break;
+				}
+
+				ResultFeatureType resultFeature = outputField.getFeature();
+				if(resultFeature == null){
+					continue;
+				}
+
+				switch(resultFeature){
+					case PREDICTED_VALUE:
+					case PREDICTED_DISPLAY_VALUE:
+					case TRANSFORMED_VALUE:
+					case DECISION:
+						break;
+					default:
+						voteDistribution = Boolean.TRUE;
+						break;
+				}
+
+				if(voteDistribution.booleanValue()){
+					break;
+				}
+			}
+
+			entry = new AbstractMap.SimpleImmutableEntry<List<OutputField>, Boolean>(outputFields, voteDistribution);
+
+			this.voteDistribution = entry;
+		}
+
+		return (entry.getValue()).booleanValue();
+	}
+
+	public boolean isEarlyTermination(){
+		return this.earlyTermination;
+	}
+
+	/**
+	 * <p>
+	 * Enables the early termination of the {@link MultipleModelMethodType#MAJORITY_VOTE majority vote} and {@link MultipleModelMethodType#WEIGHTED_MAJORITY_VOTE weighted majority vote} methods.
+	 * Remaining segments are skipped as soon as the leading category has more votes than any other category could reach.
+	 * The winning category is always the same as with full evaluation.
+	 * </p>
+	 *
+	 * <p>
+	 * The vote distribution of the target value covers evaluated segments only.
+	 * Therefore, early termination is not applied when some {@link #setDemandedFields(Collection) demanded} output field depends on the distribution or on individual segments,
+	 * and when segments are evaluated in parallel.
+	 * </p>
+	 *
+	 * @see MiningModelEvaluationContext#getSkippedSegments()
+	 */
+	public void setEarlyTermination(boolean earlyTermination){
+		this.earlyTermination = earlyTermination;
+	}
+
+	public Engine getEngine(){
+		return this.engine;
+	}
+
+	/**
+	 * <p>
+	 * Selects the engine that evaluates {@link TreeModel tree model} segments.
+	 * </p>
+	 *
+	 * <p>
+	 * An alternative engine is used only when every segment is a binary tree that splits continuous fields by thresholds, and no segment model declares output fields.
+	 * Otherwise, and for records where the value of some split field is missing or is not a continuous double value, segments are evaluated one by one.
+	 * Results are identical to the default engine.
+	 * </p>
+	 *
+	 * @see TreeEnsemble
+	 */
+	public void setEngine(Engine engine){
+
+		if(engine == null){
+			throw new NullPointerException();
+		}
+
+		this.engine = engine;
+
+		this.treeEnsemble = null;
+	}
+
+	public ExecutorService getExecutorService(){
+		return this.executorService;
+	}
+
+	/**
+	 * <p>
+	 * Enables the parallel evaluation of segments for the {@link MultipleModelMethodType#MAJORITY_VOTE majority vote}, {@link MultipleModelMethodType#WEIGHTED_MAJORITY_VOTE weighted majority vote},
+	 * {@link MultipleModelMethodType#AVERAGE average}, {@link MultipleModelMethodType#WEIGHTED_AVERAGE weighted average} and {@link MultipleModelMethodType#SUM sum} methods.
+	 * Segments are always evaluated sequentially for all other methods, and when segment models declare output fields.
+	 * </p>
+	 *
+	 * Results are identical to sequential evaluation.
+	 *
+	 * @param executorService The executor service, or <code>null</code> to disable parallel evaluation.
+	 */
+	public void setExecutorService(ExecutorService executorService){
+		this.executorService = executorService;
+	}
+
+	/**
+	 * @return The number of segments that are evaluated in one task.
+	 */
+	public int getParallelThreshold(){
+		return this.parallelThreshold;
+	}
+
+	public void setParallelThreshold(int parallelThreshold){
+		this.parallelThreshold = parallelThreshold;
+	}
+
+	/**
+	 * The output fields of segments are declared in the context of this model as well.
+	 * They are computed anew, because the variant record may select other segments than the base record.
+	 */
+	@Override
+	Collection<FieldName> getResultFields(){
+		Set<FieldName> result = Sets.newLinkedHashSet(super.getResultFields());
+
+		List<SegmentHandler> segmentHandlers = getSegmentHandlers();
+		for(SegmentHandler segmentHandler : segmentHandlers){
+			Segment segment = segmentHandler.getSegment();
+
+			Model model = segment.getModel();
+
+			Output output = (model != null ? model.getOutput() : null);
+			if(output != null){
+
+				for(OutputField outputField : output.getOutputFields()){
+					result.add(outputField.getName());
+				}
+			}
+		}
+
+		return result;
+	}
+
+	@Override
+	void prepareIncremental(ModelEvaluationContext context, ModelEvaluationContext baseContext, Set<FieldName> changedFields){
+		MiningModelEvaluationContext miningModelContext = (MiningModelEvaluationContext)context;
+
+		// Segment results do not include the output fields and warnings that segments declare in this context
+		if(hasSegmentOutput() || !(baseContext.getWarnings()).isEmpty()){
+			return;
+		}
+
+		miningModelContext.setBaseContext((MiningModelEvaluationContext)baseContext, changedFields);
+	}
+
+	/**
+	 * @return The result of the segment in the base record, or <code>null</code> if the segment must be evaluated.
+	 *
+	 * @see #reevaluate(ModelEvaluationContext, Map)
+	 */
+	private SegmentResultMap getBaseResult(SegmentHandler segmentHandler, MiningModelEvaluationContext context){
+		MiningModelEvaluationContext baseContext = context.getBaseContext();
+
+		if(baseContext == null){
+			return null;
+		}
+
+		// A segment that was not evaluated in the base record may have been skipped by early termination
+		SegmentResultMap baseResult = baseContext.getResult(segmentHandler.getId());
+		if(baseResult == null || segmentHandler.dependsOn(context.getChangedFields())){
+			return null;
+		}
+
+		return baseResult;
+	}
+
+	/**
+	 * @return The tree ensemble of the selected engine, or <code>null</code>.
+	 */
+	private TreeEnsemble getTreeEnsemble(){
+		Engine engine = getEngine();
+
+		if(engine == Engine.DEFAULT || !isTreeEnsemble()){
+			return null;
+		}
+
+		TreeEnsemble treeEnsemble = this.treeEnsemble;
+
+		if(treeEnsemble == null){
+			List<FlatTree> flatTrees = getFlatTrees(getModel());
+
+			switch(engine){
+				case QUICK_SCORER:
+					treeEnsemble = new QuickScorer(flatTrees);
+					break;
+				case BINNED:
+					treeEnsemble = new BinnedTreeEnsemble(flatTrees);
+					break;
+				case COMPILED:
+					// Compilation is too expensive to be repeated by every evaluator instance
+					treeEnsemble = getValue(MiningModelEvaluator.compiledTreeEnsembleCache);
+					break;
+				case BATCH:
+					treeEnsemble = new BatchTreeEnsemble(flatTrees);
+					break;
+				default:
+					throw new IllegalStateException();
+			}
+
+			this.treeEnsemble = treeEnsemble;
+		}
+
+		return treeEnsemble;
+	}
+
+	/**
+	 * @return <code>true</code> If all segments can be evaluated as a {@link TreeEnsemble tree ensemble}, <code>false</code> otherwise.
+	 */
+	private boolean isTreeEnsemble(){
+		Boolean treeEnsembleSupport = this.treeEnsembleSupport;
+
+		if(treeEnsembleSupport == null){
+			// Output fields of earlier segments are visible to later segments
+			treeEnsembleSupport = Boolean.valueOf(!hasSegmentOutput());
+
+			List<SegmentHandler> segmentHandlers = getSegmentHandlers();
+			for(int i = 0; treeEnsembleSupport.booleanValue() && i < segmentHandlers.size(); i++){
+				SegmentHandler segmentHandler = segmentHandlers.get(i);
+
+				treeEnsembleSupport = Boolean.valueOf(isTreeEnsemble(segmentHandler.getSegment()));
+			}
+
+			this.treeEnsembleSupport = treeEnsembleSupport;
+		}
+
+		return treeEnsembleSupport.booleanValue();
+	}
+
+	/**
+	 * @return The index of routed segments, or <code>null</code> if the predicates of all segments must be evaluated one by one.
+	 */
+	private SegmentIndex getSegmentIndex(){
+		MiningModel miningModel = getModel();
+
+		Segmentation segmentation = miningModel.getSegmentation();
+
+		// Output fields of earlier segments are visible to the predicates of later segments
+		switch(segmentation.getMultipleModelMethod()){
+			case MODEL_CHAIN:
+				return null;
+			default:
+				break;
+		}
+
+		if(hasSegmentOutput()){
+			return null;
+		}
+
+		return getValue(MiningModelEvaluator.segmentIndexCache);
+	}
+
+	/**
+	 * @return An immutable list of segment handlers, which is aligned with the list of segments.
+	 */
+	private List<SegmentHandler> getSegmentHandlers(){
+		List<SegmentHandler> segmentHandlers = this.segmentHandlers;
+
+		if(segmentHandlers == null){
+			MiningModel miningModel = getModel();
+
+			Segmentation segmentation = miningModel.getSegmentation();
+
+			BiMap<Segment, String> inverseEntities = (getEntityRegistry()).inverse();
+
+			ImmutableList.Builder<SegmentHandler> builder = ImmutableList.builder();
+
+			List<Segment> segments = segmentation.getSegments();
+
+			double[] remainingVotes = getRemainingVotes(segmentation);
+
+			for(int i = 0; i < segments.size(); i++){
+				Segment segment = segments.get(i);
+
+				builder.add(new SegmentHandler(segment, inverseEntities.get(segment), remainingVotes[i]));
+			}
+
+			segmentHandlers = builder.build();
+
+			this.segmentHandlers = segmentHandlers;
+		}
+
+		return segmentHandlers;
+	}
+
+	/**
+	 * @return The upper bound of votes that can be cast after each segment.
+	 */
+	static
+	private double[] getRemainingVotes(Segmentation segmentation){
+		return getRemainingVotes(segmentation, null);
+	}
+
+	/**
+	 * @param positions The positions of segments in ascending order, or <code>null</code> for all segments.
+	 *
+	 * @return The upper bound of votes that can be cast after each segment, which is aligned with the positions of segments.
+	 */
+	static
+	private double[] getRemainingVotes(Segmentation segmentation, int[] positions){
+		List<Segment> segments = segmentation.getSegments();
+
+		double[] result = new double[positions != null ? positions.length : segments.size()];
+
+		MultipleModelMethodType multipleModelMethod = segmentation.getMultipleModelMethod();
+
+		double sum = 0d;
+
+		for(int i = result.length - 1; i > -1; i--){
+			result[i] = sum;
+
+			Segment segment = segments.get(positions != null ? positions[i] : i);
+
+			switch(multipleModelMethod){
+				case WEIGHTED_MAJORITY_VOTE:
+					sum += segment.getWeight();
+					break;
+				default:
+					sum += 1d;
+					break;
+			}
+
+			// A negative weight makes it impossible to bound the remaining votes
+			if(segment.getWeight() < 0d){
+				sum = Double.POSITIVE_INFINITY;
+			}
+		}
+
+		// Account for the rounding error of summing up weights in a different order
+		double tolerance = result.length * Math.ulp(sum);
+
+		for(int i = 0; i < result.length; i++){
+			result[i] += tolerance;
+		}
+
+		return result;
+	}
+
+	static
+	private boolean isDecided(VoteCounter<Object> counter, double remainingVotes){
+		double leader = 0d;
+		double runnerUp = 0d;
+
+		Collection<Double> votes = counter.values();
+		for(Double vote : votes){
+
+			if(vote > leader){
+				runnerUp = leader;
+
+				leader = vote;
+			} else
+
+			if(vote > runnerUp){
+				runnerUp = vote;
+			}
+		}
+
+		return leader > (runnerUp + remainingVotes);
+	}
+
+	static
+	private void evaluateChunk(List<SegmentHandler> segmentHandlers, List<ModelEvaluationContext> segmentContexts, Map<?, ?>[] results, int begin, int end){
+
+		for(int i = begin; i < end; i++){
+			SegmentHandler segmentHandler = segmentHandlers.get(i);
+
+			ModelEvaluator<?> evaluator = segmentHandler.getEvaluator();
+
+			results[i] = evaluator.evaluate(segmentContexts.get(i));
+		}
+	}
+
+	@SuppressWarnings (
+		value = {"unchecked"}
+	)
+	static
+	private Map<FieldName, ?> asResult(Map<?, ?> result){
+		return (Map<FieldName, ?>)result;
+	}
+
+	static
+	private <E> E getFirst(List<E> list){
+		return list.get(0);
+	}
+
+	static
+	private <E> E getLast(List<E> list){
+		return list.get(list.size() - 1);
+	}
+
+	static
+	private Map<Object, Double> countVotes(Segmentation segmentation, List<SegmentResultMap> segmentResults){
+		VoteCounter<Object> counter = new VoteCounter<Object>();
+
+		for(SegmentResultMap segmentResult : segmentResults){
+			vote(segmentation, segmentResult, counter);
+		}
+
+		return counter;
+	}
+
+	static
+	private void vote(Segmentation segmentation, SegmentResultMap segmentResult, VoteCounter<Object> counter){
+		MultipleModelMethodType multipleModelMethod = segmentation.getMultipleModelMethod();
+
+		Object targetValue = segmentResult.getResult();
+
+		switch(multipleModelMethod){
+			case MAJORITY_VOTE:
+				counter.increment(targetValue);
+				break;
+			case WEIGHTED_MAJORITY_VOTE:
+				counter.increment(targetValue, segmentResult.getWeight());
+				break;
+			default:
+				throw new UnsupportedFeatureException(segmentation, multipleModelMethod);
+		}
+	}
+
+	static
+	private boolean isTreeEnsemble(Segment segment){
+		Model model = segment.getModel();
+
+		if(!(model instanceof TreeModel)){
+			return false;
+		}
+
+		TreeModel treeModel = (TreeModel)model;
+
+		if(!treeModel.isScorable() || treeModel.getNode() == null){
+			return false;
+		}
+
+		// Local derived fields could shadow the fields of this model
+		LocalTransformations localTransformations = treeModel.getLocalTransformations();
+		if(localTransformations != null && !(localTransformations.getDerivedFields()).isEmpty()){
+			return false;
+		}
+
+		MiningFunctionType miningFunction = treeModel.getFunctionName();
+		switch(miningFunction){
+			case REGRESSION:
+			case CLASSIFICATION:
+				break;
+			default:
+				return false;
+		}
+
+		return TreeEnsemble.isSupported(TreeModelEvaluator.getFlatTree(treeModel));
+	}
+
+	static
+	private boolean isRandomForest(MiningModel miningModel){
+		Segmentation segmentation = miningModel.getSegmentation();
+
+		if(segmentation == null){
+			return false;
+		}
+
+		List<Segment> segments = segmentation.getSegments();
+
+		// How many trees does it take to make a forest?
+		boolean result = (segments.size() > 3);
+
+		for(Segment segment : segments){
+			Model model = segment.getModel();
+
+			result &= (model instanceof TreeModel);
+		}
+
+		return result;
+	}
+
+	static
+	private List<FlatTree> getFlatTrees(MiningModel miningModel){
+		List<FlatTree> result = Lists.newArrayList();
+
+		Segmentation segmentation = miningModel.getSegmentation();
+
+		List<Segment> segments = segmentation.getSegments();
+		for(Segment segment : segments){
+			result.add(TreeModelEvaluator.getFlatTree((TreeModel)segment.getModel()));
+		}
+
+		return result;
+	}
+
+	private static final LoadingCache<MiningModel, BiMap<String, Segment>> entityCache = CacheBuilder.newBuilder()
+		.weakKeys()
+		.build(new CacheLoader<MiningModel, BiMap<String, Segment>>(){
+
+			@Override
+			public BiMap<String, Segment> load(MiningModel miningModel){
+				BiMap<String, Segment> result = HashBiMap.create();
+
+				Segmentation segmentation = miningModel.getSegmentation();
+
+				EntityUtil.putAll(segmentation.getSegments(), result);
+
+				return result;
+			}
+		});
+
+	private static final LoadingCache<MiningModel, CompiledTreeEnsemble> compiledTreeEnsembleCache = CacheBuilder.newBuilder()
+		.weakKeys()
+		.build(new CacheLoader<MiningModel, CompiledTreeEnsemble>(){
+
+			@Override
+			public CompiledTreeEnsemble load(MiningModel miningModel){
+				return new CompiledTreeEnsemble(getFlatTrees(miningModel));
+			}
+		});
+
+	private static final LoadingCache<MiningModel, SegmentIndex> segmentIndexCache = CacheBuilder.newBuilder()
+		.weakKeys()
+		.build(new CacheLoader<MiningModel, SegmentIndex>(){
+
+			@Override
+			public SegmentIndex load(MiningModel miningModel){
+				Segmentation segmentation = miningModel.getSegmentation();
+
+				return new SegmentIndex(segmentation.getSegments());
+			}
+		});
+
+	private static final ModelEvaluatorFactory evaluatorFactory = ModelEvaluatorFactory.getInstance();
+
+	/**
+	 * @see MiningModelEvaluator#setEngine(Engine)
+	 */
+	static
+	public enum Engine {
+		/**
+		 * Every segment is evaluated by its own model evaluator.
+		 */
+		DEFAULT,
+
+		/**
+		 * The trees of all segments are evaluated together with the {@link QuickScorer QuickScorer} algorithm.
+		 */
+		QUICK_SCORER,
+
+		/**
+		 * The trees of all segments are evaluated one by one over {@link BinnedTreeEnsemble binned} field values.
+		 */
+		BINNED,
+
+		/**
+		 * The trees of all segments are evaluated by a {@link CompiledTreeEnsemble generated class}.
+		 */
+		COMPILED,
+
+		/**
+		 * The trees of all segments are evaluated over batches of records by a {@link BatchTreeEnsemble vector kernel}.
+		 */
+		BATCH,
+		;
+	}
+
+	/**
+	 * The segment contexts and results of one record, which are aligned with the list of segments.
+	 */
+	static
+	private class SegmentBatch {
+
+		private ModelEvaluationContext[] segmentContexts = null;
+
+		private Map<?, ?>[] results = null;
+
+		private int[] leaves = null;
+
+
+		public SegmentBatch(int size, int[] leaves){
+			this.segmentContexts = new ModelEvaluationContext[size];
+			this.results = new Map<?, ?>[size];
+			this.leaves = leaves;
+		}
+
+		/**
+		 * @return The context for evaluating the segment model, or <code>null</code> if the segment is not selected.
+		 */
+		public ModelEvaluationContext getSegmentContext(int index){
+			return this.segmentContexts[index];
+		}
+
+		public void setSegmentContext(int index, ModelEvaluationContext segmentContext){
+			this.segmentContexts[index] = segmentContext;
+		}
+
+		public Map<FieldName, ?> getResult(int index){
+			return asResult(this.results[index]);
+		}
+
+		public void setResult(int index, Map<FieldName, ?> result){
+			this.results[index] = result;
+		}
+
+		/**
+		 * @return The leaf nodes of all trees, or <code>null</code>.
+		 */
+		public int[] getLeaves(){
+			return this.leaves;
+		}
+	}
+
+	private class SegmentHandler {
+
+		private Segment segment = null;
+
+		private String id = null;
+
+		private double remainingVotes = 0d;
+
+		private volatile ModelEvaluator<?> evaluator = null;
+
+		private volatile Set<FieldName> dependencies = null;
+
+
+		public SegmentHandler(Segment segment, String id, double remainingVotes){
+			this.segment = segment;
+			this.id = id;
+			this.remainingVotes = remainingVotes;
+		}
+
+		public Segment getSegment(){
+			return this.segment;
+		}
+
+		public String getId(){
+			return this.id;
+		}
+
+		/**
+		 * @return The upper bound of votes that the segments after this segment can cast.
+		 */
+		public double getRemainingVotes(){
+			return this.remainingVotes;
+		}
+
+		/**
+		 * The evaluator is created when the segment is evaluated for the first time, and is reused after that.
+		 * If the mining model has been compiled, then the evaluator is compiled as well,
+		 * because the segment context resolves inherited fields against the frame of the mining model context.
+		 */
+		public ModelEvaluator<?> getEvaluator(){
+			ModelEvaluator<?> evaluator = this.evaluator;
+
+			if(evaluator == null){
+				Segment segment = getSegment();
+
+				evaluator = MiningModelEvaluator.evaluatorFactory.getModelManager(getPMML(), segment.getModel());
+
+				// Compiled before it is published, so that other threads never observe an evaluator that should have been compiled
+				if(getFrameLayout() != null){
+					evaluator.compile();
+				}
+
+				this.evaluator = evaluator;
+
+				// The mining model may have been compiled in the meantime, without seeing this evaluator
+				if(getFrameLayout() != null){
+					evaluator.compile();
+				}
+			}
+
+			return evaluator;
+		}
+
+		/**
+		 * Compiles the evaluator, if it has been created.
+		 */
+		public void compileEvaluator(){
+			ModelEvaluator<?> evaluator = this.evaluator;
+
+			if(evaluator != null){
+				evaluator.compile();
+			}
+		}
+
+		/**
+		 * @return <code>true</code> if the predicate or the model of this segment depends on some of the changed fields, <code>false</code> otherwise.
+		 */
+		public boolean dependsOn(Set<FieldName> changedFields){
+			Set<FieldName> dependencies = this.dependencies;
+
+			if(dependencies == null){
+				Segment segment = getSegment();
+
+				Set<FieldName> references = Sets.newLinkedHashSet();
+				references.addAll(FieldReferenceUtil.getFieldReferences(segment.getPredicate()));
+				references.addAll(FieldReferenceUtil.getFieldReferences(segment.getModel()));
+
+				// Derived fields are resolved against both the segment model and this model
+				Map<FieldName, Set<FieldName>> segmentFieldDependencies = (getEvaluator()).getFieldDependencies();
+				Map<FieldName, Set<FieldName>> fieldDependencies = getFieldDependencies();
+
+				Set<FieldName> result = Sets.newHashSet(references);
+
+				for(FieldName reference : references){
+					Set<FieldName> segmentReferenceDependencies = segmentFieldDependencies.get(reference);
+					if(segmentReferenceDependencies != null){
+						result.addAll(segmentReferenceDependencies);
+					}
+
+					Set<FieldName> referenceDependencies = fieldDependencies.get(reference);
+					if(referenceDependencies != null){
+						result.addAll(referenceDependencies);
+					}
+				}
+
+				dependencies = ImmutableSet.copyOf(result);
+
+				this.dependencies = dependencies;
+			}
+
+			return !Collections.disjoint(dependencies, changedFields);
+		}
+	}
 }
\ No newline at end of file
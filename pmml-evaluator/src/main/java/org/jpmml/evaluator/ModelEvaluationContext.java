@@ -30,14 +30,47 @@ public class ModelEvaluationContext extends EvaluationContext {
 
 	private ModelEvaluationContext parent = null;
 
+	private FrameLayout frameLayout = null;
+
+	private FieldEntry[] entries = null;
+
+	private int[] parentSlots = null;
+
+	private PredicateMemo predicateMemo = null;
+
+	private boolean predicateMemoShared = true;
+
 
 	public ModelEvaluationContext(ModelManager<?> modelManager, ModelEvaluationContext parent){
+		this(modelManager, parent, null);
+	}
+
+	/**
+	 * @param frameLayout The slot layout of fields, or <code>null</code> if all fields should be kept in a map.
+	 *
+	 * @see ModelEvaluator#compile()
+	 */
+	public ModelEvaluationContext(ModelManager<?> modelManager, ModelEvaluationContext parent, FrameLayout frameLayout){
 		setModelManager(modelManager);
 		setParent(parent);
+		setFrameLayout(frameLayout);
+
+		if(parent == null && modelManager instanceof ModelEvaluator){
+			PredicateRegistry predicateRegistry = ((ModelEvaluator<?>)modelManager).getPredicateRegistry();
+
+			if(predicateRegistry != null){
+				this.predicateMemo = new PredicateMemo(predicateRegistry);
+			}
+		}
 	}
 
 	@Override
 	public Map.Entry<FieldName, FieldValue> getFieldEntry(FieldName name){
+		int slot = getSlot(name);
+		if(slot > -1){
+			return getFieldEntry(slot);
+		}
+
 		Map.Entry<FieldName, FieldValue> entry = super.getFieldEntry(name);
 		if(entry == null){
 			ModelEvaluationContext parent = getParent();
@@ -51,8 +84,168 @@ public class ModelEvaluationContext extends EvaluationContext {
 		return entry;
 	}
 
+	/**
+	 * <p>
+	 * Looks up a field by slot.
+	 * Undeclared slots are resolved against the frame of the parent context,
+	 * so that inherited fields are found by array indexing rather than by walking the chain of contexts by name.
+	 * </p>
+	 *
+	 * The returned entry is owned by this context, and reflects later declarations of the same field.
+	 */
+	Map.Entry<FieldName, FieldValue> getFieldEntry(int slot){
+		FieldEntry entry = this.entries[slot];
+		if(entry != null && entry.isDeclared()){
+			return entry;
+		}
+
+		ModelEvaluationContext parent = getParent();
+		if(parent != null){
+			int parentSlot = (this.parentSlots != null ? this.parentSlots[slot] : -1);
+			if(parentSlot > -1){
+				return parent.getFieldEntry(parentSlot);
+			}
+
+			FrameLayout frameLayout = getFrameLayout();
+
+			return parent.getFieldEntry(frameLayout.getName(slot));
+		}
+
+		return null;
+	}
+
+	@Override
+	boolean declare(FieldName name, FieldValue value, boolean keepExpressionValues){
+		PredicateMemo predicateMemo = this.predicateMemo;
+
+		if(predicateMemo != null && (predicateMemo.getRegistry()).isInputField(name)){
+			predicateMemo.clear();
+		}
+
+		int slot = getSlot(name);
+		if(slot > -1){
+			FieldEntry entry = this.entries[slot];
+			if(entry == null){
+				entry = new FieldEntry(name);
+
+				this.entries[slot] = entry;
+			}
+
+			boolean duplicate = entry.isDeclared();
+
+			entry.setValue(value);
+			entry.setDeclared(true);
+
+			if(!keepExpressionValues){
+				clearExpressionValues();
+			}
+
+			return duplicate;
+		}
+
+		return super.declare(name, value, keepExpressionValues);
+	}
+
+	/**
+	 * Expressions are compiled against the frame layout, so that field references are looked up by slot.
+	 */
+	@Override
+	CompiledExpression compile(PMMLObject owner, Expression expression){
+		FrameLayout frameLayout = getFrameLayout();
+		if(frameLayout != null){
+			return frameLayout.compile(owner, expression);
+		}
+
+		return super.compile(owner, expression);
+	}
+
+	@Override
+	Map<FieldName, FieldValue> getDeclaredFields(){
+		Map<FieldName, FieldValue> result = super.getDeclaredFields();
+
+		FieldEntry[] entries = this.entries;
+		if(entries != null){
+
+			for(FieldEntry entry : entries){
+
+				if(entry != null && entry.isDeclared()){
+					result.put(entry.getKey(), entry.getValue());
+				}
+			}
+		}
+
+		return result;
+	}
+
+	@Override
+	public void reset(){
+		super.reset();
+
+		PredicateMemo predicateMemo = this.predicateMemo;
+		if(predicateMemo != null){
+			predicateMemo.clear();
+		}
+
+		FieldEntry[] entries = this.entries;
+		if(entries != null){
+
+			for(FieldEntry entry : entries){
+
+				if(entry != null){
+					entry.setValue(null);
+					entry.setDeclared(false);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return The memo of the top-level context, or <code>null</code> if the memo is not shared with this context.
+	 */
+	@Override
+	PredicateMemo getPredicateMemo(){
+
+		if(this.predicateMemo != null){
+			return this.predicateMemo;
+		}
+
+		ModelEvaluationContext parent = getParent();
+		if(parent != null && this.predicateMemoShared){
+			return parent.getPredicateMemo();
+		}
+
+		return null;
+	}
+
+	/**
+	 * @param predicateMemoShared <code>true</code> if this context shares the memo of the parent context, <code>false</code> otherwise.
+	 * A context that is used by another thread must not share the memo.
+	 */
+	void setPredicateMemoShared(boolean predicateMemoShared){
+		this.predicateMemoShared = predicateMemoShared;
+	}
+
 	@Override
 	public DerivedField resolveDerivedField(FieldName name){
+		FrameLayout frameLayout = getFrameLayout();
+
+		if(frameLayout != null){
+			int slot = frameLayout.getSlot(name);
+
+			DerivedField derivedField = (slot > -1 ? frameLayout.getLocalDerivedField(slot) : null);
+			if(derivedField == null){
+				ModelEvaluationContext parent = getParent();
+				if(parent != null){
+					return parent.resolveDerivedField(name);
+				}
+
+				// All global derived fields have been assigned a slot
+				return (slot > -1 ? frameLayout.getDerivedField(slot) : null);
+			}
+
+			return derivedField;
+		}
+
 		ModelManager<?> modelManager = getModelManager();
 
 		DerivedField derivedField = modelManager.getLocalDerivedField(name);
@@ -77,6 +270,18 @@ public class ModelEvaluationContext extends EvaluationContext {
 
 	@Override
 	public FieldValue createFieldValue(FieldName name, Object value){
+		FrameLayout frameLayout = getFrameLayout();
+
+		int slot = getSlot(name);
+		if(slot > -1){
+			DataField dataField = frameLayout.getDataField(slot);
+			if(dataField != null){
+				return FieldValueUtil.create(dataField, value);
+			}
+
+			return super.createFieldValue(name, value);
+		}
+
 		ModelManager<?> modelManager = getModelManager();
 
 		DataField dataField = modelManager.getDataField(name);
@@ -87,6 +292,15 @@ public class ModelEvaluationContext extends EvaluationContext {
 		return super.createFieldValue(name, value);
 	}
 
+	private int getSlot(FieldName name){
+		FrameLayout frameLayout = getFrameLayout();
+		if(frameLayout == null){
+			return -1;
+		}
+
+		return frameLayout.getSlot(name);
+	}
+
 	public ModelManager<?> getModelManager(){
 		return this.modelManager;
 	}
@@ -102,4 +316,42 @@ public class ModelEvaluationContext extends EvaluationContext {
 	private void setParent(ModelEvaluationContext parent){
 		this.parent = parent;
 	}
+
+	public FrameLayout getFrameLayout(){
+		return this.frameLayout;
+	}
+
+	private void setFrameLayout(FrameLayout frameLayout){
+		this.frameLayout = frameLayout;
+
+		if(frameLayout != null){
+			this.entries = new FieldEntry[frameLayout.size()];
+
+			ModelEvaluationContext parent = getParent();
+
+			FrameLayout parentFrameLayout = (parent != null ? parent.getFrameLayout() : null);
+			if(parentFrameLayout != null){
+				this.parentSlots = frameLayout.getParentSlots(parentFrameLayout);
+			}
+		}
+	}
+
+	static
+	private class FieldEntry extends AbstractMap.SimpleEntry<FieldName, FieldValue> {
+
+		private boolean declared = false;
+
+
+		public FieldEntry(FieldName name){
+			super(name, null);
+		}
+
+		public boolean isDeclared(){
+			return this.declared;
+		}
+
+		public void setDeclared(boolean declared){
+			this.declared = declared;
+		}
+	}
 }
\ No newline at end of file
@@ -28,30 +28,64 @@
 package org.jpmml.evaluator;
 
 import java.util.*;
+import java.util.concurrent.*;
 
 import org.jpmml.manager.*;
 
 import org.dmg.pmml.*;
 
 import com.google.common.cache.*;
+import com.google.common.collect.*;
 
 abstract
 public class ModelEvaluator<M extends Model> extends ModelManager<M> implements Evaluator {
 
+	private volatile FrameLayout frameLayout = null;
+
+	private volatile PredicateRegistry predicateRegistry = null;
+
+	private volatile Demand demand = null;
+
+	private volatile Map<FieldName, Set<FieldName>> fieldDependencies = null;
+
+
 	public ModelEvaluator(PMML pmml, M model){
 		super(pmml, model);
+
+		this.demand = createDemand(null);
 	}
 
 	abstract
 	public Map<FieldName, ?> evaluate(ModelEvaluationContext context);
 
+	/**
+	 * Compiled evaluators prepare input fields using the {@link ArgumentPreparer preparers} of the {@link FrameLayout frame layout}.
+	 */
 	@Override
 	public FieldValue prepare(FieldName name, Object value){
-		return ArgumentUtil.prepare(getDataField(name), getMiningField(name), value);
+		FrameLayout frameLayout = getFrameLayout();
+
+		if(frameLayout != null){
+			int slot = frameLayout.getSlot(name);
+
+			ArgumentPreparer preparer = (slot > -1 ? frameLayout.getPreparer(slot) : null);
+			if(preparer != null){
+				return preparer.prepare(value);
+			}
+		}
+
+		DataField dataField = getDataField(name);
+		MiningField miningField = getMiningField(name);
+
+		return ArgumentUtil.prepare(dataField, miningField, value);
 	}
 
+	/**
+	 * Creates a context for evaluating a record.
+	 * A thread may reuse the context for evaluating more records, provided that it is {@link EvaluationContext#reset() reset} between records.
+	 */
 	public ModelEvaluationContext createContext(ModelEvaluationContext parent){
-		return new ModelEvaluationContext(this, parent);
+		return new ModelEvaluationContext(this, parent, getFrameLayout());
 	}
 
 	@Override
@@ -62,9 +96,365 @@ public class ModelEvaluator<M extends Model> extends ModelManager<M> implements
 		return evaluate(context);
 	}
 
+	/**
+	 * <p>
+	 * Evaluates a variant of a record that has been evaluated before.
+	 * </p>
+	 *
+	 * <p>
+	 * The values of input fields and derived fields are copied from the base context,
+	 * except for changed fields and derived fields that depend on them, which are computed anew.
+	 * The {@link MiningModelEvaluator ensemble model evaluator} also re-uses the results of segments that do not depend on changed fields.
+	 * Results are identical to evaluating the variant record from scratch.
+	 * </p>
+	 *
+	 * @param baseContext A context that has been used for evaluating the base record with this evaluator. It is not modified.
+	 * @param changes The values of fields that differ from the base record.
+	 */
+	public Map<FieldName, ?> reevaluate(ModelEvaluationContext baseContext, Map<FieldName, ?> changes){
+
+		if(!(this).equals(baseContext.getModelManager()) || baseContext.getParent() != null){
+			throw new IllegalArgumentException();
+		}
+
+		// Output fields are computed from the prediction, which may change
+		Set<FieldName> changedFields = Sets.newHashSet(changes.keySet());
+		changedFields.addAll(getResultFields());
+
+		ModelEvaluationContext context = createContext(null);
+
+		Map<FieldName, FieldValue> baseFields = baseContext.getDeclaredFields();
+
+		Collection<Map.Entry<FieldName, FieldValue>> entries = baseFields.entrySet();
+		for(Map.Entry<FieldName, FieldValue> entry : entries){
+			FieldName name = entry.getKey();
+
+			if(dependsOn(name, changedFields)){
+				continue;
+			}
+
+			context.declare(name, entry.getValue());
+		}
+
+		context.declareAll(changes);
+
+		prepareIncremental(context, baseContext, changedFields);
+
+		return evaluate(context);
+	}
+
+	/**
+	 * @return The names of fields that the evaluation declares in the context.
+	 *
+	 * @see #reevaluate(ModelEvaluationContext, Map)
+	 */
+	Collection<FieldName> getResultFields(){
+		return getOutputFields();
+	}
+
+	/**
+	 * Prepares a context for incremental evaluation.
+	 *
+	 * @see #reevaluate(ModelEvaluationContext, Map)
+	 */
+	void prepareIncremental(ModelEvaluationContext context, ModelEvaluationContext baseContext, Set<FieldName> changedFields){
+	}
+
+	/**
+	 * @return <code>true</code> if the value of the field depends on some of the changed fields, <code>false</code> otherwise.
+	 */
+	boolean dependsOn(FieldName name, Set<FieldName> changedFields){
+
+		if(changedFields.contains(name)){
+			return true;
+		}
+
+		Map<FieldName, Set<FieldName>> fieldDependencies = getFieldDependencies();
+
+		Set<FieldName> dependencies = fieldDependencies.get(name);
+		if(dependencies == null){
+			return false;
+		}
+
+		return !Collections.disjoint(dependencies, changedFields);
+	}
+
+	/**
+	 * @return A map from the names of local and global derived fields to the names of all fields that they depend on, directly or indirectly.
+	 */
+	Map<FieldName, Set<FieldName>> getFieldDependencies(){
+		Map<FieldName, Set<FieldName>> fieldDependencies = this.fieldDependencies;
+
+		if(fieldDependencies == null){
+			Map<FieldName, Set<FieldName>> result = Maps.newHashMap();
+
+			Set<FieldName> names = Sets.newLinkedHashSet();
+
+			TransformationDictionary transformationDictionary = getTransformationDictionary();
+			if(transformationDictionary != null){
+
+				for(DerivedField derivedField : transformationDictionary.getDerivedFields()){
+					names.add(derivedField.getName());
+				}
+			}
+
+			LocalTransformations localTransformations = getLocalTransformations();
+			if(localTransformations != null){
+
+				for(DerivedField derivedField : localTransformations.getDerivedFields()){
+					names.add(derivedField.getName());
+				}
+			}
+
+			for(FieldName name : names){
+				collectDependencies(name, result, Sets.<FieldName>newHashSet());
+			}
+
+			fieldDependencies = ImmutableMap.copyOf(result);
+
+			this.fieldDependencies = fieldDependencies;
+		}
+
+		return fieldDependencies;
+	}
+
+	/**
+	 * @return The dependencies of the field, or <code>null</code> if the field is not a derived field.
+	 */
+	private Set<FieldName> collectDependencies(FieldName name, Map<FieldName, Set<FieldName>> dependencies, Set<FieldName> visiting){
+		Set<FieldName> result = dependencies.get(name);
+
+		if(result != null){
+			return result;
+		}
+
+		DerivedField derivedField = getLocalDerivedField(name);
+		if(derivedField == null){
+			derivedField = getDerivedField(name);
+		} // End if
+
+		if(derivedField == null){
+			return null;
+		} // End if
+
+		// Circular definitions are rejected by the evaluation itself
+		if(!visiting.add(name)){
+			return Collections.emptySet();
+		}
+
+		result = Sets.newHashSet();
+
+		Set<FieldName> references = FieldReferenceUtil.getFieldReferences(derivedField);
+		references.remove(name);
+
+		for(FieldName reference : references){
+			result.add(reference);
+
+			Set<FieldName> referenceDependencies = collectDependencies(reference, dependencies, visiting);
+			if(referenceDependencies != null){
+				result.addAll(referenceDependencies);
+			}
+		}
+
+		visiting.remove(name);
+
+		result = ImmutableSet.copyOf(result);
+
+		dependencies.put(name, result);
+
+		return result;
+	}
+
+	/**
+	 * Resolves all fields to integer slots.
+	 *
+	 * Evaluation contexts that are created after this method has been called keep field values in a flat array,
+	 * which replaces repeated name-based lookups with array indexing.
+	 * The layout is computed once per model, and is shared with other evaluators of the same model.
+	 * The expressions of the model are {@link #optimize() optimized} together.
+	 * Equivalent predicates are assigned {@link PredicateRegistry canonical ids}, so that they are evaluated once per record.
+	 *
+	 * @return The slot layout of fields.
+	 *
+	 * @see #createContext(ModelEvaluationContext)
+	 */
+	public FrameLayout compile(){
+		FrameLayout frameLayout = this.frameLayout;
+
+		if(frameLayout == null){
+			M model = getModel();
+
+			Callable<FrameLayout> loader = new Callable<FrameLayout>(){
+
+				@Override
+				public FrameLayout call(){
+					FrameLayout frameLayout = new FrameLayout(ModelEvaluator.this);
+					frameLayout.optimize(ModelEvaluator.this);
+
+					return frameLayout;
+				}
+			};
+
+			frameLayout = CacheUtil.getValue(model, ModelEvaluator.frameLayoutCache, loader);
+
+			Callable<PredicateRegistry> predicateRegistryLoader = new Callable<PredicateRegistry>(){
+
+				@Override
+				public PredicateRegistry call(){
+					return new PredicateRegistry(ModelEvaluator.this);
+				}
+			};
+
+			PredicateRegistry predicateRegistry = CacheUtil.getValue(model, ModelEvaluator.predicateRegistryCache, predicateRegistryLoader);
+
+			// The memo pays off only when some predicates are equivalent
+			this.predicateRegistry = (predicateRegistry.size() > 0 ? predicateRegistry : null);
+
+			// Published last, so that a thread that observes the frame layout also observes the predicate registry
+			this.frameLayout = frameLayout;
+		}
+
+		return frameLayout;
+	}
+
+	/**
+	 * Compiles all expressions of the model together.
+	 * The optimization is performed once per model when the model is {@link #compile() compiled}, and is shared with all evaluators of the same model.
+	 * The optimized forms are kept by the {@link FrameLayout frame layout}, and are used only by evaluation contexts that use it.
+	 *
+	 * @return A report of the expressions that were folded to constants or shared, or <code>null</code> if the layout has not been optimized.
+	 *
+	 * @see ExpressionOptimizer
+	 */
+	public ExpressionOptimizer optimize(){
+		FrameLayout frameLayout = compile();
+
+		return frameLayout.getOptimizer();
+	}
+
+	/**
+	 * @return The slot layout of fields, or <code>null</code> if this evaluator has not been compiled.
+	 */
+	public FrameLayout getFrameLayout(){
+		return this.frameLayout;
+	}
+
+	/**
+	 * @return The canonical ids of predicates, or <code>null</code> if this evaluator has not been compiled or the model has no equivalent predicates.
+	 *
+	 * @see PredicateMemo
+	 */
+	PredicateRegistry getPredicateRegistry(){
+		return this.predicateRegistry;
+	}
+
+	/**
+	 * @return The names of demanded target and output fields, or <code>null</code> if all fields are demanded.
+	 */
+	public Set<FieldName> getDemandedFields(){
+		Demand demand = this.demand;
+
+		return demand.getFields();
+	}
+
+	/**
+	 * <p>
+	 * Declares the target and output fields that the application reads from evaluation results.
+	 * </p>
+	 *
+	 * <p>
+	 * Output fields that are not demanded, and that no demanded output field depends on, are not evaluated and are absent from evaluation results.
+	 * Target fields are always evaluated, because output fields are computed from them.
+	 * </p>
+	 *
+	 * @param demandedFields The names of target and output fields, or <code>null</code> to demand all fields.
+	 *
+	 * @throws IllegalArgumentException If some name is neither a target field nor an output field.
+	 */
+	public void setDemandedFields(Collection<FieldName> demandedFields){
+
+		if(demandedFields != null){
+			List<FieldName> targetFields = getTargetFields();
+			List<FieldName> outputFields = getOutputFields();
+
+			for(FieldName demandedField : demandedFields){
+
+				if(!targetFields.contains(demandedField) && !outputFields.contains(demandedField)){
+					throw new IllegalArgumentException(String.valueOf(demandedField));
+				}
+			}
+
+			this.demand = createDemand(ImmutableSet.copyOf(demandedFields));
+		} else
+
+		{
+			this.demand = createDemand(null);
+		}
+	}
+
+	/**
+	 * @return The output fields that must be evaluated.
+	 *
+	 * @see #setDemandedFields(Collection)
+	 */
+	List<OutputField> getDemandedOutputFields(){
+		Demand demand = this.demand;
+
+		return demand.getOutputFields();
+	}
+
+	private Demand createDemand(Set<FieldName> demandedFields){
+		List<OutputField> demandedOutputFields;
+
+		if(demandedFields != null){
+			demandedOutputFields = ImmutableList.copyOf(OutputUtil.getDemandedOutputFields(this, demandedFields));
+		} else
+
+		{
+			Output output = getOutput();
+
+			demandedOutputFields = (output != null ? ImmutableList.copyOf(output.getOutputFields()) : ImmutableList.<OutputField>of());
+		}
+
+		return new Demand(demandedFields, demandedOutputFields);
+	}
+
 	public <V> V getValue(LoadingCache<M, V> cache){
 		M model = getModel();
 
 		return CacheUtil.getValue(model, cache);
 	}
+
+	/**
+	 * The demanded fields together with the output fields that are derived from them, so that both are replaced by a single write.
+	 */
+	static
+	private class Demand {
+
+		private Set<FieldName> fields = null;
+
+		private List<OutputField> outputFields = null;
+
+
+		public Demand(Set<FieldName> fields, List<OutputField> outputFields){
+			this.fields = fields;
+			this.outputFields = outputFields;
+		}
+
+		public Set<FieldName> getFields(){
+			return this.fields;
+		}
+
+		public List<OutputField> getOutputFields(){
+			return this.outputFields;
+		}
+	}
+
+	private static final Cache<Model, FrameLayout> frameLayoutCache = CacheBuilder.newBuilder()
+		.weakKeys()
+		.build();
+
+	private static final Cache<Model, PredicateRegistry> predicateRegistryCache = CacheBuilder.newBuilder()
+		.weakKeys()
+		.build();
 }
\ No newline at end of file
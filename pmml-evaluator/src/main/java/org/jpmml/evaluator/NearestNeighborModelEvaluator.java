@@ -212,11 +212,27 @@ public class NearestNeighborModelEvaluator extends ModelEvaluator<NearestNeighbo
 
 		Map<Integer, List<FieldValue>> valueMap = getValue(NearestNeighborModelEvaluator.instanceValueCache);
 
+		double[] weights = MeasureUtil.getDenseWeights(comparisonMeasure, knnInputs);
+
+		double[] vector = (weights != null ? MeasureUtil.toDenseVector(values) : null);
+
+		Map<Integer, double[]> vectorMap = (vector != null ? getValue(NearestNeighborModelEvaluator.instanceVectorCache) : null);
+
 		Set<Integer> rowKeys = valueMap.keySet();
 		for(Integer rowKey : rowKeys){
 			List<FieldValue> instanceValues = valueMap.get(rowKey);
 
-			Double distance = MeasureUtil.evaluateDistance(comparisonMeasure, knnInputs, values, instanceValues, adjustment);
+			double[] instanceVector = (vectorMap != null ? vectorMap.get(rowKey) : null);
+
+			Double distance;
+
+			if(instanceVector != null){
+				distance = MeasureUtil.evaluateDistance(comparisonMeasure, weights, vector, instanceVector, adjustment);
+			} else
+
+			{
+				distance = MeasureUtil.evaluateDistance(comparisonMeasure, knnInputs, values, instanceValues, adjustment);
+			}
 
 			result.add(new InstanceResult.Distance(rowKey, distance));
 		}
@@ -720,6 +736,32 @@ public class NearestNeighborModelEvaluator extends ModelEvaluator<NearestNeighbo
 			}
 		});
 
+	/**
+	 * Training instances where some value is missing or is not a number are left out.
+	 */
+	private static final LoadingCache<NearestNeighborModel, Map<Integer, double[]>> instanceVectorCache = CacheBuilder.newBuilder()
+		.weakKeys()
+		.build(new CacheLoader<NearestNeighborModel, Map<Integer, double[]>>(){
+
+			@Override
+			public Map<Integer, double[]> load(NearestNeighborModel nearestNeighborModel){
+				Map<Integer, double[]> result = Maps.newLinkedHashMap();
+
+				Map<Integer, List<FieldValue>> valueMap = CacheUtil.getValue(nearestNeighborModel, NearestNeighborModelEvaluator.instanceValueCache);
+
+				Set<Integer> rowKeys = valueMap.keySet();
+				for(Integer rowKey : rowKeys){
+					double[] vector = MeasureUtil.toDenseVector(valueMap.get(rowKey));
+
+					if(vector != null){
+						result.put(rowKey, vector);
+					}
+				}
+
+				return result;
+			}
+		});
+
 	private static final LoadingCache<NearestNeighborModel, Map<Integer, BitSet>> instanceFlagCache = CacheBuilder.newBuilder()
 		.weakKeys()
 		.build(new CacheLoader<NearestNeighborModel, Map<Integer, BitSet>>(){
@@ -199,6 +199,8 @@ public class NeuralNetworkEvaluator extends ModelEvaluator<NeuralNetwork> implem
 			result.put(neuralInput.getId(), (value.asNumber()).doubleValue());
 		}
 
+		VectorKernel vectorKernel = VectorKernelUtil.getInstance();
+
 		List<NeuralLayer> neuralLayers = neuralNetwork.getNeuralLayers();
 		for(NeuralLayer neuralLayer : neuralLayers){
 			List<Neuron> neurons = neuralLayer.getNeurons();
@@ -207,12 +209,19 @@ public class NeuralNetworkEvaluator extends ModelEvaluator<NeuralNetwork> implem
 				double z = neuron.getBias();
 
 				List<Connection> connections = neuron.getConnections();
-				for(Connection connection : connections){
-					double input = result.get(connection.getFrom());
 
-					z += input * connection.getWeight();
+				double[] inputs = new double[connections.size()];
+
+				for(int i = 0; i < connections.size(); i++){
+					Connection connection = connections.get(i);
+
+					inputs[i] = result.get(connection.getFrom());
 				}
 
+				double[] weights = CacheUtil.getValue(neuron, NeuralNetworkEvaluator.weightCache);
+
+				z += vectorKernel.dotProduct(inputs, weights);
+
 				double output = activation(z, neuralLayer);
 
 				result.put(neuron.getId(), output);
@@ -350,6 +359,26 @@ public class NeuralNetworkEvaluator extends ModelEvaluator<NeuralNetwork> implem
 		}
 	};
 
+	private static final LoadingCache<Neuron, double[]> weightCache = CacheBuilder.newBuilder()
+		.weakKeys()
+		.build(new CacheLoader<Neuron, double[]>(){
+
+			@Override
+			public double[] load(Neuron neuron){
+				List<Connection> connections = neuron.getConnections();
+
+				double[] result = new double[connections.size()];
+
+				for(int i = 0; i < connections.size(); i++){
+					Connection connection = connections.get(i);
+
+					result[i] = connection.getWeight();
+				}
+
+				return result;
+			}
+		});
+
 	private static final LoadingCache<NeuralNetwork, BiMap<String, Entity>> entityCache = CacheBuilder.newBuilder()
 		.weakKeys()
 		.build(new CacheLoader<NeuralNetwork, BiMap<String, Entity>>(){
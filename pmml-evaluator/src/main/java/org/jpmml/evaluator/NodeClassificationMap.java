@@ -22,6 +22,16 @@ import org.dmg.pmml.*;
 
 import com.google.common.annotations.*;
 
+/**
+ * <p>
+ * The prediction of a {@link TreeModel tree model}.
+ * </p>
+ *
+ * <p>
+ * When created for a {@link NodeDistribution precomputed distribution}, the map is populated with a copy of the shared probabilities.
+ * The probabilities are not computed again, and changes to the map do not affect other predictions.
+ * </p>
+ */
 @Beta
 public class NodeClassificationMap extends EntityClassificationMap<Node> implements HasProbability {
 
@@ -33,6 +43,12 @@ public class NodeClassificationMap extends EntityClassificationMap<Node> impleme
 		super(Type.PROBABILITY, node);
 	}
 
+	protected NodeClassificationMap(Node node, NodeDistribution distribution){
+		super(Type.PROBABILITY, node);
+
+		putAll(distribution.getProbabilities());
+	}
+
 	@Override
 	public String getResult(){
 		Node node = getEntity();
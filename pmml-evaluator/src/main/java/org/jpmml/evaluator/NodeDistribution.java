@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2014 Villu Ruusmann
+ *
+ * This file is part of JPMML-Evaluator
+ *
+ * JPMML-Evaluator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Evaluator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Evaluator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.dmg.pmml.*;
+
+import com.google.common.collect.*;
+
+/**
+ * <p>
+ * The probability distribution of a {@link Node}, as defined by its {@link ScoreDistribution} elements.
+ * </p>
+ *
+ * Instances are immutable, and are shared between all predictions that end up in the same node.
+ *
+ * @see NodeClassificationMap
+ */
+public class NodeDistribution {
+
+	private Map<String, Double> probabilities = null;
+
+	private String winner = null;
+
+
+	public NodeDistribution(Node node){
+		Map<String, Double> probabilities = Maps.newLinkedHashMap();
+
+		List<ScoreDistribution> scoreDistributions = node.getScoreDistributions();
+
+		double sum = 0;
+
+		for(ScoreDistribution scoreDistribution : scoreDistributions){
+			sum += scoreDistribution.getRecordCount();
+		} // End for
+
+		for(ScoreDistribution scoreDistribution : scoreDistributions){
+			Double value = scoreDistribution.getProbability();
+			if(value == null){
+				value = (scoreDistribution.getRecordCount() / sum);
+			}
+
+			probabilities.put(scoreDistribution.getValue(), value);
+		}
+
+		this.probabilities = Collections.unmodifiableMap(probabilities);
+
+		if(!probabilities.isEmpty()){
+			NodeClassificationMap classificationMap = new NodeClassificationMap();
+			classificationMap.putAll(probabilities);
+
+			Map.Entry<String, Double> entry = classificationMap.getWinner();
+
+			this.winner = entry.getKey();
+		}
+	}
+
+	/**
+	 * @return An unmodifiable map of probabilities in document order.
+	 */
+	public Map<String, Double> getProbabilities(){
+		return this.probabilities;
+	}
+
+	/**
+	 * @return The most probable value, or <code>null</code> if the distribution is empty.
+	 */
+	public String getWinner(){
+		return this.winner;
+	}
+}
\ No newline at end of file
@@ -54,6 +54,13 @@ public class OutputUtil {
 		Map<FieldName, Object> result = Maps.newLinkedHashMap(predictions);
 
 		List<OutputField> outputFields = output.getOutputFields();
+
+		if(modelManager instanceof ModelEvaluator){
+			ModelEvaluator<?> modelEvaluator = (ModelEvaluator<?>)modelManager;
+
+			outputFields = modelEvaluator.getDemandedOutputFields();
+		}
+
 		for(OutputField outputField : outputFields){
 			Map<FieldName, ?> segmentPredictions = predictions;
 
@@ -263,7 +270,8 @@ public class OutputUtil {
 						break;
 					case WARNING:
 						{
-							value = context.getWarnings();
+							// Copy, because the list is cleared when the context is reset
+							value = ImmutableList.copyOf(context.getWarnings());
 						}
 						break;
 					default:
@@ -282,6 +290,66 @@ public class OutputUtil {
 		return result;
 	}
 
+	/**
+	 * @param demandedFields The names of target and output fields that are read from evaluation results.
+	 *
+	 * @return The demanded output fields, together with all output fields that they depend on, in document order.
+	 */
+	static
+	public List<OutputField> getDemandedOutputFields(ModelManager<?> modelManager, Set<FieldName> demandedFields){
+		Output output = modelManager.getOutput();
+		if(output == null){
+			return Collections.emptyList();
+		}
+
+		Set<FieldName> names = Sets.newHashSet();
+
+		Deque<FieldName> queue = new ArrayDeque<FieldName>(demandedFields);
+
+		while(!queue.isEmpty()){
+			FieldName name = queue.remove();
+
+			if(!names.add(name)){
+				continue;
+			}
+
+			Expression expression = null;
+
+			OutputField outputField = modelManager.getOutputField(name);
+			if(outputField != null){
+				expression = outputField.getExpression();
+			} else
+
+			{
+				DerivedField derivedField = modelManager.getLocalDerivedField(name);
+				if(derivedField == null){
+					derivedField = modelManager.getDerivedField(name);
+				} // End if
+
+				// Derived fields are computed on demand anyway, but they may refer to output fields
+				if(derivedField != null){
+					expression = derivedField.getExpression();
+				}
+			} // End if
+
+			if(expression != null){
+				queue.addAll(FieldReferenceUtil.getFieldReferences(expression));
+			}
+		}
+
+		List<OutputField> result = Lists.newArrayList();
+
+		List<OutputField> outputFields = output.getOutputFields();
+		for(OutputField outputField : outputFields){
+
+			if(names.contains(outputField.getName())){
+				result.add(outputField);
+			}
+		}
+
+		return result;
+	}
+
 	static
 	private boolean checkSegmentEntityId(Map<FieldName, ?> predictions, OutputField outputField){
 		FieldName targetField = outputField.getTargetField();
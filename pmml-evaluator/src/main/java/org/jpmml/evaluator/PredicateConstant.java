@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2014 Villu Ruusmann
+ *
+ * This file is part of JPMML-Evaluator
+ *
+ * JPMML-Evaluator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Evaluator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Evaluator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.evaluator;
+
+import org.dmg.pmml.*;
+
+/**
+ * <p>
+ * The reference value of a {@link SimplePredicate simple predicate}.
+ * </p>
+ *
+ * The value is parsed once for every data type that it is compared against.
+ * Numeric values are compared as primitives, without parsing, casting or boxing.
+ * The results are identical to {@link FieldValue#equalsString(String)} and {@link FieldValue#compareToString(String)}.
+ *
+ * @see PredicateUtil#getConstant(SimplePredicate)
+ */
+public class PredicateConstant {
+
+	private String string = null;
+
+	private Object[] values = null;
+
+	private double doubleValue = Double.NaN;
+
+	private float floatValue = Float.NaN;
+
+	private int intValue = 0;
+
+	/**
+	 * A bit mask of the numeric data types that the value could be parsed to.
+	 */
+	private int numericFlags = 0;
+
+
+	public PredicateConstant(String string){
+		this.string = string;
+
+		this.values = new Object[DataType.values().length];
+
+		if(string == null){
+			return;
+		}
+
+		try {
+			this.doubleValue = (Double)TypeUtil.parse(DataType.DOUBLE, string);
+			this.numericFlags |= FLAG_DOUBLE;
+		} catch(NumberFormatException nfe){
+			// Ignored
+		}
+
+		try {
+			this.floatValue = (Float)TypeUtil.parse(DataType.FLOAT, string);
+			this.numericFlags |= FLAG_FLOAT;
+		} catch(NumberFormatException nfe){
+			// Ignored
+		}
+
+		try {
+			this.intValue = (Integer)TypeUtil.parse(DataType.INTEGER, string);
+			this.numericFlags |= FLAG_INTEGER;
+		} catch(NumberFormatException nfe){
+			// Ignored
+		}
+	}
+
+	/**
+	 * Checks if the value is equal to this reference value.
+	 *
+	 * @see FieldValue#equalsString(String)
+	 */
+	public boolean equalsValue(FieldValue value){
+		DataType dataType = value.getDataType();
+		Object object = value.getValue();
+
+		switch(dataType){
+			case STRING:
+				if(object instanceof String && this.string != null){
+					return (object).equals(this.string);
+				}
+				break;
+			case DOUBLE:
+				if(object instanceof Double && (this.numericFlags & FLAG_DOUBLE) != 0){
+					return Double.compare((Double)object, this.doubleValue) == 0;
+				}
+				break;
+			case FLOAT:
+				if(object instanceof Float && (this.numericFlags & FLAG_FLOAT) != 0){
+					return Float.compare((Float)object, this.floatValue) == 0;
+				}
+				break;
+			case INTEGER:
+				if(object instanceof Integer && (this.numericFlags & FLAG_INTEGER) != 0){
+					return ((Integer)object).intValue() == this.intValue;
+				}
+				break;
+			default:
+				break;
+		}
+
+		return TypeUtil.equals(dataType, object, getValue(dataType));
+	}
+
+	/**
+	 * Calculates the order between the value and this reference value.
+	 *
+	 * @see FieldValue#compareToString(String)
+	 */
+	public int compareToValue(FieldValue value){
+
+		// Categorical values cannot be ordered, and ordinal values are ordered by their declared order
+		if(!(value instanceof ContinuousValue)){
+			return value.compareToString(this.string);
+		}
+
+		DataType dataType = value.getDataType();
+		Object object = value.getValue();
+
+		switch(dataType){
+			case DOUBLE:
+				if(object instanceof Double && (this.numericFlags & FLAG_DOUBLE) != 0){
+					return Double.compare((Double)object, this.doubleValue);
+				}
+				break;
+			case FLOAT:
+				if(object instanceof Float && (this.numericFlags & FLAG_FLOAT) != 0){
+					return Float.compare((Float)object, this.floatValue);
+				}
+				break;
+			case INTEGER:
+				if(object instanceof Integer && (this.numericFlags & FLAG_INTEGER) != 0){
+					int intValue = ((Integer)object).intValue();
+
+					return (intValue < this.intValue ? -1 : (intValue == this.intValue ? 0 : 1));
+				}
+				break;
+			default:
+				break;
+		}
+
+		return TypeUtil.compare(dataType, object, getValue(dataType));
+	}
+
+	/**
+	 * @return The value parsed to the specified data type.
+	 */
+	public Object getValue(DataType dataType){
+		int index = dataType.ordinal();
+
+		// Parsed values are immutable, so that publishing them without synchronization is safe
+		Object value = this.values[index];
+		if(value == null){
+			value = TypeUtil.parse(dataType, this.string);
+
+			this.values[index] = value;
+		}
+
+		return value;
+	}
+
+	public String getString(){
+		return this.string;
+	}
+
+	private static final int FLAG_DOUBLE = 1;
+	private static final int FLAG_FLOAT = 2;
+	private static final int FLAG_INTEGER = 4;
+}
\ No newline at end of file
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2014 Villu Ruusmann
+ *
+ * This file is part of JPMML-Evaluator
+ *
+ * JPMML-Evaluator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Evaluator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Evaluator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.dmg.pmml.*;
+
+/**
+ * <p>
+ * Keeps the values of predicates that have been evaluated for the current record.
+ * </p>
+ *
+ * Every predicate occupies two bits, which are indexed by its {@link PredicateRegistry canonical id}.
+ * The memo is owned by the top-level {@link ModelEvaluationContext evaluation context}, and is shared by the contexts of all segment models.
+ * It is cleared when the context is reset, and when an input field is declared.
+ */
+public class PredicateMemo {
+
+	private PredicateRegistry registry = null;
+
+	private BitSet bits = null;
+
+
+	public PredicateMemo(PredicateRegistry registry){
+		this.registry = registry;
+		this.bits = new BitSet(2 * registry.size());
+	}
+
+	/**
+	 * @return The id of the predicate, or <code>-1</code> if the value of the predicate is not memoized.
+	 */
+	public int getId(Predicate predicate){
+		return this.registry.getId(predicate);
+	}
+
+	/**
+	 * @return <code>true</code> if the value of the predicate with the specified id has been memoized, <code>false</code> otherwise.
+	 */
+	public boolean contains(int id){
+		return this.bits.get(2 * id) || this.bits.get(2 * id + 1);
+	}
+
+	/**
+	 * @return The memoized value, or <code>null</code> if the memoized value is unknown.
+	 *
+	 * @see #contains(int)
+	 */
+	public Boolean get(int id){
+		boolean isFalse = this.bits.get(2 * id);
+		boolean isTrue = this.bits.get(2 * id + 1);
+
+		if(isFalse && isTrue){
+			return null;
+		}
+
+		return Boolean.valueOf(isTrue);
+	}
+
+	public void put(int id, Boolean value){
+
+		if(value == null || !value.booleanValue()){
+			this.bits.set(2 * id);
+		} // End if
+
+		if(value == null || value.booleanValue()){
+			this.bits.set(2 * id + 1);
+		}
+	}
+
+	public void clear(){
+		this.bits.clear();
+	}
+
+	public PredicateRegistry getRegistry(){
+		return this.registry;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2014 Villu Ruusmann
+ *
+ * This file is part of JPMML-Evaluator
+ *
+ * JPMML-Evaluator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Evaluator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Evaluator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.jpmml.manager.*;
+
+import org.dmg.pmml.*;
+
+import com.google.common.collect.*;
+
+/**
+ * <p>
+ * Assigns canonical ids to the {@link SimplePredicate simple predicates} and {@link SimpleSetPredicate simple set predicates} of a model,
+ * so that predicates that make the same test are evaluated once per record.
+ * </p>
+ *
+ * <p>
+ * Predicates are equivalent when they test the same field with the same operator and the same reference value or values.
+ * Only predicates that have at least one equivalent predicate are assigned an id.
+ * Ids are assigned to predicates that test the input fields of the model.
+ * Input fields are declared before the evaluation, and are not redefined by segment models.
+ * Predicates that test derived fields and output fields are not assigned ids,
+ * because their values may differ between segment models.
+ * </p>
+ *
+ * @see PredicateMemo
+ * @see ModelEvaluator#compile()
+ */
+public class PredicateRegistry {
+
+	private Set<FieldName> fields = null;
+
+	private Map<Predicate, Integer> ids = null;
+
+	private int size = 0;
+
+
+	public PredicateRegistry(ModelManager<?> modelManager){
+		final
+		Set<FieldName> fields = Sets.newHashSet();
+
+		MiningSchema miningSchema = modelManager.getMiningSchema();
+		for(MiningField miningField : miningSchema.getMiningFields()){
+			fields.add(miningField.getName());
+		}
+
+		Visitor definitionVisitor = new AbstractVisitor(){
+
+			@Override
+			public VisitorAction visit(DerivedField derivedField){
+				fields.remove(derivedField.getName());
+
+				return super.visit(derivedField);
+			}
+
+			@Override
+			public VisitorAction visit(OutputField outputField){
+				fields.remove(outputField.getName());
+
+				return super.visit(outputField);
+			}
+		};
+
+		PMML pmml = modelManager.getPMML();
+		pmml.accept(definitionVisitor);
+
+		final
+		ListMultimap<List<?>, Predicate> predicates = ArrayListMultimap.create();
+
+		Visitor predicateVisitor = new AbstractVisitor(){
+
+			@Override
+			public VisitorAction visit(SimplePredicate simplePredicate){
+				FieldName field = simplePredicate.getField();
+
+				if(fields.contains(field)){
+					predicates.put(Arrays.asList(SimplePredicate.class, field, simplePredicate.getOperator(), simplePredicate.getValue()), simplePredicate);
+				}
+
+				return super.visit(simplePredicate);
+			}
+
+			@Override
+			public VisitorAction visit(SimpleSetPredicate simpleSetPredicate){
+				FieldName field = simpleSetPredicate.getField();
+				Array array = simpleSetPredicate.getArray();
+
+				if(fields.contains(field) && array != null){
+					predicates.put(Arrays.asList(SimpleSetPredicate.class, field, simpleSetPredicate.getBooleanOperator(), array.getType(), ArrayUtil.getContent(array)), simpleSetPredicate);
+				}
+
+				return super.visit(simpleSetPredicate);
+			}
+		};
+
+		Model model = modelManager.getModel();
+		model.accept(predicateVisitor);
+
+		Map<Predicate, Integer> ids = Maps.newIdentityHashMap();
+
+		int id = 0;
+
+		Collection<List<Predicate>> equivalentPredicates = Multimaps.asMap(predicates).values();
+		for(List<Predicate> equivalents : equivalentPredicates){
+
+			if(equivalents.size() < 2){
+				continue;
+			}
+
+			for(Predicate predicate : equivalents){
+				ids.put(predicate, id);
+			}
+
+			id++;
+		}
+
+		this.fields = ImmutableSet.copyOf(fields);
+		this.ids = ids;
+		this.size = id;
+	}
+
+	/**
+	 * @return The id of the predicate, or <code>-1</code> if the predicate has no equivalent predicates.
+	 */
+	public int getId(Predicate predicate){
+		Integer id = this.ids.get(predicate);
+		if(id == null){
+			return -1;
+		}
+
+		return id.intValue();
+	}
+
+	/**
+	 * @return <code>true</code> if the predicates that test the field are assigned ids, <code>false</code> otherwise.
+	 */
+	public boolean isInputField(FieldName name){
+		return this.fields.contains(name);
+	}
+
+	/**
+	 * @return The number of ids.
+	 */
+	public int size(){
+		return this.size;
+	}
+}
\ No newline at end of file
@@ -28,11 +28,16 @@
 package org.jpmml.evaluator;
 
 import java.util.*;
+import java.util.concurrent.*;
 
 import org.jpmml.manager.*;
 
 import org.dmg.pmml.*;
 
+import com.google.common.cache.*;
+import com.google.common.collect.*;
+import com.google.common.primitives.*;
+
 public class PredicateUtil {
 
 	private PredicateUtil(){
@@ -43,6 +48,30 @@ public class PredicateUtil {
 	 */
 	static
 	public Boolean evaluate(Predicate predicate, EvaluationContext context){
+		PredicateMemo predicateMemo = context.getPredicateMemo();
+
+		if(predicateMemo != null){
+			int id = predicateMemo.getId(predicate);
+
+			if(id > -1){
+
+				if(predicateMemo.contains(id)){
+					return predicateMemo.get(id);
+				}
+
+				Boolean result = evaluatePredicate(predicate, context);
+
+				predicateMemo.put(id, result);
+
+				return result;
+			}
+		}
+
+		return evaluatePredicate(predicate, context);
+	}
+
+	static
+	private Boolean evaluatePredicate(Predicate predicate, EvaluationContext context){
 
 		if(predicate instanceof SimplePredicate){
 			return evaluateSimplePredicate((SimplePredicate)predicate, context);
@@ -73,6 +102,14 @@ public class PredicateUtil {
 	public Boolean evaluateSimplePredicate(SimplePredicate simplePredicate, EvaluationContext context){
 		FieldValue value = ExpressionUtil.evaluate(simplePredicate.getField(), context);
 
+		return evaluateSimplePredicate(simplePredicate, value);
+	}
+
+	/**
+	 * @param value The value of the field, or <code>null</code> if the field is missing.
+	 */
+	static
+	public Boolean evaluateSimplePredicate(SimplePredicate simplePredicate, FieldValue value){
 		SimplePredicate.Operator operator = simplePredicate.getOperator();
 		switch(operator){
 			case IS_MISSING:
@@ -88,16 +125,18 @@ public class PredicateUtil {
 			return null;
 		}
 
+		PredicateConstant constant = getConstant(simplePredicate);
+
 		switch(operator){
 			case EQUAL:
-				return value.equalsString(simplePredicate.getValue());
+				return constant.equalsValue(value);
 			case NOT_EQUAL:
-				return !value.equalsString(simplePredicate.getValue());
+				return !constant.equalsValue(value);
 			default:
 				break;
 		}
 
-		int order = value.compareToString(simplePredicate.getValue());
+		int order = constant.compareToValue(value);
 
 		switch(operator){
 			case LESS_THAN:
@@ -113,6 +152,14 @@ public class PredicateUtil {
 		}
 	}
 
+	/**
+	 * @return The reference value of the predicate, which is shared between all evaluators.
+	 */
+	static
+	public PredicateConstant getConstant(SimplePredicate simplePredicate){
+		return CacheUtil.getValue(simplePredicate, PredicateUtil.constantCache);
+	}
+
 	static
 	public Boolean evaluateCompoundPredicate(CompoundPredicate compoundPredicate, EvaluationContext context){
 		List<Predicate> predicates = compoundPredicate.getPredicates();
@@ -120,12 +167,19 @@ public class PredicateUtil {
 			throw new InvalidFeatureException(compoundPredicate);
 		}
 
-		Boolean result = evaluate(predicates.get(0), context);
-
 		CompoundPredicate.BooleanOperator booleanOperator = compoundPredicate.getBooleanOperator();
 		switch(booleanOperator){
 			case AND:
+				return evaluateAnd(getEvaluationOrder(compoundPredicate, context), context);
 			case OR:
+				return evaluateOr(getEvaluationOrder(compoundPredicate, context), context);
+			default:
+				break;
+		}
+
+		Boolean result = evaluate(predicates.get(0), context);
+
+		switch(booleanOperator){
 			case XOR:
 				break;
 			case SURROGATE:
@@ -143,12 +197,6 @@ public class PredicateUtil {
 			Boolean value = evaluate(predicate, context);
 
 			switch(booleanOperator){
-				case AND:
-					result = PredicateUtil.binaryAnd(result, value);
-					break;
-				case OR:
-					result = PredicateUtil.binaryOr(result, value);
-					break;
 				case XOR:
 					result = PredicateUtil.binaryXor(result, value);
 					break;
@@ -165,6 +213,146 @@ public class PredicateUtil {
 		return result;
 	}
 
+	/**
+	 * Evaluates predicates until one of them evaluates to <code>false</code>.
+	 * The remaining predicates cannot change the result, because <code>false</code> is absorbing also when other predicates evaluate to unknown.
+	 */
+	static
+	private Boolean evaluateAnd(List<Predicate> predicates, EvaluationContext context){
+		Boolean result = Boolean.TRUE;
+
+		for(Predicate predicate : predicates){
+			Boolean value = evaluate(predicate, context);
+
+			if(value != null && !value.booleanValue()){
+				return Boolean.FALSE;
+			}
+
+			result = PredicateUtil.binaryAnd(result, value);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Evaluates predicates until one of them evaluates to <code>true</code>.
+	 *
+	 * @see #evaluateAnd(List, EvaluationContext)
+	 */
+	static
+	private Boolean evaluateOr(List<Predicate> predicates, EvaluationContext context){
+		Boolean result = Boolean.FALSE;
+
+		for(Predicate predicate : predicates){
+			Boolean value = evaluate(predicate, context);
+
+			if(value != null && value.booleanValue()){
+				return Boolean.TRUE;
+			}
+
+			result = PredicateUtil.binaryOr(result, value);
+		}
+
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * Orders the predicates of an <code>and</code> or <code>or</code> compound predicate by their estimated cost, so that cheap predicates get to short-circuit expensive ones.
+	 * Predicates of equal cost stay in document order.
+	 * </p>
+	 *
+	 * The three-valued <code>and</code> and <code>or</code> operators are commutative, so the order does not affect the result.
+	 * The <code>xor</code> operator needs the values of all predicates, and the <code>surrogate</code> operator is defined by the document order.
+	 */
+	static
+	List<Predicate> getEvaluationOrder(final CompoundPredicate compoundPredicate, final EvaluationContext context){
+		Callable<List<Predicate>> loader = new Callable<List<Predicate>>(){
+
+			@Override
+			public List<Predicate> call(){
+				List<Predicate> predicates = compoundPredicate.getPredicates();
+
+				final
+				Map<Predicate, Integer> costs = Maps.newIdentityHashMap();
+
+				boolean ordered = true;
+
+				int previousCost = 0;
+
+				for(Predicate predicate : predicates){
+					int cost = estimateCost(predicate, context);
+
+					ordered &= (cost >= previousCost);
+
+					costs.put(predicate, cost);
+
+					previousCost = cost;
+				}
+
+				if(ordered){
+					return predicates;
+				}
+
+				Comparator<Predicate> comparator = new Comparator<Predicate>(){
+
+					@Override
+					public int compare(Predicate left, Predicate right){
+						return Ints.compare(costs.get(left), costs.get(right));
+					}
+				};
+
+				// The sort is stable
+				List<Predicate> result = Lists.newArrayList(predicates);
+				Collections.sort(result, comparator);
+
+				return ImmutableList.copyOf(result);
+			}
+		};
+
+		return CacheUtil.getValue(compoundPredicate, PredicateUtil.evaluationOrderCache, loader);
+	}
+
+	/**
+	 * Estimates the cost of evaluating a predicate.
+	 * A field reference is cheap when it is an input field, and expensive when it is a derived field that may need to be computed.
+	 */
+	static
+	private int estimateCost(Predicate predicate, EvaluationContext context){
+
+		if(predicate instanceof SimplePredicate){
+			return estimateCost(((SimplePredicate)predicate).getField(), context);
+		} else
+
+		if(predicate instanceof SimpleSetPredicate){
+			return estimateCost(((SimpleSetPredicate)predicate).getField(), context) + 1;
+		} else
+
+		if(predicate instanceof CompoundPredicate){
+			int result = 0;
+
+			List<Predicate> predicates = ((CompoundPredicate)predicate).getPredicates();
+			for(Predicate child : predicates){
+				result += estimateCost(child, context);
+			}
+
+			return result;
+		} else
+
+		if(predicate instanceof True || predicate instanceof False){
+			return 0;
+		}
+
+		return 1;
+	}
+
+	static
+	private int estimateCost(FieldName name, EvaluationContext context){
+		DerivedField derivedField = context.resolveDerivedField(name);
+
+		return (derivedField != null ? PredicateUtil.DERIVED_FIELD_COST : 1);
+	}
+
 	static
 	public Boolean evaluateSimpleSetPredicate(SimpleSetPredicate simpleSetPredicate, EvaluationContext context){
 		FieldValue value = ExpressionUtil.evaluate(simpleSetPredicate.getField(), context);
@@ -172,21 +360,42 @@ public class PredicateUtil {
 			throw new MissingFieldException(simpleSetPredicate.getField(), simpleSetPredicate);
 		}
 
-		Array array = simpleSetPredicate.getArray();
+		boolean isIn;
+
+		CategoryIndex categoryIndex = getCategoryIndex(simpleSetPredicate);
+
+		int[] positions = categoryIndex.lookup(value);
+		if(positions != null){
+			isIn = (positions.length > 0);
+		} else
+
+		{
+			Array array = simpleSetPredicate.getArray();
+
+			List<String> content = ArrayUtil.getContent(array);
 
-		List<String> content = ArrayUtil.getContent(array);
+			isIn = value.equalsAnyString(content);
+		}
 
 		SimpleSetPredicate.BooleanOperator booleanOperator = simpleSetPredicate.getBooleanOperator();
 		switch(booleanOperator){
 			case IS_IN:
-				return value.equalsAnyString(content);
+				return isIn;
 			case IS_NOT_IN:
-				return !value.equalsAnyString(content);
+				return !isIn;
 			default:
 				throw new UnsupportedFeatureException(simpleSetPredicate, booleanOperator);
 		}
 	}
 
+	/**
+	 * @return A single-position index over the elements of the array, which is shared between all evaluators.
+	 */
+	static
+	public CategoryIndex getCategoryIndex(SimpleSetPredicate simpleSetPredicate){
+		return CacheUtil.getValue(simpleSetPredicate, PredicateUtil.categoryIndexCache);
+	}
+
 	static
 	public Boolean evaluateTrue(True truePredicate){
 		return Boolean.TRUE;
@@ -254,4 +463,37 @@ public class PredicateUtil {
 			return Boolean.valueOf(left.booleanValue() ^ right.booleanValue());
 		}
 	}
+
+	private static final int DERIVED_FIELD_COST = 10;
+
+	private static final Cache<CompoundPredicate, List<Predicate>> evaluationOrderCache = CacheBuilder.newBuilder()
+		.weakKeys()
+		.build();
+
+	private static final LoadingCache<SimplePredicate, PredicateConstant> constantCache = CacheBuilder.newBuilder()
+		.weakKeys()
+		.build(new CacheLoader<SimplePredicate, PredicateConstant>(){
+
+			@Override
+			public PredicateConstant load(SimplePredicate simplePredicate){
+				return new PredicateConstant(simplePredicate.getValue());
+			}
+		});
+
+	private static final LoadingCache<SimpleSetPredicate, CategoryIndex> categoryIndexCache = CacheBuilder.newBuilder()
+		.weakKeys()
+		.build(new CacheLoader<SimpleSetPredicate, CategoryIndex>(){
+
+			@Override
+			public CategoryIndex load(SimpleSetPredicate simpleSetPredicate){
+				Array array = simpleSetPredicate.getArray();
+				if(array == null){
+					throw new InvalidFeatureException(simpleSetPredicate);
+				}
+
+				List<List<String>> categories = Collections.singletonList(ArrayUtil.getContent(array));
+
+				return new CategoryIndex(simpleSetPredicate.getField(), categories);
+			}
+		});
 }
\ No newline at end of file
@@ -0,0 +1,352 @@
+/*
+ * Copyright (c) 2014 Villu Ruusmann
+ *
+ * This file is part of JPMML-Evaluator
+ *
+ * JPMML-Evaluator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Evaluator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Evaluator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import com.google.common.collect.*;
+import com.google.common.primitives.*;
+
+/**
+ * <p>
+ * Evaluates a {@link TreeEnsemble tree ensemble} with the QuickScorer algorithm.
+ * </p>
+ *
+ * The leaf nodes of every tree are numbered from left to right, where the low child of a branch node is the left child.
+ * Every tree keeps a bitvector of leaf nodes that are still reachable.
+ * The splits of all trees are grouped by field, and are visited in the ascending order of thresholds.
+ * A split that sends the value to the high child clears the leaf nodes of its low subtree from the bitvector,
+ * and the visit stops at the first split that sends the value to the low child.
+ * The leftmost reachable leaf node of every tree is then the leaf node that tree-by-tree traversal would reach.
+ * The leaf nodes of a low subtree are consecutive, so the bitmask of a split spans only the words of its low subtree.
+ *
+ * @see MiningModelEvaluator.Engine#QUICK_SCORER
+ */
+public class QuickScorer extends TreeEnsemble {
+
+	/**
+	 * Per field, the range of splits in {@link #thresholds}.
+	 */
+	private int[] fieldOffsets = null;
+
+	private double[] thresholds = null;
+
+	private boolean[] strict = null;
+
+	private int[] splitTrees = null;
+
+	/**
+	 * Per split, the offset of its bitmask in {@link #masks}.
+	 */
+	private int[] maskOffsets = null;
+
+	/**
+	 * Per split, the offset of the first masked word in the bitvector of the tree.
+	 */
+	private int[] maskWords = null;
+
+	private int[] maskLengths = null;
+
+	private long[] masks = null;
+
+	/**
+	 * Per tree, the offset of its bitvector in {@link #initialBitvectors}.
+	 */
+	private int[] treeOffsets = null;
+
+	private int[] treeWords = null;
+
+	private long[] initialBitvectors = null;
+
+	/**
+	 * Per tree, the offset of its leaf nodes in {@link #leaves}.
+	 */
+	private int[] leafOffsets = null;
+
+	private int[] leaves = null;
+
+
+	public QuickScorer(List<FlatTree> flatTrees){
+		super(flatTrees);
+
+		int size = size();
+
+		List<List<Condition>> fieldConditions = Lists.newArrayList();
+
+		for(int i = 0; i < getFieldCount(); i++){
+			fieldConditions.add(Lists.<Condition>newArrayList());
+		}
+
+		this.treeOffsets = new int[size];
+		this.treeWords = new int[size];
+		this.leafOffsets = new int[size];
+
+		List<Long> masks = Lists.newArrayList();
+		List<Long> initialBitvectors = Lists.newArrayList();
+		List<Integer> leaves = Lists.newArrayList();
+
+		for(int i = 0; i < size; i++){
+			List<Integer> treeLeaves = Lists.newArrayList();
+
+			// Per node, the range of leaf ordinals in the subtree
+			Map<Integer, int[]> ranges = Maps.newHashMap();
+
+			collectLeaves(i, 0, treeLeaves, ranges);
+
+			int words = (treeLeaves.size() + 63) / 64;
+
+			this.treeOffsets[i] = initialBitvectors.size();
+			this.treeWords[i] = words;
+			this.leafOffsets[i] = leaves.size();
+
+			for(long word : createBitvector(treeLeaves.size(), words)){
+				initialBitvectors.add(word);
+			}
+
+			leaves.addAll(treeLeaves);
+
+			FlatTree flatTree = getFlatTree(i);
+
+			for(int j = 0; j < flatTree.size(); j++){
+				int field = getSplitField(i, j);
+
+				if(field < 0){
+					continue;
+				}
+
+				int[] lowRange = ranges.get(getLowChild(i, j));
+
+				long[] mask = createMask(lowRange[0], lowRange[1]);
+
+				Condition condition = new Condition(getThreshold(i, j), isStrict(i, j), i, masks.size(), lowRange[0] / 64, mask.length);
+
+				for(long word : mask){
+					masks.add(word);
+				}
+
+				(fieldConditions.get(field)).add(condition);
+			}
+		}
+
+		this.fieldOffsets = new int[getFieldCount() + 1];
+
+		List<Condition> conditions = Lists.newArrayList();
+
+		for(int i = 0; i < getFieldCount(); i++){
+			List<Condition> values = fieldConditions.get(i);
+
+			Collections.sort(values);
+
+			this.fieldOffsets[i] = conditions.size();
+
+			conditions.addAll(values);
+		}
+
+		this.fieldOffsets[getFieldCount()] = conditions.size();
+
+		this.thresholds = new double[conditions.size()];
+		this.strict = new boolean[conditions.size()];
+		this.splitTrees = new int[conditions.size()];
+		this.maskOffsets = new int[conditions.size()];
+		this.maskWords = new int[conditions.size()];
+		this.maskLengths = new int[conditions.size()];
+
+		for(int i = 0; i < conditions.size(); i++){
+			Condition condition = conditions.get(i);
+
+			this.thresholds[i] = condition.getThreshold();
+			this.strict[i] = condition.isStrict();
+			this.splitTrees[i] = condition.getTree();
+			this.maskOffsets[i] = condition.getMaskOffset();
+			this.maskWords[i] = condition.getMaskWord();
+			this.maskLengths[i] = condition.getMaskLength();
+		}
+
+		this.masks = Longs.toArray(masks);
+		this.initialBitvectors = Longs.toArray(initialBitvectors);
+		this.leaves = Ints.toArray(leaves);
+	}
+
+	@Override
+	public int[] evaluate(EvaluationContext context){
+		double[] values = getValues(context);
+		if(values == null){
+			return null;
+		}
+
+		long[] bitvectors = this.initialBitvectors.clone();
+
+		for(int i = 0; i < values.length; i++){
+			double value = values[i];
+
+			for(int j = this.fieldOffsets[i]; j < this.fieldOffsets[i + 1]; j++){
+
+				int order = Double.compare(value, this.thresholds[j]);
+
+				// Splits are sorted by threshold, so all remaining splits send the value to the low child
+				if(order < 0){
+					break;
+				} // End if
+
+				if(order == 0 && !this.strict[j]){
+					continue;
+				}
+
+				int tree = this.splitTrees[j];
+
+				int offset = this.treeOffsets[tree] + this.maskWords[j];
+				int maskOffset = this.maskOffsets[j];
+
+				for(int k = 0; k < this.maskLengths[j]; k++){
+					bitvectors[offset + k] &= this.masks[maskOffset + k];
+				}
+			}
+		}
+
+		int[] result = new int[size()];
+
+		for(int i = 0; i < result.length; i++){
+			int offset = this.treeOffsets[i];
+
+			int leaf = -1;
+
+			for(int k = 0; k < this.treeWords[i]; k++){
+				long word = bitvectors[offset + k];
+
+				if(word != 0L){
+					leaf = (k * 64) + Long.numberOfTrailingZeros(word);
+
+					break;
+				}
+			}
+
+			// All leaf nodes of the tree cannot be cleared, because exactly one child of every branch node is taken
+			if(leaf < 0){
+				throw new IllegalStateException();
+			}
+
+			result[i] = this.leaves[this.leafOffsets[i] + leaf];
+		}
+
+		return result;
+	}
+
+	private void collectLeaves(int tree, int index, List<Integer> leaves, Map<Integer, int[]> ranges){
+		int begin = leaves.size();
+
+		if(getSplitField(tree, index) < 0){
+			leaves.add(index);
+		} else
+
+		{
+			collectLeaves(tree, getLowChild(tree, index), leaves, ranges);
+			collectLeaves(tree, getHighChild(tree, index), leaves, ranges);
+		}
+
+		ranges.put(index, new int[]{begin, leaves.size()});
+	}
+
+	/**
+	 * @return A bitvector where the bits of leaf ordinals <code>[0, size)</code> are set.
+	 */
+	static
+	private long[] createBitvector(int size, int words){
+		long[] result = new long[words];
+
+		for(int i = 0; i < size; i++){
+			result[i / 64] |= (1L << (i % 64));
+		}
+
+		return result;
+	}
+
+	/**
+	 * @return A bitmask over the words from <code>begin / 64</code> to <code>(end - 1) / 64</code>, where all bits are set except for the bits of leaf ordinals <code>[begin, end)</code>.
+	 */
+	static
+	private long[] createMask(int begin, int end){
+		int firstWord = begin / 64;
+		int lastWord = (end - 1) / 64;
+
+		long[] result = new long[lastWord - firstWord + 1];
+
+		Arrays.fill(result, -1L);
+
+		for(int i = begin; i < end; i++){
+			result[(i / 64) - firstWord] &= ~(1L << (i % 64));
+		}
+
+		return result;
+	}
+
+	static
+	private class Condition implements Comparable<Condition> {
+
+		private double threshold = 0d;
+
+		private boolean strict = false;
+
+		private int tree = -1;
+
+		private int maskOffset = -1;
+
+		private int maskWord = -1;
+
+		private int maskLength = -1;
+
+
+		public Condition(double threshold, boolean strict, int tree, int maskOffset, int maskWord, int maskLength){
+			this.threshold = threshold;
+			this.strict = strict;
+			this.tree = tree;
+			this.maskOffset = maskOffset;
+			this.maskWord = maskWord;
+			this.maskLength = maskLength;
+		}
+
+		@Override
+		public int compareTo(Condition that){
+			return Double.compare(this.getThreshold(), that.getThreshold());
+		}
+
+		public double getThreshold(){
+			return this.threshold;
+		}
+
+		public boolean isStrict(){
+			return this.strict;
+		}
+
+		public int getTree(){
+			return this.tree;
+		}
+
+		public int getMaskOffset(){
+			return this.maskOffset;
+		}
+
+		public int getMaskWord(){
+			return this.maskWord;
+		}
+
+		public int getMaskLength(){
+			return this.maskLength;
+		}
+	}
+}
\ No newline at end of file
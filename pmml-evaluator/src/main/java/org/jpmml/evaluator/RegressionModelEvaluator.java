@@ -24,6 +24,8 @@ import org.jpmml.manager.*;
 
 import org.dmg.pmml.*;
 
+import com.google.common.cache.*;
+
 public class RegressionModelEvaluator extends ModelEvaluator<RegressionModel> {
 
 	public RegressionModelEvaluator(PMML pmml){
@@ -144,7 +146,12 @@ public class RegressionModelEvaluator extends ModelEvaluator<RegressionModel> {
 		result += regressionTable.getIntercept();
 
 		List<NumericPredictor> numericPredictors = regressionTable.getNumericPredictors();
-		for(NumericPredictor numericPredictor : numericPredictors){
+
+		double[] values = new double[numericPredictors.size()];
+
+		for(int i = 0; i < numericPredictors.size(); i++){
+			NumericPredictor numericPredictor = numericPredictors.get(i);
+
 			FieldName name = numericPredictor.getName();
 
 			FieldValue value = ExpressionUtil.evaluate(name, context);
@@ -156,7 +163,15 @@ public class RegressionModelEvaluator extends ModelEvaluator<RegressionModel> {
 				return null;
 			}
 
-			result += numericPredictor.getCoefficient() * Math.pow((value.asNumber()).doubleValue(), numericPredictor.getExponent());
+			values[i] = Math.pow((value.asNumber()).doubleValue(), numericPredictor.getExponent());
+		}
+
+		if(values.length > 0){
+			double[] coefficients = CacheUtil.getValue(regressionTable, RegressionModelEvaluator.coefficientCache);
+
+			VectorKernel vectorKernel = VectorKernelUtil.getInstance();
+
+			result += vectorKernel.dotProduct(coefficients, values);
 		}
 
 		List<CategoricalPredictor> categoricalPredictors = regressionTable.getCategoricalPredictors();
@@ -239,4 +254,24 @@ public class RegressionModelEvaluator extends ModelEvaluator<RegressionModel> {
 				throw new UnsupportedFeatureException(regressionModel, regressionNormalizationMethod);
 		}
 	}
+
+	private static final LoadingCache<RegressionTable, double[]> coefficientCache = CacheBuilder.newBuilder()
+		.weakKeys()
+		.build(new CacheLoader<RegressionTable, double[]>(){
+
+			@Override
+			public double[] load(RegressionTable regressionTable){
+				List<NumericPredictor> numericPredictors = regressionTable.getNumericPredictors();
+
+				double[] result = new double[numericPredictors.size()];
+
+				for(int i = 0; i < numericPredictors.size(); i++){
+					NumericPredictor numericPredictor = numericPredictors.get(i);
+
+					result[i] = numericPredictor.getCoefficient();
+				}
+
+				return result;
+			}
+		});
 }
\ No newline at end of file
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2014 Villu Ruusmann
+ *
+ * This file is part of JPMML-Evaluator
+ *
+ * JPMML-Evaluator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Evaluator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Evaluator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+/**
+ * <p>
+ * The default implementation of {@link VectorKernel}, which sums up the elements of vectors one by one, and traverses trees row by row.
+ * </p>
+ */
+public class ScalarVectorKernel implements VectorKernel {
+
+	@Override
+	public double dotProduct(double[] left, double[] right){
+		double sum = 0d;
+
+		if(left.length != right.length){
+			throw new EvaluationException();
+		}
+
+		for(int i = 0; i < left.length; i++){
+			sum += (left[i] * right[i]);
+		}
+
+		return sum;
+	}
+
+	@Override
+	public double squaredDistance(double[] left, double[] right){
+		double sum = 0d;
+
+		if(left.length != right.length){
+			throw new EvaluationException();
+		}
+
+		for(int i = 0; i < left.length; i++){
+			double diff = (left[i] - right[i]);
+
+			sum += (diff * diff);
+		}
+
+		return sum;
+	}
+
+	@Override
+	public double weightedSquaredDistance(double[] left, double[] right, double[] weights){
+		double sum = 0d;
+
+		if(left.length != right.length || left.length != weights.length){
+			throw new EvaluationException();
+		}
+
+		for(int i = 0; i < left.length; i++){
+			double diff = (left[i] - right[i]);
+
+			sum += (weights[i] * (diff * diff));
+		}
+
+		return sum;
+	}
+
+	@Override
+	public void traverse(long[] keys, int fieldCount, int rows, int[] fields, long[] bounds, int[] children, int[] roots, int[] depths, int[] result){
+		int[] nodes = new int[rows];
+
+		for(int i = 0; i < roots.length; i++){
+			Arrays.fill(nodes, roots[i]);
+
+			// Step by step over all rows, so that consecutive rows do not wait for one another
+			for(int step = 0; step < depths[i]; step++){
+
+				for(int row = 0; row < rows; row++){
+					int node = nodes[row];
+
+					long key = keys[row * fieldCount + fields[node]];
+
+					nodes[row] = children[2 * node + (key < bounds[node] ? 0 : 1)];
+				}
+			}
+
+			for(int row = 0; row < rows; row++){
+				result[row * roots.length + i] = nodes[row];
+			}
+		}
+	}
+}
\ No newline at end of file
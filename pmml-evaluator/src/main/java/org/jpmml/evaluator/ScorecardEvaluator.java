@@ -108,7 +108,9 @@ public class ScorecardEvaluator extends ModelEvaluator<Scorecard> {
 						throw new InvalidFeatureException(complexPartialScore);
 					}
 
-					FieldValue computedValue = ExpressionUtil.evaluate(expression, context);
+					CompiledExpression compiledExpression = context.compile(complexPartialScore, expression);
+
+					FieldValue computedValue = compiledExpression.evaluate(context);
 					if(computedValue == null){
 						throw new MissingResultException(expression);
 					}
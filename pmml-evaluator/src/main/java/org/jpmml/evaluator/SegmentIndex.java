@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2014 Villu Ruusmann
+ *
+ * This file is part of JPMML-Evaluator
+ *
+ * JPMML-Evaluator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Evaluator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Evaluator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.dmg.pmml.*;
+
+import com.google.common.collect.*;
+import com.google.common.primitives.*;
+
+/**
+ * <p>
+ * A hash index over the {@link Segment segments} of a {@link Segmentation segmentation} that are routed by the value of a single field.
+ * </p>
+ *
+ * <p>
+ * A segment is routed when its predicate tests the routing field for equality with one or more categories.
+ * The routing field is the field that routes the greatest number of segments.
+ * The predicates of routed segments are replaced with a single {@link CategoryIndex category index} lookup.
+ * The predicates of all other segments are evaluated as before.
+ * </p>
+ *
+ * <p>
+ * Candidate segments are returned in document order, so that the selection is the same as with a linear scan.
+ * The positions of candidate segments before the {@link #getFirstRouted() first routed segment} are the same as their positions in the segmentation.
+ * </p>
+ *
+ * @see MiningModelEvaluator
+ */
+public class SegmentIndex {
+
+	private int size = 0;
+
+	private FieldName field = null;
+
+	private CategoryIndex categoryIndex = null;
+
+	private int[] routedSegments = null;
+
+	private int[] otherSegments = null;
+
+	private boolean[] routed = null;
+
+	private int firstRouted = -1;
+
+
+	public SegmentIndex(List<Segment> segments){
+		this.size = segments.size();
+		this.routed = new boolean[segments.size()];
+
+		Multiset<FieldName> fields = LinkedHashMultiset.create();
+
+		for(Segment segment : segments){
+			Predicate predicate = segment.getPredicate();
+
+			if(predicate != null && CategoryIndex.isIndexable(predicate)){
+				fields.add(CategoryIndex.getField(predicate));
+			}
+		}
+
+		FieldName field = null;
+
+		for(Multiset.Entry<FieldName> entry : fields.entrySet()){
+
+			if(field == null || entry.getCount() > fields.count(field)){
+				field = entry.getElement();
+			}
+		}
+
+		// A lookup pays off only when it replaces several predicates
+		if(field == null || fields.count(field) < SegmentIndex.MIN_ROUTED_SEGMENTS){
+			return;
+		}
+
+		List<Predicate> routedPredicates = Lists.newArrayList();
+
+		List<Integer> routedSegments = Lists.newArrayList();
+		List<Integer> otherSegments = Lists.newArrayList();
+
+		for(int i = 0; i < segments.size(); i++){
+			Predicate predicate = (segments.get(i)).getPredicate();
+
+			if(predicate != null && CategoryIndex.isIndexable(predicate) && (field).equals(CategoryIndex.getField(predicate))){
+				routedPredicates.add(predicate);
+
+				routedSegments.add(i);
+
+				this.routed[i] = true;
+			} else
+
+			{
+				otherSegments.add(i);
+			}
+		}
+
+		this.field = field;
+		this.categoryIndex = new CategoryIndex(routedPredicates);
+		this.routedSegments = Ints.toArray(routedSegments);
+		this.otherSegments = Ints.toArray(otherSegments);
+		this.firstRouted = this.routedSegments[0];
+	}
+
+	/**
+	 * @return The routing field, or <code>null</code> if segments are not routed.
+	 */
+	public FieldName getField(){
+		return this.field;
+	}
+
+	/**
+	 * All segments before the first routed segment are candidate segments.
+	 * The routing field need not be evaluated before the first routed segment is reached.
+	 *
+	 * @return The position of the first routed segment, or <code>-1</code> if segments are not routed.
+	 */
+	public int getFirstRouted(){
+		return this.firstRouted;
+	}
+
+	/**
+	 * @param value The value of the routing field.
+	 *
+	 * @return The positions of candidate segments in ascending order,
+	 * or <code>null</code> if the value cannot be looked up and the predicates of all segments must be evaluated one by one.
+	 * The predicates of {@link #isRouted(int) routed} candidate segments evaluate to <code>true</code>.
+	 * The predicates of all other candidate segments must be evaluated.
+	 */
+	public int[] select(FieldValue value){
+
+		// The predicate of a routed segment may evaluate to unknown, or fail, when the value is missing
+		if(this.categoryIndex == null || value == null){
+			return null;
+		}
+
+		int[] positions = this.categoryIndex.lookup(value);
+		if(positions == null){
+			return null;
+		}
+
+		int[] otherSegments = this.otherSegments;
+
+		int[] result = new int[positions.length + otherSegments.length];
+
+		// Merge two ascending sequences
+		int i = 0;
+		int j = 0;
+
+		for(int k = 0; k < result.length; k++){
+
+			if(j >= otherSegments.length || (i < positions.length && this.routedSegments[positions[i]] < otherSegments[j])){
+				result[k] = this.routedSegments[positions[i++]];
+			} else
+
+			{
+				result[k] = otherSegments[j++];
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * @return <code>true</code> if the segment is routed by the value of the routing field, <code>false</code> otherwise.
+	 */
+	public boolean isRouted(int index){
+		return this.routed[index];
+	}
+
+	/**
+	 * @return The number of segments.
+	 */
+	public int size(){
+		return this.size;
+	}
+
+	private static final int MIN_ROUTED_SEGMENTS = 4;
+}
\ No newline at end of file
@@ -0,0 +1,394 @@
+/*
+ * Copyright (c) 2014 Villu Ruusmann
+ *
+ * This file is part of JPMML-Evaluator
+ *
+ * JPMML-Evaluator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Evaluator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Evaluator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.dmg.pmml.*;
+
+import com.google.common.collect.*;
+
+/**
+ * <p>
+ * An ensemble of binary trees, which split continuous fields by thresholds.
+ * </p>
+ *
+ * Every branch node must have exactly two children.
+ * The predicate of the first child must be a {@link SimplePredicate} that compares the field with a threshold,
+ * and the predicate of the second child must be either the exact complement of the first predicate or {@link True}.
+ * Exactly one child of every branch node evaluates to "true" when the value of the field is known,
+ * so the leaf node of every tree is determined by field values alone.
+ *
+ * Thresholds are parsed as {@link DataType#DOUBLE doubles}.
+ * Records where the value of some field is missing, or is not a continuous double value, must be evaluated tree by tree.
+ * Derived fields are not evaluated in advance, because they may lie on branches that are not taken.
+ * Records where some derived field has not been evaluated yet must be evaluated tree by tree as well.
+ *
+ * @see #isSupported(FlatTree)
+ */
+abstract
+public class TreeEnsemble {
+
+	private FlatTree[] flatTrees = null;
+
+	private FieldName[] fields = null;
+
+	/**
+	 * Per tree and node, the index of the field or <code>-1</code> for leaf nodes.
+	 */
+	private int[][] splitFields = null;
+
+	private double[][] thresholds = null;
+
+	/**
+	 * Per tree and node, <code>true</code> if the low child is taken when the value is strictly less than the threshold,
+	 * <code>false</code> if it is taken when the value is less than or equal to the threshold.
+	 */
+	private boolean[][] strict = null;
+
+	private int[][] lowChildren = null;
+
+	private int[][] highChildren = null;
+
+
+	public TreeEnsemble(List<FlatTree> flatTrees){
+		Map<FieldName, Integer> fields = Maps.newLinkedHashMap();
+
+		int size = flatTrees.size();
+
+		this.flatTrees = flatTrees.toArray(new FlatTree[size]);
+
+		this.splitFields = new int[size][];
+		this.thresholds = new double[size][];
+		this.strict = new boolean[size][];
+		this.lowChildren = new int[size][];
+		this.highChildren = new int[size][];
+
+		for(int i = 0; i < size; i++){
+			FlatTree flatTree = this.flatTrees[i];
+
+			if(!isSupported(flatTree)){
+				throw new IllegalArgumentException();
+			}
+
+			int nodes = flatTree.size();
+
+			this.splitFields[i] = new int[nodes];
+			this.thresholds[i] = new double[nodes];
+			this.strict[i] = new boolean[nodes];
+			this.lowChildren[i] = new int[nodes];
+			this.highChildren[i] = new int[nodes];
+
+			for(int j = 0; j < nodes; j++){
+				Split split = getSplit(flatTree, j);
+
+				if(split == null){
+					this.splitFields[i][j] = -1;
+
+					continue;
+				}
+
+				Integer field = fields.get(split.getField());
+				if(field == null){
+					field = fields.size();
+
+					fields.put(split.getField(), field);
+				}
+
+				this.splitFields[i][j] = field.intValue();
+				this.thresholds[i][j] = split.getThreshold();
+				this.strict[i][j] = split.isStrict();
+				this.lowChildren[i][j] = split.getLowChild();
+				this.highChildren[i][j] = split.getHighChild();
+			}
+		}
+
+		this.fields = (fields.keySet()).toArray(new FieldName[fields.size()]);
+	}
+
+	/**
+	 * @return The indices of the leaf nodes of all trees, or <code>null</code> if the record must be evaluated tree by tree.
+	 */
+	abstract
+	public int[] evaluate(EvaluationContext context);
+
+	/**
+	 * @return Per record, the indices of the leaf nodes of all trees, or <code>null</code> if the record must be evaluated tree by tree.
+	 *
+	 * @see #evaluate(EvaluationContext)
+	 */
+	public int[][] evaluateAll(List<? extends EvaluationContext> contexts){
+		int[][] result = new int[contexts.size()][];
+
+		for(int i = 0; i < contexts.size(); i++){
+			result[i] = evaluate(contexts.get(i));
+		}
+
+		return result;
+	}
+
+	/**
+	 * @return The values of all fields, or <code>null</code> if some field has not been declared, or its value is missing or is not a continuous double value.
+	 */
+	protected double[] getValues(EvaluationContext context){
+		double[] result = new double[this.fields.length];
+
+		for(int i = 0; i < this.fields.length; i++){
+			Map.Entry<FieldName, FieldValue> entry = context.getFieldEntry(this.fields[i]);
+
+			// Undeclared fields are either missing or derived fields, which are evaluated on demand by the generic code path
+			if(entry == null){
+				return null;
+			}
+
+			FieldValue value = entry.getValue();
+
+			// Values of other data types are compared after parsing the threshold, which is left to the generic code path
+			if(!(value instanceof ContinuousValue) || value.getDataType() != DataType.DOUBLE || !(value.getValue() instanceof Double)){
+				return null;
+			}
+
+			result[i] = ((Double)value.getValue()).doubleValue();
+		}
+
+		return result;
+	}
+
+	public int size(){
+		return this.flatTrees.length;
+	}
+
+	public FlatTree getFlatTree(int tree){
+		return this.flatTrees[tree];
+	}
+
+	public int getFieldCount(){
+		return this.fields.length;
+	}
+
+	public FieldName getField(int field){
+		return this.fields[field];
+	}
+
+	/**
+	 * @return The index of the field, or <code>-1</code> if the node is a leaf node.
+	 */
+	public int getSplitField(int tree, int index){
+		return this.splitFields[tree][index];
+	}
+
+	public double getThreshold(int tree, int index){
+		return this.thresholds[tree][index];
+	}
+
+	public boolean isStrict(int tree, int index){
+		return this.strict[tree][index];
+	}
+
+	/**
+	 * @return The index of the child node that is taken when the value is less than (or equal to) the threshold.
+	 */
+	public int getLowChild(int tree, int index){
+		return this.lowChildren[tree][index];
+	}
+
+	/**
+	 * @return The index of the child node that is taken when the value is greater than (or equal to) the threshold.
+	 */
+	public int getHighChild(int tree, int index){
+		return this.highChildren[tree][index];
+	}
+
+	/**
+	 * @return <code>true</code> if the value goes to the low child, <code>false</code> otherwise.
+	 */
+	static
+	protected boolean isLow(double value, double threshold, boolean strict){
+		int order = Double.compare(value, threshold);
+
+		return (strict ? order < 0 : order <= 0);
+	}
+
+	static
+	public boolean isSupported(FlatTree flatTree){
+		Node root = flatTree.getNode(0);
+
+		if(!(root.getPredicate() instanceof True) || root.getEmbeddedModel() != null){
+			return false;
+		}
+
+		for(int i = 0; i < flatTree.size(); i++){
+			Node node = flatTree.getNode(i);
+
+			if(node.getEmbeddedModel() != null){
+				return false;
+			} // End if
+
+			if(flatTree.getChildCount(i) == 0){
+				continue;
+			} // End if
+
+			if(getSplit(flatTree, i) == null){
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * @return The split of a branch node, or <code>null</code> if the node is a leaf node or is not a binary split.
+	 */
+	static
+	private Split getSplit(FlatTree flatTree, int index){
+
+		if(flatTree.getChildCount(index) != 2){
+			return null;
+		}
+
+		int firstChild = flatTree.getFirstChild(index);
+		int secondChild = firstChild + 1;
+
+		Predicate firstPredicate = (flatTree.getNode(firstChild)).getPredicate();
+		Predicate secondPredicate = (flatTree.getNode(secondChild)).getPredicate();
+
+		Split first = parseSplit(firstPredicate);
+		if(first == null){
+			return null;
+		} // End if
+
+		if(secondPredicate instanceof True){
+			return createSplit(first, firstChild, secondChild);
+		}
+
+		Split second = parseSplit(secondPredicate);
+		if(second == null){
+			return null;
+		} // End if
+
+		// The second predicate must be the complement of the first predicate
+		if(!(first.getField()).equals(second.getField()) || Double.compare(first.getThreshold(), second.getThreshold()) != 0 || first.isStrict() != second.isStrict() || first.isLow() == second.isLow()){
+			return null;
+		}
+
+		return createSplit(first, firstChild, secondChild);
+	}
+
+	static
+	private Split createSplit(Split split, int firstChild, int secondChild){
+
+		if(split.isLow()){
+			return new Split(split.getField(), split.getThreshold(), split.isStrict(), true, firstChild, secondChild);
+		}
+
+		return new Split(split.getField(), split.getThreshold(), split.isStrict(), true, secondChild, firstChild);
+	}
+
+	/**
+	 * @return A split whose low child is taken when the predicate evaluates to "true" (<code>low</code>) or to "false" (<code>!low</code>).
+	 */
+	static
+	private Split parseSplit(Predicate predicate){
+
+		if(!(predicate instanceof SimplePredicate)){
+			return null;
+		}
+
+		SimplePredicate simplePredicate = (SimplePredicate)predicate;
+
+		String value = simplePredicate.getValue();
+		if(value == null){
+			return null;
+		}
+
+		double threshold;
+
+		try {
+			threshold = Double.parseDouble(value);
+		} catch(NumberFormatException nfe){
+			return null;
+		}
+
+		FieldName field = simplePredicate.getField();
+
+		SimplePredicate.Operator operator = simplePredicate.getOperator();
+		switch(operator){
+			case LESS_THAN:
+				return new Split(field, threshold, true, true, -1, -1);
+			case LESS_OR_EQUAL:
+				return new Split(field, threshold, false, true, -1, -1);
+			case GREATER_THAN:
+				return new Split(field, threshold, false, false, -1, -1);
+			case GREATER_OR_EQUAL:
+				return new Split(field, threshold, true, false, -1, -1);
+			default:
+				return null;
+		}
+	}
+
+	static
+	private class Split {
+
+		private FieldName field = null;
+
+		private double threshold = 0d;
+
+		private boolean strict = false;
+
+		private boolean low = false;
+
+		private int lowChild = -1;
+
+		private int highChild = -1;
+
+
+		public Split(FieldName field, double threshold, boolean strict, boolean low, int lowChild, int highChild){
+			this.field = field;
+			this.threshold = threshold;
+			this.strict = strict;
+			this.low = low;
+			this.lowChild = lowChild;
+			this.highChild = highChild;
+		}
+
+		public FieldName getField(){
+			return this.field;
+		}
+
+		public double getThreshold(){
+			return this.threshold;
+		}
+
+		public boolean isStrict(){
+			return this.strict;
+		}
+
+		public boolean isLow(){
+			return this.low;
+		}
+
+		public int getLowChild(){
+			return this.lowChild;
+		}
+
+		public int getHighChild(){
+			return this.highChild;
+		}
+	}
+}
\ No newline at end of file
@@ -54,22 +54,39 @@ public class TreeModelEvaluator extends ModelEvaluator<TreeModel> implements Has
 			throw new InvalidResultException(treeModel);
 		}
 
-		Node node;
+		FlatTree flatTree;
+
+		int index;
 
 		MiningFunctionType miningFunction = treeModel.getFunctionName();
 		switch(miningFunction){
 			case REGRESSION:
 			case CLASSIFICATION:
-				node = evaluateTree(context);
+				flatTree = getValue(TreeModelEvaluator.flatTreeCache);
+
+				index = evaluateTree(flatTree, context);
 				break;
 			default:
 				throw new UnsupportedFeatureException(treeModel, miningFunction);
 		}
 
+		return evaluateNode(flatTree, index, context);
+	}
+
+	/**
+	 * Evaluates the tree model with a node that has been selected by a {@link TreeEnsemble tree ensemble}.
+	 *
+	 * @param index The index of the node in the {@link #getFlatTree(TreeModel) flat tree}.
+	 */
+	Map<FieldName, ?> evaluateNode(int index, ModelEvaluationContext context){
+		return evaluateNode(getValue(TreeModelEvaluator.flatTreeCache), index, context);
+	}
+
+	private Map<FieldName, ?> evaluateNode(FlatTree flatTree, int index, ModelEvaluationContext context){
 		NodeClassificationMap values = null;
 
-		if(node != null){
-			values = createNodeClassificationMap(node);
+		if(index > -1){
+			values = new NodeClassificationMap(flatTree.getNode(index), flatTree.getDistribution(index));
 		}
 
 		Map<FieldName, ? extends ClassificationMap<?>> predictions = TargetUtil.evaluateClassification(values, context);
@@ -77,177 +94,139 @@ public class TreeModelEvaluator extends ModelEvaluator<TreeModel> implements Has
 		return OutputUtil.evaluate(predictions, context);
 	}
 
-	private Node evaluateTree(ModelEvaluationContext context){
+	/**
+	 * @return The index of the node, or <code>-1</code> for a null prediction.
+	 */
+	private int evaluateTree(FlatTree flatTree, ModelEvaluationContext context){
 		TreeModel treeModel = getModel();
 
-		Node root = treeModel.getNode();
-		if(root == null){
-			throw new InvalidFeatureException(treeModel);
-		}
+		FrameLayout frameLayout = context.getFrameLayout();
 
-		LinkedList<Node> trail = Lists.newLinkedList();
+		int[] slots = (frameLayout != null ? flatTree.getSlots(frameLayout) : null);
 
-		NodeResult result = new NodeResult(null);
+		int index = 0;
 
-		Boolean status = evaluateNode(root, context);
-		if(status == null){
-			result = handleMissingValue(root, trail, context);
+		int status = flatTree.evaluate(index, slots, context);
+		if(status == FlatTree.MISSING){
+			// There is no last prediction above the root node
+			return handleMissingValue(-1, flatTree);
 		} else
 
-		if(status.booleanValue()){
-			result = handleTrue(root, trail, context);
-		} // End if
-
-		if(result == null){
-			throw new MissingResultException(root);
+		if(status == FlatTree.FALSE){
+			return handleNoTrueChild(-1, flatTree);
 		}
 
-		Node node = result.getNode();
+		children:
+		while(true){
+			int childCount = flatTree.getChildCount(index);
 
-		if(node != null || result.isFinal()){
-			return node;
-		}
+			// A "true" leaf node
+			if(childCount == 0){
+				return index;
+			}
 
-		NoTrueChildStrategyType noTrueChildStrategy = treeModel.getNoTrueChildStrategy();
-		switch(noTrueChildStrategy){
-			case RETURN_NULL_PREDICTION:
-				return null;
-			case RETURN_LAST_PREDICTION:
-				return lastPrediction(root, trail);
-			default:
-				throw new UnsupportedFeatureException(treeModel, noTrueChildStrategy);
-		}
-	}
+			int parent = index;
 
-	private NodeResult handleMissingValue(Node node, LinkedList<Node> trail, EvaluationContext context){
-		TreeModel treeModel = getModel();
+			int firstChild = flatTree.getFirstChild(parent);
 
-		MissingValueStrategyType missingValueStrategy = treeModel.getMissingValueStrategy();
-		switch(missingValueStrategy){
-			case NULL_PREDICTION:
-				return new FinalNodeResult(null);
-			case LAST_PREDICTION:
-				return new FinalNodeResult(lastPrediction(node, trail));
-			case NONE:
-				return null;
-			default:
-				throw new UnsupportedFeatureException(treeModel, missingValueStrategy);
-		}
-	}
+			for(int child = firstChild; child < firstChild + childCount; child++){
+				CategoryIndex categoryIndex = flatTree.getCategoryIndex(child);
 
-	private NodeResult handleTrue(Node node, LinkedList<Node> trail, EvaluationContext context){
-		List<Node> children = node.getNodes();
+				// The predicates of the run can only evaluate to "true" or "false" when the lookup succeeds
+				if(categoryIndex != null){
+					int selected = flatTree.select(child, slots, context);
 
-		// A "true" leaf node
-		if(children.isEmpty()){
-			return new NodeResult(node);
-		}
+					if(selected > -1){
+
+						if(selected < child + categoryIndex.size()){
+							index = selected;
 
-		trail.add(node);
+							continue children;
+						}
 
-		for(Node child : children){
-			Boolean status = evaluateNode(child, context);
+						child = selected - 1;
 
-			if(status == null){
-				NodeResult result = handleMissingValue(child, trail, context);
-				if(result != null){
-					return result;
+						continue;
+					}
 				}
-			} else
 
-			if(status.booleanValue()){
-				return handleTrue(child, trail, context);
-			}
-		}
+				status = flatTree.evaluate(child, slots, context);
 
-		// A branch node with no "true" leaf nodes
-		return new NodeResult(null);
-	}
+				if(status == FlatTree.MISSING){
+					MissingValueStrategyType missingValueStrategy = treeModel.getMissingValueStrategy();
 
-	private Node lastPrediction(Node node, LinkedList<Node> trail){
+					switch(missingValueStrategy){
+						case NULL_PREDICTION:
+						case LAST_PREDICTION:
+							return handleMissingValue(parent, flatTree);
+						case NONE:
+							break;
+						default:
+							throw new UnsupportedFeatureException(treeModel, missingValueStrategy);
+					}
+				} else
 
-		try {
-			return trail.getLast();
-		} catch(NoSuchElementException nsee){
-			throw new MissingResultException(node);
-		}
-	}
+				if(status == FlatTree.TRUE){
+					index = child;
 
-	private Boolean evaluateNode(Node node, EvaluationContext context){
-		Predicate predicate = node.getPredicate();
-		if(predicate == null){
-			throw new InvalidFeatureException(node);
-		}
+					continue children;
+				}
+			}
 
-		EmbeddedModel embeddedModel = node.getEmbeddedModel();
-		if(embeddedModel != null){
-			throw new UnsupportedFeatureException(embeddedModel);
+			// A branch node with no "true" leaf nodes
+			return handleNoTrueChild(parent, flatTree);
 		}
-
-		return PredicateUtil.evaluate(predicate, context);
 	}
 
-	static
-	private NodeClassificationMap createNodeClassificationMap(Node node){
-		NodeClassificationMap result = new NodeClassificationMap(node);
-
-		List<ScoreDistribution> scoreDistributions = node.getScoreDistributions();
-
-		double sum = 0;
-
-		for(ScoreDistribution scoreDistribution : scoreDistributions){
-			sum += scoreDistribution.getRecordCount();
-		} // End for
-
-		for(ScoreDistribution scoreDistribution : scoreDistributions){
-			Double value = scoreDistribution.getProbability();
-			if(value == null){
-				value = (scoreDistribution.getRecordCount() / sum);
-			}
+	/**
+	 * @param parent The index of the last branch node that evaluated to "true", or <code>-1</code>.
+	 */
+	private int handleMissingValue(int parent, FlatTree flatTree){
+		TreeModel treeModel = getModel();
 
-			result.put(scoreDistribution.getValue(), value);
+		MissingValueStrategyType missingValueStrategy = treeModel.getMissingValueStrategy();
+		switch(missingValueStrategy){
+			case NULL_PREDICTION:
+				return -1;
+			case LAST_PREDICTION:
+				return lastPrediction(parent, flatTree);
+			case NONE:
+				throw new MissingResultException(flatTree.getNode(0));
+			default:
+				throw new UnsupportedFeatureException(treeModel, missingValueStrategy);
 		}
-
-		return result;
 	}
 
-	static
-	private class NodeResult {
-
-		private Node node = null;
-
+	/**
+	 * @param parent The index of the last branch node that evaluated to "true", or <code>-1</code>.
+	 */
+	private int handleNoTrueChild(int parent, FlatTree flatTree){
+		TreeModel treeModel = getModel();
 
-		public NodeResult(Node node){
-			setNode(node);
+		NoTrueChildStrategyType noTrueChildStrategy = treeModel.getNoTrueChildStrategy();
+		switch(noTrueChildStrategy){
+			case RETURN_NULL_PREDICTION:
+				return -1;
+			case RETURN_LAST_PREDICTION:
+				return lastPrediction(parent, flatTree);
+			default:
+				throw new UnsupportedFeatureException(treeModel, noTrueChildStrategy);
 		}
+	}
 
-		/**
-		 * @return <code>true</code> if the result should be exempt from any post-processing (eg. "no true child strategy" treatment), <code>false</code> otherwise.
-		 */
-		public boolean isFinal(){
-			return false;
-		}
+	static
+	private int lastPrediction(int parent, FlatTree flatTree){
 
-		public Node getNode(){
-			return this.node;
+		if(parent < 0){
+			throw new MissingResultException(flatTree.getNode(0));
 		}
 
-		private void setNode(Node node){
-			this.node = node;
-		}
+		return parent;
 	}
 
 	static
-	private class FinalNodeResult extends NodeResult {
-
-		public FinalNodeResult(Node node){
-			super(node);
-		}
-
-		@Override
-		public boolean isFinal(){
-			return true;
-		}
+	FlatTree getFlatTree(TreeModel treeModel){
+		return CacheUtil.getValue(treeModel, TreeModelEvaluator.flatTreeCache);
 	}
 
 	private static final LoadingCache<TreeModel, BiMap<String, Node>> entityCache = CacheBuilder.newBuilder()
@@ -272,4 +251,19 @@ public class TreeModelEvaluator extends ModelEvaluator<TreeModel> implements Has
 				}
 			}
 		});
+
+	private static final LoadingCache<TreeModel, FlatTree> flatTreeCache = CacheBuilder.newBuilder()
+		.weakKeys()
+		.build(new CacheLoader<TreeModel, FlatTree>(){
+
+			@Override
+			public FlatTree load(TreeModel treeModel){
+				Node root = treeModel.getNode();
+				if(root == null){
+					throw new InvalidFeatureException(treeModel);
+				}
+
+				return new FlatTree(root);
+			}
+		});
 }
\ No newline at end of file
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2014 Villu Ruusmann
+ *
+ * This file is part of JPMML-Evaluator
+ *
+ * JPMML-Evaluator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Evaluator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Evaluator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.evaluator;
+
+/**
+ * <p>
+ * Operations on dense vectors of doubles, and on batches of rows.
+ * </p>
+ *
+ * Implementations are discovered with {@link java.util.ServiceLoader}, so that an implementation that relies on hardware-specific features can be plugged in by adding it to the classpath.
+ * An implementation that cannot run in the current JVM should fail in its constructor.
+ *
+ * @see VectorKernelUtil#getInstance()
+ * @see ScalarVectorKernel
+ */
+public interface VectorKernel {
+
+	/**
+	 * @throws EvaluationException If the vectors differ in length.
+	 */
+	double dotProduct(double[] left, double[] right);
+
+	/**
+	 * @throws EvaluationException If the vectors differ in length.
+	 */
+	double squaredDistance(double[] left, double[] right);
+
+	/**
+	 * @return The sum of <code>weights[i] * (left[i] - right[i])<sup>2</sup></code>.
+	 *
+	 * @throws EvaluationException If the vectors differ in length.
+	 */
+	double weightedSquaredDistance(double[] left, double[] right, double[] weights);
+
+	/**
+	 * Traverses binary trees over a batch of rows.
+	 * Every row takes the same number of steps in a tree, because leaf nodes point to themselves.
+	 *
+	 * @param keys Per row and field, the {@link BatchTreeEnsemble#toKey(double) key} of the value.
+	 * @param fieldCount The number of fields per row.
+	 * @param rows The number of rows.
+	 * @param fields Per node, the index of the field.
+	 * @param bounds Per node, the least key that goes to the high child.
+	 * @param children Per node, the low child at <code>2 * node</code> and the high child at <code>2 * node + 1</code>.
+	 * @param roots Per tree, the root node.
+	 * @param depths Per tree, the number of steps.
+	 * @param result Per row and tree, the leaf node.
+	 *
+	 * @see BatchTreeEnsemble
+	 */
+	void traverse(long[] keys, int fieldCount, int rows, int[] fields, long[] bounds, int[] children, int[] roots, int[] depths, int[] result);
+}
\ No newline at end of file
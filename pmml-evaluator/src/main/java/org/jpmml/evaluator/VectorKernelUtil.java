@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2014 Villu Ruusmann
+ *
+ * This file is part of JPMML-Evaluator
+ *
+ * JPMML-Evaluator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Evaluator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Evaluator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+public class VectorKernelUtil {
+
+	private VectorKernelUtil(){
+	}
+
+	/**
+	 * @return The first {@link VectorKernel} service provider that can be instantiated, or a {@link ScalarVectorKernel} if there is none.
+	 */
+	static
+	public VectorKernel getInstance(){
+		return VectorKernelUtil.instance;
+	}
+
+	static
+	private VectorKernel load(){
+		ServiceLoader<VectorKernel> serviceLoader = ServiceLoader.load(VectorKernel.class, VectorKernel.class.getClassLoader());
+
+		Iterator<VectorKernel> it = serviceLoader.iterator();
+
+		while(true){
+
+			try {
+				if(!it.hasNext()){
+					break;
+				}
+
+				return it.next();
+			} catch(ServiceConfigurationError sce){
+				// The service provider is not supported by this JVM, and the iterator moves on to the next one
+			} catch(LinkageError le){
+				// Ditto
+			}
+		}
+
+		return new ScalarVectorKernel();
+	}
+
+	private static final VectorKernel instance = load();
+}
\ No newline at end of file
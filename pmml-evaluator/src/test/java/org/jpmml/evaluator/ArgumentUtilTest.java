@@ -135,6 +135,70 @@ public class ArgumentUtilTest {
 		assertEquals(5d, prepare(dataField, miningField, 5d));
 	}
 
+	@Test
+	public void getPreparer(){
+		FieldName name = new FieldName("x");
+
+		DataField dataField = new DataField(name, OpType.CONTINUOUS, DataType.DOUBLE);
+
+		Interval validInterval = new Interval(Closure.CLOSED_OPEN);
+		validInterval.setLeftMargin(1d);
+		validInterval.setRightMargin(3d);
+
+		dataField.getIntervals().add(validInterval);
+		dataField.getValues().add(createValue("N/A", Property.MISSING));
+
+		MiningField miningField = new MiningField(name);
+		miningField.setLowValue(1d);
+		miningField.setHighValue(3d);
+		miningField.setMissingValueReplacement("2");
+
+		List<?> values = Arrays.asList(null, "-1", 0, 1d, 2f, "3", 5d);
+
+		for(OutlierTreatmentMethodType outlierTreatment : OutlierTreatmentMethodType.values()){
+			miningField.setOutlierTreatment(outlierTreatment);
+
+			for(InvalidValueTreatmentMethodType invalidValueTreatment : Arrays.asList(InvalidValueTreatmentMethodType.AS_IS, InvalidValueTreatmentMethodType.AS_MISSING)){
+				miningField.setInvalidValueTreatment(invalidValueTreatment);
+
+				checkPreparer(dataField, miningField, values);
+			}
+		}
+
+		dataField = new DataField(name, OpType.ORDINAL, DataType.INTEGER);
+
+		dataField.getValues().add(createValue("N/A", Property.MISSING));
+		dataField.getValues().add(createValue("3", Property.VALID));
+		dataField.getValues().add(createValue("1", Property.VALID));
+		dataField.getValues().add(createValue("1", Property.INVALID));
+		dataField.getValues().add(createValue("2", Property.INVALID));
+
+		miningField = new MiningField(name);
+		miningField.setMissingValueReplacement("3");
+
+		values = Arrays.asList(null, "N/A", "1", 2, 3, "4");
+
+		for(InvalidValueTreatmentMethodType invalidValueTreatment : Arrays.asList(InvalidValueTreatmentMethodType.AS_IS, InvalidValueTreatmentMethodType.AS_MISSING)){
+			miningField.setInvalidValueTreatment(invalidValueTreatment);
+
+			checkPreparer(dataField, miningField, values);
+		}
+
+		OrdinalValue value = (OrdinalValue)(new ArgumentPreparer(dataField, miningField)).prepare("1");
+
+		assertEquals(Arrays.asList(3, 1), value.getOrdering());
+
+		miningField.setInvalidValueTreatment(InvalidValueTreatmentMethodType.RETURN_INVALID);
+
+		try {
+			(new ArgumentPreparer(dataField, miningField)).prepare(2);
+
+			fail();
+		} catch(InvalidResultException ire){
+			// Ignored
+		}
+	}
+
 	@Test
 	public void isInvalid(){
 		assertFalse(ArgumentUtil.isInvalid(null, null));
@@ -152,6 +216,22 @@ public class ArgumentUtilTest {
 		return FieldValueUtil.getValue(result);
 	}
 
+	static
+	private void checkPreparer(DataField dataField, MiningField miningField, List<?> values){
+		ArgumentPreparer preparer = new ArgumentPreparer(dataField, miningField);
+
+		for(Object value : values){
+			FieldValue expected = ArgumentUtil.prepare(dataField, miningField, value);
+			FieldValue actual = preparer.prepare(value);
+
+			assertEquals(FieldValueUtil.getValue(expected), FieldValueUtil.getValue(actual));
+
+			if(expected != null){
+				assertEquals(expected.getOpType(), actual.getOpType());
+			}
+		}
+	}
+
 	static
 	private Value createValue(String value, Value.Property property){
 		Value result = new Value(value);
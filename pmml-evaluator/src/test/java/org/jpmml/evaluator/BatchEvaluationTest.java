@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2013 Villu Ruusmann
+ *
+ * This file is part of JPMML-Evaluator
+ *
+ * JPMML-Evaluator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Evaluator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Evaluator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.dmg.pmml.*;
+
+import com.google.common.collect.*;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+public class BatchEvaluationTest {
+
+	@Test
+	public void evaluateAll() throws Exception {
+		PMML pmml = PMMLTest.loadPMML(ParallelSegmentationTest.class);
+
+		MiningModelEvaluator evaluator = new MiningModelEvaluator(pmml);
+
+		List<Map<FieldName, ?>> arguments = Lists.newArrayList();
+
+		Object[][] examples = {{1.4d, 0.2d}, {4.9d, 1.5d}, {5.1d, 1.8d}, {2.45d, 0.8d}, {4.8d, null}, {null, null}};
+
+		for(Object[] example : examples){
+			arguments.add(PMMLTest.createArguments("petal_length", example[0], "petal_width", example[1]));
+		}
+
+		List<Map<FieldName, ?>> expected = Lists.newArrayList();
+
+		for(Map<FieldName, ?> record : arguments){
+			expected.add(evaluator.evaluate(record));
+		}
+
+		assertEquals(expected, evaluator.evaluateAll(arguments));
+
+		evaluator.compile();
+
+		assertEquals(expected, evaluator.evaluateAll(arguments));
+
+		for(MiningModelEvaluator.Engine engine : MiningModelEvaluator.Engine.values()){
+			evaluator.setEngine(engine);
+
+			assertEquals(engine.toString(), expected, evaluator.evaluateAll(arguments));
+		}
+
+		assertEquals(Collections.emptyList(), evaluator.evaluateAll(Collections.<Map<FieldName, ?>>emptyList()));
+	}
+
+	@Test
+	public void evaluateAllModelChain() throws Exception {
+		PMML pmml = PMMLTest.loadPMML(ModelChainSimpleTest.class);
+
+		MiningModelEvaluator evaluator = new MiningModelEvaluator(pmml);
+
+		List<Map<FieldName, ?>> arguments = Lists.newArrayList();
+		arguments.add(PMMLTest.createArguments("petal_length", 1.4d, "petal_width", 0.2d, "temperature", 0d, "cloudiness", 0d));
+		arguments.add(PMMLTest.createArguments("petal_length", 5.1d, "petal_width", 1.8d, "temperature", 10d, "cloudiness", 5d));
+
+		List<Map<FieldName, ?>> expected = Lists.newArrayList();
+
+		for(Map<FieldName, ?> record : arguments){
+			expected.add(evaluator.evaluate(record));
+		}
+
+		// Segments of a model chain depend on one another, so records are evaluated one by one
+		assertEquals(expected, evaluator.evaluateAll(arguments));
+	}
+}
\ No newline at end of file
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2014 Villu Ruusmann
+ *
+ * This file is part of JPMML-Evaluator
+ *
+ * JPMML-Evaluator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Evaluator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Evaluator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.jpmml.manager.*;
+
+import org.dmg.pmml.*;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+public class CompiledTreeModelEvaluatorTest {
+
+	@Test
+	public void evaluate() throws Exception {
+		PMML pmml = PMMLTest.loadPMML(ParallelSegmentationTest.class);
+
+		MiningModel miningModel = (MiningModel)(pmml.getModels()).get(0);
+
+		List<Segment> segments = (miningModel.getSegmentation()).getSegments();
+
+		Object[][] examples = {{1.4d, 0.2d}, {4.9d, 1.5d}, {5.1d, 1.8d}, {2.45d, 0.8d}, {4.8d, null}, {null, null}};
+
+		for(Segment segment : segments){
+			TreeModel treeModel = (TreeModel)segment.getModel();
+
+			TreeModelEvaluator evaluator = new TreeModelEvaluator(pmml, treeModel);
+
+			Evaluator compiledEvaluator = new CompiledTreeModelEvaluator(pmml, treeModel);
+
+			for(Object[] example : examples){
+				Map<FieldName, ?> arguments = PMMLTest.createArguments("petal_length", example[0], "petal_width", example[1]);
+
+				Map<FieldName, ?> expected = evaluator.evaluate(arguments);
+				Map<FieldName, ?> result = compiledEvaluator.evaluate(arguments);
+
+				assertEquals(expected, result);
+
+				FieldName targetField = evaluator.getTargetField();
+
+				assertEquals(PMMLTest.getEntityId(expected.get(targetField)), PMMLTest.getEntityId(result.get(targetField)));
+			}
+		}
+	}
+
+	@Test
+	public void evaluateUnsupported() throws Exception {
+		PMML pmml = PMMLTest.loadPMML(MissingValueStrategyTest.class);
+
+		try {
+			new CompiledTreeModelEvaluator(pmml);
+
+			fail();
+		} catch(UnsupportedFeatureException ufe){
+			// Ignored
+		}
+	}
+}
\ No newline at end of file
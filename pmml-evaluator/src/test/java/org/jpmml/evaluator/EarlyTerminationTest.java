@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2013 Villu Ruusmann
+ *
+ * This file is part of JPMML-Evaluator
+ *
+ * JPMML-Evaluator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Evaluator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Evaluator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.dmg.pmml.*;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+public class EarlyTerminationTest {
+
+	@Test
+	public void evaluate() throws Exception {
+		PMML pmml = PMMLTest.loadPMML(ParallelSegmentationTest.class);
+
+		MiningModelEvaluator evaluator = new MiningModelEvaluator(pmml);
+
+		// Decided after three segments (weights 1, 2 and 1.5), with the remaining two segments casting 1.5 votes at most
+		assertEquals(0, evaluateExample(evaluator, 5.1d, 1.8d));
+
+		evaluator.setEarlyTermination(true);
+
+		assertEquals(2, evaluateExample(evaluator, 5.1d, 1.8d));
+
+		// Undecided until the last segment
+		assertEquals(0, evaluateExample(evaluator, 1.4d, 0.2d));
+	}
+
+	@Test
+	public void evaluateVoteDistribution() throws Exception {
+		PMML pmml = PMMLTest.loadPMML(ParallelSegmentationTest.class);
+
+		OutputField outputField = new OutputField(new FieldName("Probability_virginica"))
+			.withFeature(ResultFeatureType.PROBABILITY)
+			.withValue("virginica");
+
+		MiningModel miningModel = (MiningModel)(pmml.getModels()).get(0);
+		miningModel.setOutput(new Output().withOutputFields(outputField));
+
+		MiningModelEvaluator evaluator = new MiningModelEvaluator(pmml);
+		evaluator.setEarlyTermination(true);
+
+		assertEquals(0, evaluateExample(evaluator, 5.1d, 1.8d));
+
+		// The distribution is not needed when only the target field is demanded
+		evaluator.setDemandedFields(Collections.singleton(new FieldName("species")));
+
+		assertEquals(2, evaluateExample(evaluator, 5.1d, 1.8d));
+
+		evaluator.setDemandedFields(null);
+
+		assertEquals(0, evaluateExample(evaluator, 5.1d, 1.8d));
+	}
+
+	@Test
+	public void evaluateRouted() throws Exception {
+		PMML pmml = PMMLTest.loadPMML(ParallelSegmentationTest.class);
+
+		FieldName region = new FieldName("region");
+
+		DataDictionary dataDictionary = pmml.getDataDictionary();
+		dataDictionary.withDataFields(new DataField(region, OpType.CATEGORICAL, DataType.STRING));
+
+		MiningModel miningModel = (MiningModel)(pmml.getModels()).get(0);
+
+		MiningSchema miningSchema = miningModel.getMiningSchema();
+		miningSchema.withMiningFields(new MiningField(region));
+
+		Segmentation segmentation = miningModel.getSegmentation();
+
+		List<Segment> segments = segmentation.getSegments();
+		for(Segment segment : segments){
+			segment.setPredicate(new SimplePredicate(region, SimplePredicate.Operator.EQUAL).withValue("north"));
+		}
+
+		PMML otherPmml = PMMLTest.loadPMML(ParallelSegmentationTest.class);
+
+		MiningModel otherMiningModel = (MiningModel)(otherPmml.getModels()).get(0);
+
+		List<Segment> otherSegments = (otherMiningModel.getSegmentation()).getSegments();
+		for(int i = 0; i < 4; i++){
+			Segment segment = new Segment()
+				.withId(String.valueOf(segments.size() + 1))
+				.withWeight(10d)
+				.withPredicate(new SimplePredicate(region, SimplePredicate.Operator.EQUAL).withValue("south"))
+				.withModel((otherSegments.get(i)).getModel());
+
+			segments.add(segment);
+		}
+
+		MiningModelEvaluator evaluator = new MiningModelEvaluator(pmml);
+		evaluator.setEarlyTermination(true);
+
+		Map<FieldName, ?> arguments = PMMLTest.createArguments("petal_length", 5.1d, "petal_width", 1.8d, "region", "north");
+
+		MiningModelEvaluationContext context = evaluator.createContext(null);
+		context.declareAll(arguments);
+
+		evaluator.evaluate(context);
+
+		// The segments that are routed to another region do not count towards the remaining votes, or the skipped segments
+		assertEquals(2, context.getSkippedSegments());
+	}
+
+	static
+	private int evaluateExample(MiningModelEvaluator evaluator, double petalLength, double petalWidth){
+		Map<FieldName, ?> arguments = PMMLTest.createArguments("petal_length", petalLength, "petal_width", petalWidth);
+
+		// Full evaluation
+		MiningModelEvaluator referenceEvaluator = new MiningModelEvaluator(evaluator.getPMML(), evaluator.getModel());
+
+		Map<FieldName, ?> expected = referenceEvaluator.evaluate(arguments);
+
+		MiningModelEvaluationContext context = evaluator.createContext(null);
+		context.declareAll(arguments);
+
+		Map<FieldName, ?> result = evaluator.evaluate(context);
+
+		FieldName species = new FieldName("species");
+
+		assertEquals(EvaluatorUtil.decode(expected.get(species)), EvaluatorUtil.decode(result.get(species)));
+
+		return context.getSkippedSegments();
+	}
+}
\ No newline at end of file
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2014 Villu Ruusmann
+ *
+ * This file is part of JPMML-Evaluator
+ *
+ * JPMML-Evaluator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Evaluator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Evaluator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.dmg.pmml.*;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+public class ExpressionOptimizerTest {
+
+	@Test
+	public void compile(){
+		FunctionRegistry.putFunction(ExpressionOptimizerTest.COUNT, new Function(){
+
+			@Override
+			public FieldValue evaluate(List<FieldValue> values){
+				ExpressionOptimizerTest.count++;
+
+				return values.get(0);
+			}
+		});
+
+		FieldName name = new FieldName("x");
+
+		ExpressionOptimizer optimizer = new ExpressionOptimizer();
+
+		Apply constant = new Apply("*").withExpressions(new Constant("2"), new Constant("3"));
+
+		CompiledExpression first = optimizer.compile(new Apply("+").withExpressions(new Apply(ExpressionOptimizerTest.COUNT).withExpressions(new FieldRef(name)), constant));
+		CompiledExpression second = optimizer.compile(new Apply("-").withExpressions(new Apply(ExpressionOptimizerTest.COUNT).withExpressions(new FieldRef(name)), new Constant("1")));
+
+		assertEquals(Arrays.asList(constant), optimizer.getFoldedExpressions());
+		assertEquals(1, (optimizer.getSharedExpressions()).size());
+
+		EvaluationContext context = new LocalEvaluationContext();
+		context.declare(name, 4);
+
+		ExpressionOptimizerTest.count = 0;
+
+		assertEquals(10, FieldValueUtil.getValue(first.evaluate(context)));
+		assertEquals(3, FieldValueUtil.getValue(second.evaluate(context)));
+
+		assertEquals(1, ExpressionOptimizerTest.count);
+
+		// A declaration invalidates the values of shared subexpressions
+		context.declare(name, 5);
+
+		assertEquals(4, FieldValueUtil.getValue(second.evaluate(context)));
+
+		assertEquals(2, ExpressionOptimizerTest.count);
+	}
+
+	@Test
+	public void optimize() throws Exception {
+		PMML pmml = PMMLTest.loadPMML(ComplexPartialScoreTest.class);
+
+		ScorecardEvaluator evaluator = new ScorecardEvaluator(pmml);
+
+		Scorecard scorecard = evaluator.getModel();
+
+		Characteristic characteristic = ((scorecard.getCharacteristics()).getCharacteristics()).get(2);
+
+		ComplexPartialScore complexPartialScore = ((characteristic.getAttributes()).get(1)).getComplexPartialScore();
+
+		Map<FieldName, ?> arguments = PMMLTest.createArguments("department", null, "age", null, "income", 1000d);
+
+		Map<FieldName, ?> expected = evaluator.evaluate(arguments);
+
+		CompiledExpression compiledExpression = ExpressionUtil.compile(complexPartialScore);
+
+		ExpressionOptimizer optimizer = evaluator.optimize();
+
+		assertNotNull(optimizer);
+		assertSame(optimizer, evaluator.optimize());
+
+		// The shared compiled forms are not replaced
+		assertSame(compiledExpression, ExpressionUtil.compile(complexPartialScore));
+
+		FrameLayout frameLayout = evaluator.getFrameLayout();
+
+		CompiledExpression optimizedExpression = frameLayout.compile(complexPartialScore, complexPartialScore.getExpression());
+
+		assertNotSame(compiledExpression, optimizedExpression);
+
+		assertEquals(expected, evaluator.evaluate(arguments));
+	}
+
+	private static int count = 0;
+
+	private static final String COUNT = "ExpressionOptimizerTest.count";
+}
\ No newline at end of file
@@ -150,6 +150,45 @@ public class ExpressionUtilTest {
 		assertEquals("1", evaluate(apply, createContext(name, 1)));
 	}
 
+	@Test
+	public void compile(){
+		FieldName name = new FieldName("x");
+
+		Apply apply = new Apply("+");
+		apply.withExpressions(new Apply("*").withExpressions(new FieldRef(name), new Constant("2")), new Constant("1"));
+
+		DerivedField derivedField = new DerivedField(OpType.CONTINUOUS, DataType.INTEGER)
+			.withExpression(apply);
+
+		CompiledExpression compiledExpression = ExpressionUtil.compile(derivedField);
+
+		assertSame(compiledExpression, ExpressionUtil.compile(derivedField));
+
+		EvaluationContext context = createContext(name, 3);
+
+		assertEquals(evaluate(apply, context), FieldValueUtil.getValue(compiledExpression.evaluate(context)));
+		assertEquals(7, FieldValueUtil.getValue(compiledExpression.evaluate(context)));
+
+		context = createContext(name, null);
+
+		assertEquals(null, compiledExpression.evaluate(context));
+		apply.setMapMissingTo("missing");
+		assertEquals("missing", FieldValueUtil.getValue(compiledExpression.evaluate(context)));
+
+		Constant constant = new Constant("three");
+		constant.setDataType(DataType.INTEGER);
+
+		CompiledExpression invalidExpression = CompiledExpression.compile(constant);
+
+		try {
+			invalidExpression.evaluate(context);
+
+			Assert.fail();
+		} catch(RuntimeException re){
+			// Ignored
+		}
+	}
+
 	@Test
 	public void evaluateAggregate(){
 		FieldName name = new FieldName("x");
@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2013 Villu Ruusmann
+ *
+ * This file is part of JPMML-Evaluator
+ *
+ * JPMML-Evaluator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Evaluator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Evaluator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.dmg.pmml.*;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+public class FlatTreeTest {
+
+	@Test
+	public void layout(){
+		Node leftLeft = new Node().withId("LL").withPredicate(new True());
+		Node leftRight = new Node().withId("LR").withPredicate(new True());
+
+		Node left = new Node().withId("L").withPredicate(new True()).withNodes(leftLeft, leftRight);
+		Node right = new Node().withId("R").withPredicate(new False());
+
+		Node root = new Node().withId("T").withPredicate(new True()).withNodes(left, right);
+
+		FlatTree flatTree = new FlatTree(root);
+
+		assertEquals(5, flatTree.size());
+
+		assertSame(root, flatTree.getNode(0));
+		assertSame(left, flatTree.getNode(1));
+		assertSame(right, flatTree.getNode(2));
+		assertSame(leftLeft, flatTree.getNode(3));
+		assertSame(leftRight, flatTree.getNode(4));
+
+		assertEquals(1, flatTree.getFirstChild(0));
+		assertEquals(2, flatTree.getChildCount(0));
+		assertEquals(3, flatTree.getFirstChild(1));
+		assertEquals(2, flatTree.getChildCount(1));
+		assertEquals(0, flatTree.getChildCount(2));
+
+		EvaluationContext context = new LocalEvaluationContext();
+
+		assertEquals(FlatTree.TRUE, flatTree.evaluate(1, null, context));
+		assertEquals(FlatTree.FALSE, flatTree.evaluate(2, null, context));
+	}
+
+	@Test
+	public void evaluateSimplePredicate(){
+		FieldName name = new FieldName("x");
+
+		List<FieldValue> values = Arrays.asList(
+			null,
+			new ContinuousValue(DataType.DOUBLE, 1d), new ContinuousValue(DataType.DOUBLE, 1.5d), new ContinuousValue(DataType.DOUBLE, -0d), new ContinuousValue(DataType.DOUBLE, Double.NaN),
+			new ContinuousValue(DataType.FLOAT, 1.5f), new ContinuousValue(DataType.FLOAT, 0.1f),
+			new ContinuousValue(DataType.INTEGER, 1), new ContinuousValue(DataType.INTEGER, 2),
+			new ContinuousValue(DataType.DOUBLE, 1),
+			new CategoricalValue(DataType.DOUBLE, 1d), new CategoricalValue(DataType.STRING, "1"),
+			new OrdinalValue(DataType.INTEGER, 1)
+		);
+
+		List<String> thresholds = Arrays.asList("1", "1.0", "1.5", "0.1", "0", "-0", "NaN", "abc");
+
+		for(SimplePredicate.Operator operator : SimplePredicate.Operator.values()){
+
+			for(String threshold : thresholds){
+				SimplePredicate simplePredicate = new SimplePredicate(name, operator)
+					.withValue(threshold);
+
+				FlatTree flatTree = new FlatTree(new Node().withPredicate(simplePredicate));
+
+				for(FieldValue value : values){
+					LocalEvaluationContext context = new LocalEvaluationContext();
+					context.declare(name, value);
+
+					String expected;
+
+					try {
+						expected = String.valueOf(PredicateUtil.evaluate(simplePredicate, context));
+					} catch(RuntimeException re){
+						expected = (re.getClass()).getName();
+					}
+
+					String actual;
+
+					try {
+						actual = toString(flatTree.evaluate(0, null, context));
+					} catch(RuntimeException re){
+						actual = (re.getClass()).getName();
+					}
+
+					assertEquals(operator + " " + threshold + " " + value, expected, actual);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void selectCategory(){
+		FieldName name = new FieldName("x");
+
+		Node first = new Node().withPredicate(new SimplePredicate(name, SimplePredicate.Operator.EQUAL).withValue("1"));
+		Node second = new Node().withPredicate(new SimpleSetPredicate(new Array("2 \"3\" 1", Array.Type.STRING), name, SimpleSetPredicate.BooleanOperator.IS_IN));
+		Node third = new Node().withPredicate(new SimplePredicate(name, SimplePredicate.Operator.EQUAL).withValue("3"));
+		Node fourth = new Node().withPredicate(new SimpleSetPredicate(new Array("4 5", Array.Type.STRING), name, SimpleSetPredicate.BooleanOperator.IS_IN));
+		Node fifth = new Node().withPredicate(new True());
+
+		Node root = new Node().withPredicate(new True()).withNodes(first, second, third, fourth, fifth);
+
+		FlatTree flatTree = new FlatTree(root);
+
+		CategoryIndex categoryIndex = flatTree.getCategoryIndex(1);
+
+		assertNotNull(categoryIndex);
+		assertEquals(4, categoryIndex.size());
+
+		assertNull(flatTree.getCategoryIndex(0));
+		assertNull(flatTree.getCategoryIndex(2));
+		assertNull(flatTree.getCategoryIndex(5));
+
+		List<FieldValue> values = Arrays.asList(
+			null,
+			new CategoricalValue(DataType.STRING, "1"), new CategoricalValue(DataType.STRING, "2"), new CategoricalValue(DataType.STRING, "3"), new CategoricalValue(DataType.STRING, "5"), new CategoricalValue(DataType.STRING, "6"), new CategoricalValue(DataType.STRING, "1.0"),
+			new CategoricalValue(DataType.INTEGER, 3), new CategoricalValue(DataType.DOUBLE, 4d), new CategoricalValue(DataType.DOUBLE, 1.5d), new ContinuousValue(DataType.FLOAT, 5f),
+			new CategoricalValue(DataType.BOOLEAN, Boolean.TRUE)
+		);
+
+		for(FieldValue value : values){
+			LocalEvaluationContext context = new LocalEvaluationContext();
+			context.declare(name, value);
+
+			String expected;
+
+			try {
+				expected = String.valueOf(scan(flatTree, 1, 5, context));
+			} catch(RuntimeException re){
+				expected = (re.getClass()).getName();
+			}
+
+			String actual;
+
+			try {
+				int selected = flatTree.select(1, null, context);
+
+				actual = String.valueOf(selected > -1 ? selected : scan(flatTree, 1, 5, context));
+			} catch(RuntimeException re){
+				actual = (re.getClass()).getName();
+			}
+
+			assertEquals(String.valueOf(value), expected, actual);
+		}
+
+		LocalEvaluationContext context = new LocalEvaluationContext();
+		context.declare(name, new CategoricalValue(DataType.STRING, "3"));
+
+		assertEquals(2, flatTree.select(1, null, context));
+
+		context = new LocalEvaluationContext();
+		context.declare(name, new CategoricalValue(DataType.STRING, "6"));
+
+		assertEquals(5, flatTree.select(1, null, context));
+
+		context = new LocalEvaluationContext();
+		context.declare(name, null);
+
+		assertEquals(-1, flatTree.select(1, null, context));
+	}
+
+	@Test
+	public void selectCategoryRun(){
+		FieldName name = new FieldName("x");
+		FieldName otherName = new FieldName("y");
+
+		Node[] children = new Node[9];
+
+		for(int i = 0; i < children.length; i++){
+			FieldName field = (i == 4 ? otherName : name);
+
+			children[i] = new Node().withPredicate(new SimplePredicate(field, SimplePredicate.Operator.EQUAL).withValue(String.valueOf(i)));
+		}
+
+		FlatTree flatTree = new FlatTree(new Node().withPredicate(new True()).withNodes(children));
+
+		// Runs of nodes that are shorter than the minimum size are not indexed
+		assertNotNull(flatTree.getCategoryIndex(1));
+		assertNull(flatTree.getCategoryIndex(5));
+		assertNotNull(flatTree.getCategoryIndex(6));
+
+		assertEquals(4, (flatTree.getCategoryIndex(1)).size());
+		assertEquals(4, (flatTree.getCategoryIndex(6)).size());
+	}
+
+	/**
+	 * @return The index of the first node that evaluates to "true", or the index that follows the scanned nodes.
+	 */
+	static
+	private int scan(FlatTree flatTree, int start, int end, EvaluationContext context){
+
+		for(int i = start; i < end; i++){
+			int status = flatTree.evaluate(i, null, context);
+
+			if(status == FlatTree.TRUE){
+				return i;
+			} else
+
+			if(status == FlatTree.MISSING){
+				return FlatTree.MISSING;
+			}
+		}
+
+		return end;
+	}
+
+	static
+	private String toString(int status){
+
+		switch(status){
+			case FlatTree.TRUE:
+				return "true";
+			case FlatTree.FALSE:
+				return "false";
+			case FlatTree.MISSING:
+				return "null";
+			default:
+				throw new IllegalArgumentException();
+		}
+	}
+}
\ No newline at end of file
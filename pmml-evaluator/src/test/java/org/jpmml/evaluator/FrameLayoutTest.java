@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2013 Villu Ruusmann
+ *
+ * This file is part of JPMML-Evaluator
+ *
+ * JPMML-Evaluator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Evaluator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Evaluator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.dmg.pmml.*;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+public class FrameLayoutTest {
+
+	@Test
+	public void compile() throws Exception {
+		PMML pmml = PMMLTest.loadPMML(OutputTest.class);
+
+		RegressionModelEvaluator evaluator = new RegressionModelEvaluator(pmml);
+
+		assertNull(evaluator.getFrameLayout());
+
+		FrameLayout frameLayout = evaluator.compile();
+
+		assertSame(frameLayout, evaluator.getFrameLayout());
+		assertSame(frameLayout, evaluator.compile());
+
+		assertEquals(4, frameLayout.size());
+
+		int slot = frameLayout.getSlot(new FieldName("result"));
+
+		assertEquals(0, slot);
+		assertNotNull(frameLayout.getDataField(slot));
+		assertNotNull(frameLayout.getMiningField(slot));
+		assertNull(frameLayout.getOutputField(slot));
+
+		ArgumentPreparer preparer = frameLayout.getPreparer(slot);
+
+		assertNotNull(preparer);
+		assertSame(preparer, frameLayout.getPreparer(slot));
+
+		slot = frameLayout.getSlot(new FieldName("FinalResult"));
+
+		assertEquals(2, slot);
+		assertNull(frameLayout.getDataField(slot));
+		assertNotNull(frameLayout.getOutputField(slot));
+		assertNull(frameLayout.getPreparer(slot));
+
+		assertEquals(-1, frameLayout.getSlot(new FieldName("unknown")));
+
+		RegressionModelEvaluator otherEvaluator = new RegressionModelEvaluator(pmml);
+
+		assertSame(frameLayout, otherEvaluator.compile());
+	}
+
+	@Test
+	public void evaluate() throws Exception {
+		PMML pmml = PMMLTest.loadPMML(OutputTest.class);
+
+		RegressionModelEvaluator evaluator = new RegressionModelEvaluator(pmml);
+		evaluator.compile();
+
+		Map<FieldName, ?> predictions = PMMLTest.createArguments("result", 8d);
+
+		ModelEvaluationContext context = evaluator.createContext(null);
+
+		Map<FieldName, ?> result = OutputUtil.evaluate(predictions, context);
+
+		assertEquals(8d, result.get(new FieldName("RawResult")));
+		assertEquals(35d, result.get(new FieldName("FinalResult")));
+
+		assertEquals("waive", result.get(new FieldName("BusinessDecision")));
+
+		assertEquals(35d, FieldValueUtil.getValue(context.getField(new FieldName("FinalResult"))));
+
+		// Output fields are kept in the frame, not in the map
+		assertTrue((context.getFields()).isEmpty());
+	}
+
+	@Test
+	public void compileExpression() throws Exception {
+		PMML pmml = PMMLTest.loadPMML(OutputTest.class);
+
+		RegressionModelEvaluator evaluator = new RegressionModelEvaluator(pmml);
+
+		FrameLayout frameLayout = evaluator.compile();
+
+		FieldName result = new FieldName("result");
+
+		Apply apply = new Apply("+").withExpressions(new FieldRef(result), new Constant("1"));
+
+		DerivedField derivedField = new DerivedField(OpType.CONTINUOUS, DataType.DOUBLE)
+			.withExpression(apply);
+
+		CompiledExpression compiledExpression = frameLayout.compile(derivedField, apply);
+
+		assertSame(compiledExpression, frameLayout.compile(derivedField, apply));
+		assertNotSame(compiledExpression, ExpressionUtil.compile(derivedField));
+
+		ModelEvaluationContext context = evaluator.createContext(null);
+		context.declare(result, 8d);
+
+		assertEquals(9d, FieldValueUtil.getValue(compiledExpression.evaluate(context)));
+
+		// Contexts with another layout look up the field by name
+		EvaluationContext localContext = new LocalEvaluationContext();
+		localContext.declare(result, 2d);
+
+		assertEquals(3d, FieldValueUtil.getValue(compiledExpression.evaluate(localContext)));
+	}
+
+	@Test
+	public void evaluateSegment() throws Exception {
+		PMML pmml = PMMLTest.loadPMML(ModelChainSimpleTest.class);
+
+		MiningModelEvaluator evaluator = new MiningModelEvaluator(pmml);
+		evaluator.compile();
+
+		ModelEvaluationContext context = evaluator.createContext(null);
+		context.declareAll(PMMLTest.createArguments("petal_length", 1.4d, "petal_width", 0.2d, "temperature", 0d, "cloudiness", 0d));
+
+		MiningModel miningModel = evaluator.getModel();
+
+		List<Segment> segments = (miningModel.getSegmentation()).getSegments();
+
+		TreeModelEvaluator treeModelEvaluator = new TreeModelEvaluator(pmml, (TreeModel)(segments.get(0)).getModel());
+		treeModelEvaluator.compile();
+
+		ModelEvaluationContext treeModelContext = treeModelEvaluator.createContext(context);
+
+		FieldName petalLength = new FieldName("petal_length");
+
+		Map.Entry<FieldName, FieldValue> entry = treeModelContext.getFieldEntry(petalLength);
+
+		// Inherited fields are resolved against the frame of the parent context
+		assertSame(context.getFieldEntry(petalLength), entry);
+		assertSame(entry, treeModelContext.getFieldEntry(petalLength));
+
+		assertEquals(1.4d, FieldValueUtil.getValue(entry.getValue()));
+
+		assertNull(treeModelContext.getField(new FieldName("sepal_length")));
+
+		RegressionModelEvaluator regressionModelEvaluator = new RegressionModelEvaluator(pmml, (RegressionModel)(segments.get(1)).getModel());
+		regressionModelEvaluator.compile();
+
+		ModelEvaluationContext regressionModelContext = regressionModelEvaluator.createContext(context);
+
+		FieldName probabilitySetosa = new FieldName("Probability_setosa");
+
+		assertNull(regressionModelContext.getField(probabilitySetosa));
+
+		// Fields that are not known to the parent layout are resolved by name
+		context.declare(probabilitySetosa, 1d);
+
+		assertEquals(1d, FieldValueUtil.getValue(regressionModelContext.getField(probabilitySetosa)));
+	}
+
+	@Test
+	public void evaluateMiningModel() throws Exception {
+		PMML pmml = PMMLTest.loadPMML(ModelChainSimpleTest.class);
+
+		Map<FieldName, ?> arguments = PMMLTest.createArguments("petal_length", 1.4d, "petal_width", 0.2d, "temperature", 0d, "cloudiness", 0d);
+
+		MiningModelEvaluator evaluator = new MiningModelEvaluator(pmml);
+
+		Map<FieldName, ?> expected = evaluator.evaluate(arguments);
+
+		evaluator.compile();
+
+		Map<FieldName, ?> actual = evaluator.evaluate(arguments);
+
+		FieldName pollenIndex = new FieldName("PollenIndex");
+
+		assertNotNull(expected.get(pollenIndex));
+		assertEquals(expected.get(pollenIndex), actual.get(pollenIndex));
+	}
+}
\ No newline at end of file
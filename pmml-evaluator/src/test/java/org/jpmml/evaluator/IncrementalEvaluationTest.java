@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2014 Villu Ruusmann
+ *
+ * This file is part of JPMML-Evaluator
+ *
+ * JPMML-Evaluator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Evaluator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Evaluator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.dmg.pmml.*;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+public class IncrementalEvaluationTest {
+
+	@Test
+	public void evaluate() throws Exception {
+		PMML pmml = PMMLTest.loadPMML(ParallelSegmentationTest.class);
+
+		MiningModelEvaluator evaluator = new MiningModelEvaluator(pmml);
+
+		Double[] lengths = {1.4d, 2.45d, 4.9d, 5.1d, null};
+		Double[] widths = {0.2d, 0.8d, 1.5d, 1.8d, null};
+
+		for(boolean compiled : new boolean[]{false, true}){
+
+			if(compiled){
+				evaluator.compile();
+			}
+
+			ModelEvaluationContext baseContext = evaluator.createContext(null);
+			baseContext.declareAll(PMMLTest.createArguments("petal_length", lengths[2], "petal_width", widths[2]));
+
+			evaluator.evaluate(baseContext);
+
+			for(Double length : lengths){
+				assertEquals(evaluator.evaluate(PMMLTest.createArguments("petal_length", length, "petal_width", widths[2])), evaluator.reevaluate(baseContext, PMMLTest.createArguments("petal_length", length)));
+			}
+
+			for(Double width : widths){
+				assertEquals(evaluator.evaluate(PMMLTest.createArguments("petal_length", lengths[2], "petal_width", width)), evaluator.reevaluate(baseContext, PMMLTest.createArguments("petal_width", width)));
+			}
+		}
+	}
+
+	@Test
+	public void evaluateModelChain() throws Exception {
+		PMML pmml = PMMLTest.loadPMML(ModelChainSimpleTest.class);
+
+		FieldName petalLength = new FieldName("petal_length");
+
+		MiningModel miningModel = (MiningModel)(pmml.getModels()).get(0);
+
+		List<Segment> segments = (miningModel.getSegmentation()).getSegments();
+
+		// The second segment depends on the output fields of the first segment
+		Segment segment = segments.get(0);
+		segment.setPredicate(new SimplePredicate(petalLength, SimplePredicate.Operator.LESS_THAN).withValue("2.45"));
+
+		MiningModelEvaluator evaluator = new MiningModelEvaluator(pmml);
+
+		for(boolean compiled : new boolean[]{false, true}){
+
+			if(compiled){
+				evaluator.compile();
+			}
+
+			ModelEvaluationContext baseContext = evaluator.createContext(null);
+			baseContext.declareAll(PMMLTest.createArguments("petal_length", 1.4d, "petal_width", 0.2d, "temperature", 0d, "cloudiness", 0d));
+
+			evaluator.evaluate(baseContext);
+
+			assertEquals(evaluator.evaluate(PMMLTest.createArguments("petal_length", 2d, "petal_width", 0.2d, "temperature", 0d, "cloudiness", 0d)), evaluator.reevaluate(baseContext, PMMLTest.createArguments("petal_length", 2d)));
+
+			try {
+				evaluator.evaluate(PMMLTest.createArguments("petal_length", 5.1d, "petal_width", 0.2d, "temperature", 0d, "cloudiness", 0d));
+
+				Assert.fail();
+			} catch(MissingFieldException mfe){
+				// Ignored
+			}
+
+			// The output fields of the first segment are not copied from the base record
+			try {
+				evaluator.reevaluate(baseContext, PMMLTest.createArguments("petal_length", 5.1d));
+
+				Assert.fail();
+			} catch(MissingFieldException mfe){
+				// Ignored
+			}
+		}
+	}
+}
\ No newline at end of file
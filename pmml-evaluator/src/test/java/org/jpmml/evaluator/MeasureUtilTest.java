@@ -61,6 +61,51 @@ public class MeasureUtilTest {
 		assertEquals(Double.valueOf(2d / 4d), MeasureUtil.evaluateSimilarity(comparisonMeasure, clusteringFields, flags, referenceFlags));
 	}
 
+	@Test
+	public void evaluateDistance(){
+		List<ClusteringField> clusteringFields = createClusteringFields("one", "two", "three");
+
+		(clusteringFields.get(1)).setFieldWeight(2d);
+
+		List<FieldValue> values = createValues(1d, 2d, 3d);
+		List<FieldValue> referenceValues = createValues(0.5d, 4d, -1d);
+
+		ComparisonMeasure comparisonMeasure = new ComparisonMeasure(ComparisonMeasure.Kind.DISTANCE);
+
+		Double adjustment = MeasureUtil.calculateAdjustment(values);
+
+		comparisonMeasure = comparisonMeasure.withMeasure(new Euclidean());
+
+		double[] weights = MeasureUtil.getDenseWeights(comparisonMeasure, clusteringFields);
+
+		assertTrue(Arrays.equals(new double[]{1d, 2d, 1d}, weights));
+
+		Double distance = MeasureUtil.evaluateDistance(comparisonMeasure, weights, MeasureUtil.toDenseVector(values), MeasureUtil.toDenseVector(referenceValues), adjustment);
+
+		assertEquals(Math.sqrt(0.25d + 2d * 4d + 16d), distance, 1e-12);
+		assertEquals(MeasureUtil.evaluateDistance(comparisonMeasure, clusteringFields, values, referenceValues, adjustment), distance, 1e-12);
+
+		comparisonMeasure = comparisonMeasure.withMeasure(new SquaredEuclidean());
+
+		distance = MeasureUtil.evaluateDistance(comparisonMeasure, weights, MeasureUtil.toDenseVector(values), MeasureUtil.toDenseVector(referenceValues), adjustment);
+
+		assertEquals(MeasureUtil.evaluateDistance(comparisonMeasure, clusteringFields, values, referenceValues, adjustment), distance, 1e-12);
+
+		comparisonMeasure = comparisonMeasure.withMeasure(new CityBlock());
+
+		assertNull(MeasureUtil.getDenseWeights(comparisonMeasure, clusteringFields));
+
+		comparisonMeasure = comparisonMeasure.withMeasure(new Euclidean());
+
+		(clusteringFields.get(2)).setCompareFunction(CompareFunctionType.DELTA);
+
+		assertNull(MeasureUtil.getDenseWeights(comparisonMeasure, clusteringFields));
+
+		values.set(1, null);
+
+		assertNull(MeasureUtil.toDenseVector(values));
+	}
+
 	static
 	private List<ClusteringField> createClusteringFields(String... names){
 		List<ClusteringField> result = Lists.newArrayList();
@@ -72,6 +117,17 @@ public class MeasureUtilTest {
 		return result;
 	}
 
+	static
+	private List<FieldValue> createValues(Number... numbers){
+		List<FieldValue> result = Lists.newArrayList();
+
+		for(Number number : numbers){
+			result.add(FieldValueUtil.create(number));
+		}
+
+		return result;
+	}
+
 	static
 	private BitSet createFlags(Number... numbers){
 		List<FieldValue> result = Lists.newArrayList();
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2013 Villu Ruusmann
+ *
+ * This file is part of JPMML-Evaluator
+ *
+ * JPMML-Evaluator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Evaluator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Evaluator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.dmg.pmml.*;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+public class ModelEvaluationContextTest {
+
+	@Test
+	public void reset() throws Exception {
+		PMML pmml = PMMLTest.loadPMML(OutputTest.class);
+
+		RegressionModelEvaluator evaluator = new RegressionModelEvaluator(pmml);
+
+		reset(evaluator);
+
+		evaluator.compile();
+
+		reset(evaluator);
+	}
+
+	@Test
+	public void resetMiningModel() throws Exception {
+		PMML pmml = PMMLTest.loadPMML(ModelChainSimpleTest.class);
+
+		MiningModelEvaluator evaluator = new MiningModelEvaluator(pmml);
+
+		Map<FieldName, ?> arguments = PMMLTest.createArguments("petal_length", 1.4d, "petal_width", 0.2d, "temperature", 0d, "cloudiness", 0d);
+		Map<FieldName, ?> otherArguments = PMMLTest.createArguments("petal_length", 5.1d, "petal_width", 1.8d, "temperature", 25d, "cloudiness", 0.5d);
+
+		Map<FieldName, ?> expected = evaluator.evaluate(arguments);
+		Map<FieldName, ?> otherExpected = evaluator.evaluate(otherArguments);
+
+		MiningModelEvaluationContext context = evaluator.createContext(null);
+		context.declareAll(arguments);
+
+		assertEquals(expected, evaluator.evaluate(context));
+
+		// Segment contexts are not retained before the context is reset
+		assertNull(context.getSegmentContext("1"));
+
+		context.reset();
+		context.declareAll(arguments);
+
+		assertEquals(expected, evaluator.evaluate(context));
+
+		ModelEvaluationContext segmentContext = context.getSegmentContext("1");
+
+		assertNotNull(segmentContext);
+
+		context.reset();
+		context.declareAll(otherArguments);
+
+		assertEquals(otherExpected, evaluator.evaluate(context));
+
+		// Segment contexts are reused between records
+		assertSame(segmentContext, context.getSegmentContext("1"));
+
+		MiningModelEvaluationContext otherContext = evaluator.createContext(null);
+		otherContext.reset();
+		otherContext.declareAll(arguments);
+
+		assertEquals(expected, evaluator.evaluate(otherContext));
+
+		// Segment evaluators are shared between contexts
+		assertSame(segmentContext.getModelManager(), (otherContext.getSegmentContext("1")).getModelManager());
+	}
+
+	static
+	private void reset(RegressionModelEvaluator evaluator){
+		ModelEvaluationContext context = evaluator.createContext(null);
+
+		FieldName result = new FieldName("result");
+
+		context.declare(result, 8d);
+		context.addWarning("Warning");
+
+		Map<FieldName, ?> predictions = PMMLTest.createArguments("result", 8d);
+
+		assertEquals(35d, (OutputUtil.evaluate(predictions, context)).get(new FieldName("FinalResult")));
+
+		context.reset();
+
+		assertNull(context.getField(result));
+		assertNull(context.getField(new FieldName("FinalResult")));
+
+		assertTrue((context.getFields()).isEmpty());
+		assertTrue((context.getWarnings()).isEmpty());
+
+		context.declare(result, 1d);
+
+		assertEquals(1d, FieldValueUtil.getValue(context.getField(result)));
+
+		assertFalse(context.declare(new FieldName("FinalResult"), 1d));
+	}
+}
\ No newline at end of file
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2013 Villu Ruusmann
+ *
+ * This file is part of JPMML-Evaluator
+ *
+ * JPMML-Evaluator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Evaluator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Evaluator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.dmg.pmml.*;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+public class NodeClassificationMapTest {
+
+	@Test
+	public void sharedDistribution(){
+		Node node = new Node()
+			.withId("1")
+			.withScoreDistributions(new ScoreDistribution("yes", 3d), new ScoreDistribution("no", 1d));
+
+		NodeDistribution distribution = new NodeDistribution(node);
+
+		assertEquals("yes", distribution.getWinner());
+
+		NodeClassificationMap first = new NodeClassificationMap(node, distribution);
+		NodeClassificationMap second = new NodeClassificationMap(node, distribution);
+
+		assertEquals("yes", first.getResult());
+		assertEquals("1", first.getEntityId());
+
+		assertEquals((Double)0.75d, first.getProbability("yes"));
+		assertEquals((Double)0.25d, first.getProbability("no"));
+		assertEquals((Double)0d, first.getProbability("maybe"));
+
+		assertEquals(Arrays.asList("yes", "no"), new ArrayList<String>(first.keySet()));
+		assertEquals(distribution.getProbabilities(), first);
+
+		// Changes to one prediction do not leak into the shared distribution
+		first.put("yes", 0d);
+
+		assertEquals("no", first.getResult());
+		assertEquals((Double)0d, first.getProbability("yes"));
+
+		assertEquals((Double)0.75d, second.getProbability("yes"));
+		assertEquals((Double)0.75d, second.get("yes"));
+
+		// Inherited access paths see the probabilities as well
+		assertEquals(distribution.getProbabilities(), second.clone());
+	}
+
+	@Test
+	public void emptyDistribution(){
+		Node node = new Node()
+			.withScore("1.5");
+
+		NodeClassificationMap classificationMap = new NodeClassificationMap(node, new NodeDistribution(node));
+
+		assertEquals("1.5", classificationMap.getResult());
+		assertTrue(classificationMap.isEmpty());
+	}
+}
\ No newline at end of file
@@ -43,4 +43,36 @@ public class OutputTest extends RegressionModelEvaluatorTest {
 
 		assertEquals("waive", result.get(new FieldName("BusinessDecision")));
 	}
+
+	@Test
+	public void evaluateDemanded() throws Exception {
+		RegressionModelEvaluator regressionModelEvaluator = createEvaluator();
+
+		Map<FieldName, ?> predictions = createArguments("result", 8d);
+
+		regressionModelEvaluator.setDemandedFields(Collections.singleton(new FieldName("RawResult")));
+
+		Map<FieldName, ?> result = OutputUtil.evaluate(predictions, regressionModelEvaluator.createContext(null));
+
+		assertEquals(8d, result.get(new FieldName("RawResult")));
+
+		assertFalse(result.containsKey(new FieldName("FinalResult")));
+		assertFalse(result.containsKey(new FieldName("BusinessDecision")));
+
+		// The decision depends on the final result, which depends on the raw result
+		regressionModelEvaluator.setDemandedFields(Collections.singleton(new FieldName("BusinessDecision")));
+
+		result = OutputUtil.evaluate(predictions, regressionModelEvaluator.createContext(null));
+
+		assertEquals(35d, result.get(new FieldName("FinalResult")));
+		assertEquals("waive", result.get(new FieldName("BusinessDecision")));
+
+		try {
+			regressionModelEvaluator.setDemandedFields(Collections.singleton(new FieldName("result2")));
+
+			fail();
+		} catch(IllegalArgumentException iae){
+			// Ignored
+		}
+	}
 }
\ No newline at end of file
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2013 Villu Ruusmann
+ *
+ * This file is part of JPMML-Evaluator
+ *
+ * JPMML-Evaluator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Evaluator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Evaluator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.dmg.pmml.*;
+
+import com.google.common.collect.*;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+public class ParallelSegmentationTest extends MiningModelEvaluatorTest {
+
+	@Test
+	public void evaluate() throws Exception {
+		MiningModelEvaluator evaluator = createEvaluator();
+
+		double[][] examples = {{1.4d, 0.2d}, {4.9d, 1.5d}, {5.1d, 1.8d}, {4.8d, 0.6d}};
+
+		List<Map<FieldName, ?>> expected = Lists.newArrayList();
+
+		for(double[] example : examples){
+			expected.add(evaluateExample(evaluator, example));
+		}
+
+		ExecutorService executorService = Executors.newFixedThreadPool(2);
+
+		try {
+			evaluator.setExecutorService(executorService);
+
+			for(int threshold = 1; threshold <= 5; threshold++){
+				evaluator.setParallelThreshold(threshold);
+
+				for(int i = 0; i < examples.length; i++){
+					Map<FieldName, ?> result = evaluateExample(evaluator, examples[i]);
+
+					// Votes are reduced in the order of segments, so probabilities are exactly equal
+					assertEquals(expected.get(i), result);
+				}
+			}
+		} finally {
+			executorService.shutdown();
+		}
+	}
+
+	private Map<FieldName, ?> evaluateExample(MiningModelEvaluator evaluator, double[] example){
+		Map<FieldName, ?> arguments = createArguments("petal_length", example[0], "petal_width", example[1]);
+
+		return evaluator.evaluate(arguments);
+	}
+}
\ No newline at end of file
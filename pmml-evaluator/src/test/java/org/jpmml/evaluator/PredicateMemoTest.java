@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2014 Villu Ruusmann
+ *
+ * This file is part of JPMML-Evaluator
+ *
+ * JPMML-Evaluator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Evaluator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Evaluator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.dmg.pmml.*;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+public class PredicateMemoTest extends MiningModelEvaluatorTest {
+
+	@Test
+	public void evaluate() throws Exception {
+		MiningModelEvaluator evaluator = createEvaluator();
+
+		MiningModelEvaluator compiledEvaluator = createEvaluator();
+		compiledEvaluator.compile();
+
+		PredicateRegistry predicateRegistry = compiledEvaluator.getPredicateRegistry();
+
+		// "petal_length < 6", "petal_length < 2.45" and "petal_width < 0.8"
+		assertEquals(3, predicateRegistry.size());
+
+		assertTrue(predicateRegistry.isInputField(new FieldName("petal_length")));
+		assertFalse(predicateRegistry.isInputField(new FieldName("petal_area")));
+
+		double[][] examples = {{1.4d, 0.2d}, {4.9d, 1.5d}, {5.1d, 1.8d}, {6.3d, 2.5d}, {4.8d, 0.6d}};
+
+		ModelEvaluationContext context = compiledEvaluator.createContext(null);
+
+		for(double[] example : examples){
+			Map<FieldName, ?> arguments = createArguments("petal_length", example[0], "petal_width", example[1]);
+
+			context.reset();
+			context.declareAll(arguments);
+
+			assertEquals(evaluator.evaluate(arguments), compiledEvaluator.evaluate(context));
+
+			PredicateMemo predicateMemo = context.getPredicateMemo();
+
+			Segment segment = (compiledEvaluator.getEntityRegistry()).get("1");
+
+			int id = predicateMemo.getId(segment.getPredicate());
+
+			assertTrue(predicateMemo.contains(id));
+			assertEquals(Boolean.valueOf(example[0] < 6d), predicateMemo.get(id));
+		}
+
+		context.declare(new FieldName("petal_length"), 1d);
+
+		assertFalse(context.getPredicateMemo().contains(0));
+	}
+
+	@Test
+	public void evaluateSharedThreshold() throws Exception {
+		PMML pmml = PMMLTest.loadPMML(ParallelSegmentationTest.class);
+
+		MiningModel miningModel = (MiningModel)(pmml.getModels()).get(0);
+
+		List<Segment> segments = (miningModel.getSegmentation()).getSegments();
+
+		// Segment 3 splits by the same threshold as segment 1
+		TreeModel treeModel = (TreeModel)(segments.get(2)).getModel();
+
+		for(Node node : (treeModel.getNode()).getNodes()){
+			SimplePredicate simplePredicate = (SimplePredicate)node.getPredicate();
+
+			simplePredicate.setValue("2.45");
+		}
+
+		MiningModelEvaluator evaluator = new MiningModelEvaluator(pmml);
+
+		MiningModelEvaluator compiledEvaluator = new MiningModelEvaluator(pmml);
+		compiledEvaluator.compile();
+
+		PredicateRegistry predicateRegistry = compiledEvaluator.getPredicateRegistry();
+
+		// "petal_length < 2.45" and "petal_length >= 2.45"
+		assertEquals(2, predicateRegistry.size());
+
+		final
+		FieldName petalLength = new FieldName("petal_length");
+
+		final
+		int[] count = {0};
+
+		MiningModelEvaluationContext context = new MiningModelEvaluationContext(compiledEvaluator, null, compiledEvaluator.getFrameLayout()){
+
+			@Override
+			Map.Entry<FieldName, FieldValue> getFieldEntry(int slot){
+				Map.Entry<FieldName, FieldValue> entry = super.getFieldEntry(slot);
+
+				if(entry != null && (petalLength).equals(entry.getKey())){
+					count[0]++;
+				}
+
+				return entry;
+			}
+		};
+
+		Map<FieldName, ?> arguments = createArguments("petal_length", 1.4d, "petal_width", 0.2d);
+
+		context.declareAll(arguments);
+
+		assertEquals(evaluator.evaluate(arguments), compiledEvaluator.evaluate(context));
+
+		// The threshold 2.45 is tested by segment 1, and the threshold 5.05 by segment 5
+		assertEquals(2, count[0]);
+	}
+}
\ No newline at end of file
@@ -27,12 +27,113 @@
  */
 package org.jpmml.evaluator;
 
+import java.util.*;
+
+import org.dmg.pmml.*;
+
 import org.junit.*;
 
 import static org.junit.Assert.*;
 
 public class PredicateUtilTest {
 
+	@Test
+	public void getConstant(){
+		List<FieldValue> values = Arrays.asList(
+			FieldValueUtil.create(DataType.DOUBLE, OpType.CONTINUOUS, 1.5d),
+			FieldValueUtil.create(DataType.DOUBLE, OpType.CONTINUOUS, -0d),
+			FieldValueUtil.create(DataType.DOUBLE, OpType.CONTINUOUS, Double.NaN),
+			FieldValueUtil.create(DataType.FLOAT, OpType.CONTINUOUS, 1.5f),
+			FieldValueUtil.create(DataType.INTEGER, OpType.CONTINUOUS, 2),
+			FieldValueUtil.create(DataType.INTEGER, OpType.CATEGORICAL, 2),
+			FieldValueUtil.create(DataType.STRING, OpType.CATEGORICAL, "2"),
+			FieldValueUtil.create(DataType.STRING, OpType.CONTINUOUS, "1.5")
+		);
+
+		for(String string : Arrays.asList("1.5", "0", "-0.0", "2", "2.0", "NaN")){
+			SimplePredicate simplePredicate = new SimplePredicate(new FieldName("x"), SimplePredicate.Operator.EQUAL);
+			simplePredicate.setValue(string);
+
+			PredicateConstant constant = PredicateUtil.getConstant(simplePredicate);
+
+			assertSame(constant, PredicateUtil.getConstant(simplePredicate));
+
+			for(FieldValue value : values){
+
+				try {
+					assertEquals(value.equalsString(string), constant.equalsValue(value));
+				} catch(NumberFormatException nfe){
+					continue;
+				}
+
+				if(value instanceof ContinuousValue){
+					assertEquals(Integer.signum(value.compareToString(string)), Integer.signum(constant.compareToValue(value)));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void evaluateSimpleSetPredicate(){
+		FieldName name = new FieldName("x");
+
+		Array array = new Array("1 2.0 \"3\" 10", Array.Type.STRING);
+
+		SimpleSetPredicate isIn = new SimpleSetPredicate(array, name, SimpleSetPredicate.BooleanOperator.IS_IN);
+		SimpleSetPredicate isNotIn = new SimpleSetPredicate(array, name, SimpleSetPredicate.BooleanOperator.IS_NOT_IN);
+
+		List<?> values = Arrays.asList("1", "2", "2.0", "3", 1, 2, 5, 2d, 3f, 10d);
+
+		for(Object value : values){
+			FieldValue fieldValue = FieldValueUtil.create(value);
+
+			LocalEvaluationContext context = new LocalEvaluationContext();
+			context.declare(name, fieldValue);
+
+			Boolean expected = fieldValue.equalsAnyString(ArrayUtil.getContent(array));
+
+			assertEquals(expected, PredicateUtil.evaluate(isIn, context));
+			assertEquals(!expected, PredicateUtil.evaluate(isNotIn, context));
+		}
+
+		assertSame(PredicateUtil.getCategoryIndex(isIn), PredicateUtil.getCategoryIndex(isIn));
+	}
+
+	@Test
+	public void evaluateCompoundPredicate(){
+		FieldName x = new FieldName("x");
+		FieldName y = new FieldName("y");
+
+		LocalEvaluationContext context = new LocalEvaluationContext();
+		context.declare(x, FieldValueUtil.create(1));
+
+		SimplePredicate isOne = new SimplePredicate(x, SimplePredicate.Operator.EQUAL).withValue("1");
+		SimplePredicate isMissing = new SimplePredicate(y, SimplePredicate.Operator.EQUAL).withValue("1");
+
+		// Throws an exception when the field is missing
+		SimpleSetPredicate isIn = new SimpleSetPredicate(new Array("1 2", Array.Type.INT), y, SimpleSetPredicate.BooleanOperator.IS_IN);
+
+		assertEquals(null, evaluateAnd(context, isOne, isMissing));
+		assertEquals(Boolean.FALSE, evaluateAnd(context, isMissing, new False()));
+		assertEquals(Boolean.FALSE, evaluateAnd(context, isIn, new False()));
+
+		assertEquals(null, evaluateOr(context, isMissing, new False()));
+		assertEquals(Boolean.TRUE, evaluateOr(context, isMissing, isOne));
+		assertEquals(Boolean.TRUE, evaluateOr(context, isIn, new True()));
+
+		CompoundPredicate compoundPredicate = createCompoundPredicate(CompoundPredicate.BooleanOperator.AND, isIn, isOne, new True());
+
+		assertEquals(Arrays.asList(compoundPredicate.getPredicates().get(2), isOne, isIn), PredicateUtil.getEvaluationOrder(compoundPredicate, context));
+
+		try {
+			evaluateAnd(context, isOne, isIn);
+
+			fail();
+		} catch(MissingFieldException mfe){
+			// Ignored
+		}
+	}
+
 	@Test
 	public void binaryAnd(){
 		assertEquals(Boolean.TRUE, PredicateUtil.binaryAnd(Boolean.TRUE, Boolean.TRUE));
@@ -71,4 +172,22 @@ public class PredicateUtilTest {
 		assertEquals(null, PredicateUtil.binaryXor(null, Boolean.FALSE));
 		assertEquals(null, PredicateUtil.binaryXor(null, null));
 	}
+
+	static
+	private Boolean evaluateAnd(EvaluationContext context, Predicate... predicates){
+		return PredicateUtil.evaluate(createCompoundPredicate(CompoundPredicate.BooleanOperator.AND, predicates), context);
+	}
+
+	static
+	private Boolean evaluateOr(EvaluationContext context, Predicate... predicates){
+		return PredicateUtil.evaluate(createCompoundPredicate(CompoundPredicate.BooleanOperator.OR, predicates), context);
+	}
+
+	static
+	private CompoundPredicate createCompoundPredicate(CompoundPredicate.BooleanOperator booleanOperator, Predicate... predicates){
+		CompoundPredicate result = new CompoundPredicate(booleanOperator);
+		result.getPredicates().addAll(Arrays.asList(predicates));
+
+		return result;
+	}
 }
\ No newline at end of file
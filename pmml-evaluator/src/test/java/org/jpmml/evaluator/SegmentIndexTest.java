@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2014 Villu Ruusmann
+ *
+ * This file is part of JPMML-Evaluator
+ *
+ * JPMML-Evaluator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Evaluator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Evaluator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.dmg.pmml.*;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+public class SegmentIndexTest extends MiningModelEvaluatorTest {
+
+	@Test
+	public void select() throws Exception {
+		MiningModelEvaluator evaluator = createEvaluator();
+
+		MiningModel miningModel = evaluator.getModel();
+
+		Segmentation segmentation = miningModel.getSegmentation();
+
+		SegmentIndex segmentIndex = new SegmentIndex(segmentation.getSegments());
+
+		assertEquals(new FieldName("region"), segmentIndex.getField());
+		assertEquals(0, segmentIndex.getFirstRouted());
+
+		assertTrue(segmentIndex.isRouted(0));
+		assertFalse(segmentIndex.isRouted(4));
+		assertFalse(segmentIndex.isRouted(6));
+
+		assertArrayEquals(new int[]{0, 3, 4, 6}, segmentIndex.select(FieldValueUtil.create("north")));
+		assertArrayEquals(new int[]{1, 4, 6}, segmentIndex.select(FieldValueUtil.create("east")));
+		assertArrayEquals(new int[]{4, 5, 6}, segmentIndex.select(FieldValueUtil.create("center")));
+		assertArrayEquals(new int[]{4, 6}, segmentIndex.select(FieldValueUtil.create("other")));
+
+		assertNull(segmentIndex.select(null));
+	}
+
+	@Test
+	public void evaluate() throws Exception {
+		MiningModelEvaluator evaluator = createEvaluator();
+
+		assertEquals("A", evaluateExample(evaluator, "north", 1d));
+		assertEquals("B", evaluateExample(evaluator, "east", 1d));
+		assertEquals("C", evaluateExample(evaluator, "west", 20d));
+		assertEquals("E", evaluateExample(evaluator, "center", 20d));
+		assertEquals("F", evaluateExample(evaluator, "center", 1d));
+		assertEquals("G", evaluateExample(evaluator, "other", 1d));
+	}
+
+	@Test
+	public void selectAfterUnrouted() throws Exception {
+		MiningModelEvaluator evaluator = createEvaluator();
+
+		MiningModel miningModel = evaluator.getModel();
+
+		Segmentation segmentation = miningModel.getSegmentation();
+
+		List<Segment> segments = segmentation.getSegments();
+
+		// Move the segment that tests the "size" field to the front
+		segments.add(0, segments.remove(4));
+
+		SegmentIndex segmentIndex = new SegmentIndex(segments);
+
+		assertEquals(1, segmentIndex.getFirstRouted());
+
+		assertFalse(segmentIndex.isRouted(0));
+
+		assertArrayEquals(new int[]{0, 1, 4, 6}, segmentIndex.select(FieldValueUtil.create("north")));
+
+		assertEquals("E", evaluateExample(evaluator, "north", 20d));
+		assertEquals("A", evaluateExample(evaluator, "north", 1d));
+		assertEquals("G", evaluateExample(evaluator, "other", 1d));
+	}
+
+	private Object evaluateExample(MiningModelEvaluator evaluator, String region, double size){
+		Map<FieldName, ?> arguments = createArguments("region", region, "size", size);
+
+		Map<FieldName, ?> result = evaluator.evaluate(arguments);
+
+		return EvaluatorUtil.decode(result.get(evaluator.getTargetField()));
+	}
+}
\ No newline at end of file
@@ -0,0 +1,341 @@
+/*
+ * Copyright (c) 2013 Villu Ruusmann
+ *
+ * This file is part of JPMML-Evaluator
+ *
+ * JPMML-Evaluator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Evaluator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Evaluator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.evaluator;
+
+import java.util.*;
+
+import org.dmg.pmml.*;
+
+import com.google.common.collect.*;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+public class TreeEnsembleTest {
+
+	@Test
+	public void evaluateQuickScorer(){
+		List<FlatTree> flatTrees = createFlatTrees();
+
+		evaluate(new QuickScorer(flatTrees), flatTrees);
+	}
+
+	@Test
+	public void evaluateBinned(){
+		List<FlatTree> flatTrees = createFlatTrees();
+
+		BinnedTreeEnsemble treeEnsemble = new BinnedTreeEnsemble(flatTrees);
+
+		evaluate(treeEnsemble, flatTrees);
+
+		BinnedTreeEnsemble singleTreeEnsemble = new BinnedTreeEnsemble(Collections.singletonList(new FlatTree(createNode(new True(), new Random(0L), 1))));
+
+		int field = 0;
+
+		double threshold = singleTreeEnsemble.getThreshold(0, 0);
+
+		assertEquals(0, singleTreeEnsemble.getBin(field, threshold - 1d));
+		assertEquals(1, singleTreeEnsemble.getBin(field, threshold));
+		assertEquals(2, singleTreeEnsemble.getBin(field, threshold + 1d));
+		assertEquals(2, singleTreeEnsemble.getBin(field, Double.NaN));
+	}
+
+	@Test
+	public void evaluateCompiled(){
+		List<FlatTree> flatTrees = createFlatTrees();
+
+		CompiledTreeEnsemble treeEnsemble = new CompiledTreeEnsemble(flatTrees);
+
+		evaluate(treeEnsemble, flatTrees);
+	}
+
+	@Test
+	public void evaluateCompiledLarge(){
+		Random random = new Random(42L);
+
+		List<FlatTree> flatTrees = Lists.newArrayList();
+
+		// More distinct thresholds than fit into the constant pool of a single class
+		for(int i = 0; i < 1200; i++){
+			flatTrees.add(new FlatTree(createFullNode(new True(), random, 5)));
+		}
+
+		CompiledTreeEnsemble treeEnsemble = new CompiledTreeEnsemble(flatTrees);
+
+		assertTrue((treeEnsemble.generateClasses("GeneratedTreeEnsemble")).size() > 2);
+
+		for(int i = 0; i < 10; i++){
+			LocalEvaluationContext context = new LocalEvaluationContext();
+			context.declare(TreeEnsembleTest.x, new ContinuousValue(DataType.DOUBLE, random.nextDouble()));
+			context.declare(TreeEnsembleTest.y, new ContinuousValue(DataType.DOUBLE, random.nextDouble()));
+
+			int[] leaves = treeEnsemble.evaluate(context);
+
+			for(int j = 0; j < flatTrees.size(); j++){
+				assertEquals(traverse(flatTrees.get(j), context), leaves[j]);
+			}
+		}
+	}
+
+	@Test
+	public void evaluateBatch(){
+		List<FlatTree> flatTrees = createFlatTrees();
+
+		BatchTreeEnsemble treeEnsemble = new BatchTreeEnsemble(flatTrees);
+
+		evaluate(treeEnsemble, flatTrees);
+
+		double[] values = {-1d, -0d, 0d, 1d, 1.5d, 3d, Double.NaN};
+
+		List<LocalEvaluationContext> contexts = Lists.newArrayList();
+
+		for(double x : values){
+
+			for(double y : values){
+				LocalEvaluationContext context = new LocalEvaluationContext();
+				context.declare(TreeEnsembleTest.x, new ContinuousValue(DataType.DOUBLE, x));
+				context.declare(TreeEnsembleTest.y, (Double.isNaN(y) ? null : new ContinuousValue(DataType.DOUBLE, y)));
+
+				contexts.add(context);
+			}
+		}
+
+		int[][] leaves = treeEnsemble.evaluateAll(contexts);
+
+		assertEquals(contexts.size(), leaves.length);
+
+		for(int i = 0; i < contexts.size(); i++){
+			assertArrayEquals(treeEnsemble.evaluate(contexts.get(i)), leaves[i]);
+		}
+
+		assertTrue(BatchTreeEnsemble.toKey(-0d) < BatchTreeEnsemble.toKey(0d));
+		assertTrue(BatchTreeEnsemble.toKey(-1d) < BatchTreeEnsemble.toKey(-0.5d));
+		assertTrue(BatchTreeEnsemble.toKey(Double.POSITIVE_INFINITY) < BatchTreeEnsemble.toKey(Double.NaN));
+	}
+
+	@Test
+	public void evaluateDerivedField(){
+		List<FlatTree> flatTrees = createFlatTrees();
+
+		final
+		DerivedField derivedField = new DerivedField(OpType.CONTINUOUS, DataType.DOUBLE)
+			.withName(y)
+			.withExpression(new Constant("1"));
+
+		List<TreeEnsemble> treeEnsembles = Arrays.asList(new QuickScorer(flatTrees), new BinnedTreeEnsemble(flatTrees), new CompiledTreeEnsemble(flatTrees), new BatchTreeEnsemble(flatTrees));
+
+		for(TreeEnsemble treeEnsemble : treeEnsembles){
+			LocalEvaluationContext context = new LocalEvaluationContext(){
+
+				@Override
+				public DerivedField resolveDerivedField(FieldName name){
+					return ((derivedField.getName()).equals(name) ? derivedField : null);
+				}
+			};
+			context.declare(TreeEnsembleTest.x, new ContinuousValue(DataType.DOUBLE, 1d));
+
+			// The derived field is left to the trees that reach its split
+			assertNull(treeEnsemble.evaluate(context));
+			assertNull(context.getFieldEntry(y));
+
+			context.declare(TreeEnsembleTest.y, ExpressionUtil.evaluate(y, context));
+
+			assertNotNull(treeEnsemble.evaluate(context));
+		}
+	}
+
+	@Test
+	public void isSupported(){
+		Node first = new Node().withPredicate(new SimplePredicate(x, SimplePredicate.Operator.LESS_THAN).withValue("1"));
+		Node second = new Node().withPredicate(new SimplePredicate(x, SimplePredicate.Operator.GREATER_THAN).withValue("1"));
+
+		assertFalse(TreeEnsemble.isSupported(new FlatTree(new Node().withPredicate(new True()).withNodes(first, second))));
+
+		second = new Node().withPredicate(new SimplePredicate(y, SimplePredicate.Operator.GREATER_OR_EQUAL).withValue("1"));
+
+		assertFalse(TreeEnsemble.isSupported(new FlatTree(new Node().withPredicate(new True()).withNodes(first, second))));
+
+		second = new Node().withPredicate(new SimplePredicate(x, SimplePredicate.Operator.GREATER_OR_EQUAL).withValue("1.0"));
+
+		assertTrue(TreeEnsemble.isSupported(new FlatTree(new Node().withPredicate(new True()).withNodes(first, second))));
+
+		Node third = new Node().withPredicate(new True());
+
+		assertFalse(TreeEnsemble.isSupported(new FlatTree(new Node().withPredicate(new True()).withNodes(first, second, third))));
+
+		first = new Node().withPredicate(new SimplePredicate(x, SimplePredicate.Operator.EQUAL).withValue("1"));
+
+		assertFalse(TreeEnsemble.isSupported(new FlatTree(new Node().withPredicate(new True()).withNodes(first, third))));
+	}
+
+	@Test
+	public void evaluateMiningModel() throws Exception {
+		PMML pmml = PMMLTest.loadPMML(ParallelSegmentationTest.class);
+
+		MiningModelEvaluator evaluator = new MiningModelEvaluator(pmml);
+
+		Object[][] examples = {{1.4d, 0.2d}, {4.9d, 1.5d}, {5.1d, 1.8d}, {2.45d, 0.8d}, {4.8d, null}};
+
+		List<Map<FieldName, ?>> expected = Lists.newArrayList();
+
+		for(Object[] example : examples){
+			expected.add(evaluator.evaluate(PMMLTest.createArguments("petal_length", example[0], "petal_width", example[1])));
+		}
+
+		for(MiningModelEvaluator.Engine engine : MiningModelEvaluator.Engine.values()){
+			evaluator.setEngine(engine);
+
+			for(int i = 0; i < examples.length; i++){
+				Object[] example = examples[i];
+
+				assertEquals(engine + " " + i, expected.get(i), evaluator.evaluate(PMMLTest.createArguments("petal_length", example[0], "petal_width", example[1])));
+			}
+		}
+	}
+
+	static
+	private List<FlatTree> createFlatTrees(){
+		Random random = new Random(42L);
+
+		List<FlatTree> flatTrees = Lists.newArrayList();
+
+		for(int i = 0; i < 20; i++){
+			flatTrees.add(new FlatTree(createNode(new True(), random, (i == 0 ? 8 : 1 + random.nextInt(5)))));
+		}
+
+		for(FlatTree flatTree : flatTrees){
+			assertTrue(TreeEnsemble.isSupported(flatTree));
+		}
+
+		return flatTrees;
+	}
+
+	static
+	private void evaluate(TreeEnsemble treeEnsemble, List<FlatTree> flatTrees){
+		assertEquals(2, treeEnsemble.getFieldCount());
+
+		double[] values = {-1d, -0d, 0d, 0.5d, 1d, 1.5d, 2d, 3d, 4d, Double.NaN, Double.POSITIVE_INFINITY};
+
+		for(double x : values){
+
+			for(double y : values){
+				LocalEvaluationContext context = new LocalEvaluationContext();
+				context.declare(TreeEnsembleTest.x, new ContinuousValue(DataType.DOUBLE, x));
+				context.declare(TreeEnsembleTest.y, new ContinuousValue(DataType.DOUBLE, y));
+
+				int[] leaves = treeEnsemble.evaluate(context);
+
+				for(int i = 0; i < flatTrees.size(); i++){
+					assertEquals(x + " " + y, traverse(flatTrees.get(i), context), leaves[i]);
+				}
+			}
+		}
+
+		LocalEvaluationContext context = new LocalEvaluationContext();
+		context.declare(TreeEnsembleTest.x, new ContinuousValue(DataType.DOUBLE, 1d));
+		context.declare(TreeEnsembleTest.y, null);
+
+		assertNull(treeEnsemble.evaluate(context));
+
+		context = new LocalEvaluationContext();
+		context.declare(TreeEnsembleTest.x, new ContinuousValue(DataType.DOUBLE, 1d));
+		context.declare(TreeEnsembleTest.y, new ContinuousValue(DataType.INTEGER, 1));
+
+		assertNull(treeEnsemble.evaluate(context));
+	}
+
+	static
+	private Node createNode(Predicate predicate, Random random, int depth){
+		Node node = new Node().withPredicate(predicate);
+
+		if(depth == 0){
+			return node;
+		}
+
+		FieldName field = (random.nextBoolean() ? x : y);
+
+		String value = String.valueOf(random.nextInt(4));
+
+		SimplePredicate.Operator[][] operators = {
+			{SimplePredicate.Operator.LESS_THAN, SimplePredicate.Operator.GREATER_OR_EQUAL},
+			{SimplePredicate.Operator.LESS_OR_EQUAL, SimplePredicate.Operator.GREATER_THAN},
+			{SimplePredicate.Operator.GREATER_THAN, SimplePredicate.Operator.LESS_OR_EQUAL},
+			{SimplePredicate.Operator.GREATER_OR_EQUAL, SimplePredicate.Operator.LESS_THAN}
+		};
+
+		SimplePredicate.Operator[] split = operators[random.nextInt(operators.length)];
+
+		Predicate firstPredicate = new SimplePredicate(field, split[0]).withValue(value);
+		Predicate secondPredicate = (random.nextInt(4) == 0 ? new True() : new SimplePredicate(field, split[1]).withValue(value));
+
+		// Full trees at the maximum depth span more than one word of leaf nodes
+		int firstDepth = (depth > 5 ? depth - 1 : random.nextInt(depth));
+		int secondDepth = (depth > 5 ? depth - 1 : random.nextInt(depth));
+
+		return node.withNodes(createNode(firstPredicate, random, firstDepth), createNode(secondPredicate, random, secondDepth));
+	}
+
+	/**
+	 * @return A full tree, where every threshold is a distinct double value.
+	 */
+	static
+	private Node createFullNode(Predicate predicate, Random random, int depth){
+		Node node = new Node().withPredicate(predicate);
+
+		if(depth == 0){
+			return node;
+		}
+
+		FieldName field = (random.nextBoolean() ? x : y);
+
+		String value = String.valueOf(random.nextDouble());
+
+		Predicate firstPredicate = new SimplePredicate(field, SimplePredicate.Operator.LESS_THAN).withValue(value);
+		Predicate secondPredicate = new SimplePredicate(field, SimplePredicate.Operator.GREATER_OR_EQUAL).withValue(value);
+
+		return node.withNodes(createFullNode(firstPredicate, random, depth - 1), createFullNode(secondPredicate, random, depth - 1));
+	}
+
+	static
+	private int traverse(FlatTree flatTree, EvaluationContext context){
+		int index = 0;
+
+		children:
+		while(flatTree.getChildCount(index) > 0){
+			int firstChild = flatTree.getFirstChild(index);
+
+			for(int child = firstChild; child < firstChild + flatTree.getChildCount(index); child++){
+
+				if(flatTree.evaluate(child, null, context) == FlatTree.TRUE){
+					index = child;
+
+					continue children;
+				}
+			}
+
+			fail();
+		}
+
+		return index;
+	}
+
+	private static final FieldName x = new FieldName("x");
+	private static final FieldName y = new FieldName("y");
+}
\ No newline at end of file
@@ -39,6 +39,22 @@ public class ModelManager<M extends Model> extends PMMLManager implements Consum
 
 	private M model = null;
 
+	private Map<FieldName, MiningField> miningFields = null;
+
+	private Map<FieldName, DerivedField> localDerivedFields = null;
+
+	private Map<FieldName, OutputField> outputFields = null;
+
+	private Map<FieldName, Target> targets = null;
+
+	private List<FieldName> activeFieldNames = null;
+
+	private List<FieldName> groupFieldNames = null;
+
+	private List<FieldName> targetFieldNames = null;
+
+	private List<FieldName> outputFieldNames = null;
+
 
 	public ModelManager(PMML pmml, M model){
 		super(pmml);
@@ -61,17 +77,32 @@ public class ModelManager<M extends Model> extends PMMLManager implements Consum
 
 	@Override
 	public List<FieldName> getActiveFields(){
-		return getMiningFields(EnumSet.of(FieldUsageType.ACTIVE));
+
+		if(this.activeFieldNames == null){
+			this.activeFieldNames = getMiningFields(EnumSet.of(FieldUsageType.ACTIVE));
+		}
+
+		return this.activeFieldNames;
 	}
 
 	@Override
 	public List<FieldName> getGroupFields(){
-		return getMiningFields(EnumSet.of(FieldUsageType.GROUP));
+
+		if(this.groupFieldNames == null){
+			this.groupFieldNames = getMiningFields(EnumSet.of(FieldUsageType.GROUP));
+		}
+
+		return this.groupFieldNames;
 	}
 
 	@Override
 	public List<FieldName> getTargetFields(){
-		return getMiningFields(EnumSet.of(FieldUsageType.PREDICTED, FieldUsageType.TARGET));
+
+		if(this.targetFieldNames == null){
+			this.targetFieldNames = getMiningFields(EnumSet.of(FieldUsageType.PREDICTED, FieldUsageType.TARGET));
+		}
+
+		return this.targetFieldNames;
 	}
 
 	@Override
@@ -92,11 +123,14 @@ public class ModelManager<M extends Model> extends PMMLManager implements Consum
 
 	@Override
 	public MiningField getMiningField(FieldName name){
-		MiningSchema miningSchema = getMiningSchema();
 
-		List<MiningField> miningFields = miningSchema.getMiningFields();
+		if(this.miningFields == null){
+			MiningSchema miningSchema = getMiningSchema();
 
-		return find(miningFields, name);
+			this.miningFields = index(miningSchema.getMiningFields());
+		}
+
+		return this.miningFields.get(name);
 	}
 
 	private List<FieldName> getMiningFields(EnumSet<FieldUsageType> fieldUsageTypes){
@@ -113,18 +147,20 @@ public class ModelManager<M extends Model> extends PMMLManager implements Consum
 			}
 		}
 
-		return result;
+		return ImmutableList.copyOf(result);
 	}
 
 	public DerivedField getLocalDerivedField(FieldName name){
-		LocalTransformations localTransformations = getLocalTransformations();
-		if(localTransformations == null){
-			return null;
-		}
 
-		List<DerivedField> derivedFields = localTransformations.getDerivedFields();
+		if(this.localDerivedFields == null){
+			LocalTransformations localTransformations = getLocalTransformations();
+
+			List<DerivedField> derivedFields = (localTransformations != null ? localTransformations.getDerivedFields() : Collections.<DerivedField>emptyList());
+
+			this.localDerivedFields = index(derivedFields);
+		}
 
-		return find(derivedFields, name);
+		return this.localDerivedFields.get(name);
 	}
 
 	public DerivedField resolveDerivedField(FieldName name){
@@ -138,47 +174,63 @@ public class ModelManager<M extends Model> extends PMMLManager implements Consum
 
 	@Override
 	public OutputField getOutputField(FieldName name){
-		Output output = getOutput();
-		if(output == null){
-			return null;
-		}
 
-		List<OutputField> outputFields = output.getOutputFields();
+		if(this.outputFields == null){
+			Output output = getOutput();
 
-		return find(outputFields, name);
+			List<OutputField> outputFields = (output != null ? output.getOutputFields() : Collections.<OutputField>emptyList());
+
+			this.outputFields = index(outputFields);
+		}
+
+		return this.outputFields.get(name);
 	}
 
 	@Override
 	public List<FieldName> getOutputFields(){
-		Output output = getOutput();
-		if(output == null){
-			return Collections.emptyList();
-		}
 
-		List<FieldName> result = Lists.newArrayList();
+		if(this.outputFieldNames == null){
+			Output output = getOutput();
+			if(output == null){
+				this.outputFieldNames = Collections.emptyList();
 
-		List<OutputField> outputFields = output.getOutputFields();
-		for(OutputField outputField : outputFields){
-			result.add(outputField.getName());
+				return this.outputFieldNames;
+			}
+
+			List<FieldName> result = Lists.newArrayList();
+
+			List<OutputField> outputFields = output.getOutputFields();
+			for(OutputField outputField : outputFields){
+				result.add(outputField.getName());
+			}
+
+			this.outputFieldNames = ImmutableList.copyOf(result);
 		}
 
-		return result;
+		return this.outputFieldNames;
 	}
 
 	public Target getTarget(FieldName name){
-		Targets targets = getTargets();
-		if(targets == null){
-			return null;
-		}
 
-		for(Target target : targets){
+		if(this.targets == null){
+			Map<FieldName, Target> result = Maps.newLinkedHashMap();
+
+			Targets targets = getTargets();
+			if(targets != null){
+
+				for(Target target : targets){
+					FieldName field = target.getField();
 
-			if((target.getField()).equals(name)){
-				return target;
+					if(!result.containsKey(field)){
+						result.put(field, target);
+					}
+				}
 			}
+
+			this.targets = ImmutableMap.copyOf(result);
 		}
 
-		return null;
+		return this.targets.get(name);
 	}
 
 	public MiningSchema getMiningSchema(){
@@ -40,45 +40,63 @@ public class PMMLManager implements Serializable {
 
 	private PMML pmml = null;
 
+	private Map<FieldName, DataField> dataFields = null;
+
+	private Map<FieldName, DerivedField> derivedFields = null;
+
+	private Map<String, DefineFunction> defineFunctions = null;
+
 
 	public PMMLManager(PMML pmml){
 		setPMML(pmml);
 	}
 
 	public DataField getDataField(FieldName name){
-		DataDictionary dataDictionary = getDataDictionary();
 
-		List<DataField> dataFields = dataDictionary.getDataFields();
+		if(this.dataFields == null){
+			DataDictionary dataDictionary = getDataDictionary();
 
-		return find(dataFields, name);
+			this.dataFields = index(dataDictionary.getDataFields());
+		}
+
+		return this.dataFields.get(name);
 	}
 
 	public DerivedField getDerivedField(FieldName name){
-		TransformationDictionary transformationDictionary = getTransformationDictionary();
-		if(transformationDictionary == null){
-			return null;
-		}
 
-		List<DerivedField> derivedFields = transformationDictionary.getDerivedFields();
+		if(this.derivedFields == null){
+			TransformationDictionary transformationDictionary = getTransformationDictionary();
+
+			List<DerivedField> derivedFields = (transformationDictionary != null ? transformationDictionary.getDerivedFields() : Collections.<DerivedField>emptyList());
 
-		return find(derivedFields, name);
+			this.derivedFields = index(derivedFields);
+		}
+
+		return this.derivedFields.get(name);
 	}
 
 	public DefineFunction getFunction(String name){
-		TransformationDictionary transformationDictionary = getTransformationDictionary();
-		if(transformationDictionary == null){
-			return null;
-		}
 
-		List<DefineFunction> defineFunctions = transformationDictionary.getDefineFunctions();
-		for(DefineFunction defineFunction : defineFunctions){
+		if(this.defineFunctions == null){
+			Map<String, DefineFunction> result = Maps.newLinkedHashMap();
 
-			if((defineFunction.getName()).equals(name)){
-				return defineFunction;
+			TransformationDictionary transformationDictionary = getTransformationDictionary();
+			if(transformationDictionary != null){
+				List<DefineFunction> defineFunctions = transformationDictionary.getDefineFunctions();
+
+				for(DefineFunction defineFunction : defineFunctions){
+					String functionName = defineFunction.getName();
+
+					if(!result.containsKey(functionName)){
+						result.put(functionName, defineFunction);
+					}
+				}
 			}
+
+			this.defineFunctions = ImmutableMap.copyOf(result);
 		}
 
-		return null;
+		return this.defineFunctions.get(name);
 	}
 
 	public PMML getPMML(){
@@ -170,6 +188,27 @@ public class PMMLManager implements Serializable {
 		return result;
 	}
 
+	/**
+	 * Indexes named objects by their names.
+	 * If the name is not unique, then the first object wins (same as {@link #find(Collection, FieldName)}).
+	 *
+	 * @return An immutable map that preserves the iteration order of objects.
+	 */
+	static
+	public <E extends PMMLObject & HasName> Map<FieldName, E> index(Collection<E> objects){
+		Map<FieldName, E> result = Maps.newLinkedHashMap();
+
+		for(E object : objects){
+			FieldName name = object.getName();
+
+			if(!result.containsKey(name)){
+				result.put(name, object);
+			}
+		}
+
+		return ImmutableMap.copyOf(result);
+	}
+
 	static
 	public <E extends PMMLObject & HasName> E find(Collection<E> objects, FieldName name){
 
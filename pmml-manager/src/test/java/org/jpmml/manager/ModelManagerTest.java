@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2014 Villu Ruusmann
+ *
+ * This file is part of JPMML-Evaluator
+ *
+ * JPMML-Evaluator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Evaluator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Evaluator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.manager;
+
+import java.util.*;
+
+import org.dmg.pmml.*;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+public class ModelManagerTest {
+
+	@Test
+	public void getField(){
+		FieldName x = new FieldName("x");
+		FieldName y = new FieldName("y");
+
+		MiningField firstMiningField = new MiningField(x);
+		MiningField secondMiningField = new MiningField(x)
+			.withUsageType(FieldUsageType.SUPPLEMENTARY);
+
+		MiningSchema miningSchema = new MiningSchema()
+			.withMiningFields(firstMiningField, secondMiningField, new MiningField(y).withUsageType(FieldUsageType.PREDICTED));
+
+		RegressionModel regressionModel = new RegressionModel(miningSchema, MiningFunctionType.REGRESSION);
+
+		ModelManager<RegressionModel> modelManager = createManager(regressionModel);
+
+		// The LocalTransformations, Output and Targets elements are optional
+		assertNull(modelManager.getLocalDerivedField(x));
+		assertNull(modelManager.getOutputField(x));
+		assertNull(modelManager.getTarget(y));
+
+		assertEquals(Collections.<FieldName>emptyList(), modelManager.getOutputFields());
+
+		// The first definition wins
+		assertSame(firstMiningField, modelManager.getMiningField(x));
+
+		DerivedField firstDerivedField = new DerivedField(OpType.CONTINUOUS, DataType.DOUBLE)
+			.withName(x);
+		DerivedField secondDerivedField = new DerivedField(OpType.CATEGORICAL, DataType.STRING)
+			.withName(x);
+
+		regressionModel.setLocalTransformations(new LocalTransformations().withDerivedFields(firstDerivedField, secondDerivedField));
+
+		OutputField firstOutputField = new OutputField(x);
+		OutputField secondOutputField = new OutputField(x);
+
+		regressionModel.setOutput(new Output().withOutputFields(firstOutputField, secondOutputField));
+
+		Target firstTarget = new Target(y);
+		Target secondTarget = new Target(y);
+
+		regressionModel.setTargets(new Targets().withTargets(firstTarget, secondTarget));
+
+		modelManager = createManager(regressionModel);
+
+		assertSame(firstDerivedField, modelManager.getLocalDerivedField(x));
+		assertSame(firstOutputField, modelManager.getOutputField(x));
+		assertSame(firstTarget, modelManager.getTarget(y));
+	}
+
+	@Test
+	public void getFields(){
+		FieldName x = new FieldName("x");
+		FieldName y = new FieldName("y");
+		FieldName z = new FieldName("z");
+
+		MiningSchema miningSchema = new MiningSchema()
+			.withMiningFields(new MiningField(x), new MiningField(y).withUsageType(FieldUsageType.PREDICTED));
+
+		RegressionModel regressionModel = new RegressionModel(miningSchema, MiningFunctionType.REGRESSION)
+			.withOutput(new Output().withOutputFields(new OutputField(z)));
+
+		ModelManager<RegressionModel> modelManager = createManager(regressionModel);
+
+		List<FieldName> activeFields = modelManager.getActiveFields();
+		List<FieldName> targetFields = modelManager.getTargetFields();
+		List<FieldName> outputFields = modelManager.getOutputFields();
+
+		assertEquals(Arrays.asList(x), activeFields);
+		assertEquals(Arrays.asList(y), targetFields);
+		assertEquals(Arrays.asList(z), outputFields);
+
+		// The lists are computed once
+		assertSame(activeFields, modelManager.getActiveFields());
+		assertSame(targetFields, modelManager.getTargetFields());
+		assertSame(outputFields, modelManager.getOutputFields());
+
+		checkUnmodifiable(activeFields, z);
+		checkUnmodifiable(targetFields, z);
+		checkUnmodifiable(outputFields, x);
+
+		regressionModel.setOutput(null);
+
+		checkUnmodifiable(createManager(regressionModel).getOutputFields(), x);
+	}
+
+	static
+	private ModelManager<RegressionModel> createManager(RegressionModel regressionModel){
+		PMML pmml = new PMML(new Header(), new DataDictionary(), "4.1")
+			.withModels(regressionModel);
+
+		return new ModelManager<RegressionModel>(pmml, regressionModel);
+	}
+
+	static
+	private void checkUnmodifiable(List<FieldName> fields, FieldName name){
+
+		try {
+			fields.add(name);
+
+			fail();
+		} catch(UnsupportedOperationException uoe){
+			// Ignored
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2014 Villu Ruusmann
+ *
+ * This file is part of JPMML-Evaluator
+ *
+ * JPMML-Evaluator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Evaluator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Evaluator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.manager;
+
+import org.dmg.pmml.*;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+public class PMMLManagerTest {
+
+	@Test
+	public void getDataField(){
+		FieldName name = new FieldName("x");
+
+		DataField first = new DataField(name, OpType.CONTINUOUS, DataType.DOUBLE);
+		DataField second = new DataField(name, OpType.CATEGORICAL, DataType.STRING);
+
+		PMML pmml = new PMML(new Header(), new DataDictionary().withDataFields(first, second), "4.1");
+
+		PMMLManager pmmlManager = new PMMLManager(pmml);
+
+		// The first definition wins
+		assertSame(first, pmmlManager.getDataField(name));
+		assertSame(first, pmmlManager.getDataField(name));
+
+		assertNull(pmmlManager.getDataField(new FieldName("y")));
+	}
+
+	@Test
+	public void getDerivedField(){
+		FieldName name = new FieldName("x");
+
+		PMML pmml = new PMML(new Header(), new DataDictionary(), "4.1");
+
+		PMMLManager pmmlManager = new PMMLManager(pmml);
+
+		// The TransformationDictionary element is optional
+		assertNull(pmmlManager.getTransformationDictionary());
+		assertNull(pmmlManager.getDerivedField(name));
+		assertNull(pmmlManager.getFunction("f"));
+
+		DerivedField first = new DerivedField(OpType.CONTINUOUS, DataType.DOUBLE)
+			.withName(name);
+		DerivedField second = new DerivedField(OpType.CATEGORICAL, DataType.STRING)
+			.withName(name);
+
+		DefineFunction firstFunction = new DefineFunction("f", OpType.CONTINUOUS);
+		DefineFunction secondFunction = new DefineFunction("f", OpType.CATEGORICAL);
+
+		pmml.setTransformationDictionary(new TransformationDictionary().withDerivedFields(first, second).withDefineFunctions(firstFunction, secondFunction));
+
+		pmmlManager = new PMMLManager(pmml);
+
+		assertSame(first, pmmlManager.getDerivedField(name));
+		assertSame(firstFunction, pmmlManager.getFunction("f"));
+	}
+}
\ No newline at end of file